@@ -0,0 +1,92 @@
+package DecaTeamOrganizer;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * RosterGenerator Class that creates synthetic team rosters for benchmarking.
+ * The same size and seed always give the same roster, so benchmark results can be compared between runs
+ * @author Hugh Jiang
+ */
+public class RosterGenerator {
+
+    // Constants
+    final static long DEFAULT_SEED = 42;
+    final static String[] FIRST_NAMES = {"Aaron", "Abigail", "Adam", "Aiden", "Alexander", "Alice", "Amelia", "Andrew", "Anna", "Ava",
+        "Benjamin", "Caleb", "Charlotte", "Chloe", "Christopher", "Daniel", "David", "Elijah", "Ella", "Emily", "Emma", "Ethan",
+        "Evelyn", "Gabriel", "Grace", "Hannah", "Henry", "Isabella", "Jack", "James", "Jessica", "John", "Joseph", "Julia",
+        "Liam", "Lucas", "Madison", "Mason", "Mia", "Michael", "Natalie", "Noah", "Olivia", "Priya", "Ryan", "Samuel", "Sophia",
+        "Thomas", "Victoria", "William", "Wei", "Yuki", "Zoe"};
+    final static String[] LAST_NAMES = {"Anderson", "Brown", "Chen", "Clark", "Davis", "Garcia", "Gonzalez", "Harris", "Jackson",
+        "Jiang", "Johnson", "Jones", "Kim", "Lee", "Lewis", "Lopez", "Martin", "Martinez", "Miller", "Moore", "Nguyen", "Patel",
+        "Robinson", "Rodriguez", "Sanchez", "Singh", "Smith", "Taylor", "Thomas", "Thompson", "Walker", "Wang", "White",
+        "Williams", "Wilson", "Wong", "Young", "Zhang"};
+    final static String[] EVENT_IDS = {"ACT", "AAM", "ASM", "BFS", "BLTDM", "BOR", "BSM", "BTDM", "EIP", "ENT", "ETDM", "FTDM",
+        "HLM", "HTDM", "HTPS", "IBP", "MCS", "PBM", "PFL", "PFN", "PMK", "QSRM", "RFSM", "SEM", "STDM", "TTDM"};
+
+    // Instance variables
+    private Random random;
+
+    /**
+     * Constructor for a generator that always creates the same sequence of members for a seed
+     * @param seed the seed of the random number generator
+     */
+    public RosterGenerator(long seed) {
+        random = new Random(seed);
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Pick a random element of an array
+     * @param values the array of Strings
+     * @return a random String from the array
+     */
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Create the next synthetic member. Names repeat often (like a real roster), but emails are unique
+     * @param number the number of the member in the roster, used to make the email unique
+     * @return the new Member
+     */
+    public Member nextMember(int number) {
+        String firstName = pick(FIRST_NAMES);
+        String lastName = pick(LAST_NAMES);
+        String email = firstName.toLowerCase() + "." + lastName.toLowerCase() + number + "@students.example.org";
+        int grade = TeamList.GRADE_LIST[random.nextInt(TeamList.GRADE_LIST.length)];
+
+        // Subteams start at index 1 of SUBTEAMS (index 0 is the placeholder), and "None" is stored as an empty String
+        int subteamIndex = 1 + random.nextInt(TeamList.SUBTEAMS.length - 1);
+        String subteam = "";
+        if (subteamIndex < TeamList.SUBTEAMS.length - 1) {
+            subteam = TeamList.SUBTEAMS[subteamIndex];
+        }
+
+        return new Member(firstName, lastName, email, grade, subteam, pick(EVENT_IDS));
+    }
+
+    /**
+     * Create a roster of synthetic members
+     * @param size the number of members in the roster
+     * @return the ArrayList of generated Members, in the order they were generated (not sorted)
+     */
+    public ArrayList<Member> generate(int size) {
+        ArrayList<Member> members = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            members.add(nextMember(i));
+        }
+        return members;
+    }
+
+    /**
+     * Create a roster of synthetic members with the default seed
+     * @param size the number of members in the roster
+     * @return the ArrayList of generated Members
+     */
+    public static ArrayList<Member> generateRoster(int size) {
+        return new RosterGenerator(DEFAULT_SEED).generate(size);
+    }
+}
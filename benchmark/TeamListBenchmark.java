@@ -0,0 +1,434 @@
+package DecaTeamOrganizer;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Locale;
+
+/**
+ * TeamListBenchmark Class that times the TeamList operations used by the Gui (adding, importing, searching, filtering, deleting and exporting)
+ * on synthetic rosters of different sizes, and writes the results as csv or json so they can be compared between versions.
+ * Every benchmark is run for a few warmup iterations (so the JIT compiler has optimized the code) before the measured iterations.
+ * <pre>
+ * javac -d out src/*.java benchmark/*.java
+ * java -Xmx4g -cp out DecaTeamOrganizer.TeamListBenchmark --sizes 1000,100000,1000000 --format json --out results.json
+ * </pre>
+ * @author Hugh Jiang
+ */
+public class TeamListBenchmark {
+
+    // Constants
+    final static int[] DEFAULT_SIZES = {1000, 100000, 1000000};
+    final static int DEFAULT_WARMUP_ITERATIONS = 3;
+    final static int DEFAULT_MEASURED_ITERATIONS = 5;
+    final static String SHORT_QUERY = "ann";
+    final static String LONG_QUERY = "christopher";
+    final static int TOP_RESULTS = 100;
+
+    // Results are added to the sink so the JIT compiler can't remove the benchmarked code as unused
+    static volatile long sink;
+
+    /**
+     * One benchmarked operation. Each iteration times a fixed number of operations on a roster that was set up beforehand
+     */
+    private abstract static class Benchmark {
+        String name;
+        int opsPerIteration;
+        TeamList team;
+        ArrayList<Member> roster;
+
+        /**
+         * Constructor for a benchmark
+         * @param name the String name of the benchmark in the results
+         * @param opsPerIteration the number of operations timed in each iteration
+         */
+        Benchmark(String name, int opsPerIteration) {
+            this.name = name;
+            this.opsPerIteration = opsPerIteration;
+        }
+
+        /**
+         * Create the team that the benchmark runs on. Not timed
+         * @param roster the generated Members of the roster
+         * @throws IOException if a file needed by the benchmark cannot be written
+         */
+        void setUp(ArrayList<Member> roster) throws IOException {
+            this.roster = roster;
+            team = new TeamList();
+            team.addMembers(copyOf(roster));
+        }
+
+        /**
+         * Run one iteration of the benchmark
+         * @return the number of nanoseconds spent on the timed operations (work done to restore the team afterwards is not included)
+         * @throws IOException if the benchmark reads or writes a file that fails
+         */
+        abstract long runIteration() throws IOException;
+    }
+
+    /**
+     * Results of the measured iterations of one benchmark on one roster size
+     */
+    private static class Result {
+        String name;
+        int size;
+        int iterations;
+        int opsPerIteration;
+        double meanNanosPerOp;
+        double minNanosPerOp;
+        double maxNanosPerOp;
+        double stdDevNanosPerOp;
+    }
+
+
+    // Static Methods
+
+    /**
+     * Copy members so that each team indexes its own Member objects (a member's slot belongs to the team it is in)
+     * @param members the Members to be copied
+     * @return the ArrayList of copies, without IDs
+     */
+    private static ArrayList<Member> copyOf(ArrayList<Member> members) {
+        ArrayList<Member> copies = new ArrayList<>(members.size());
+        for (Member m : members) {
+            copies.add(new Member(m.getFirstName(), m.getLastname(), m.getEmail(), m.getGrade(), m.getSubteam(), m.getEventID()));
+        }
+        return copies;
+    }
+
+    /**
+     * Create every benchmark
+     * @param tempDirectory the directory for the files that are imported and exported
+     * @return the ArrayList of Benchmarks
+     */
+    private static ArrayList<Benchmark> createBenchmarks(final File tempDirectory) {
+        ArrayList<Benchmark> benchmarks = new ArrayList<>();
+
+        // Add members one at a time (binary search insertion), then delete them again without timing it
+        benchmarks.add(new Benchmark("add", 1000) {
+            RosterGenerator generator = new RosterGenerator(RosterGenerator.DEFAULT_SEED + 1);
+
+            @Override
+            long runIteration() {
+                ArrayList<Member> added = generator.generate(opsPerIteration);
+                ArrayList<Integer> ids = new ArrayList<>(added.size());
+
+                long start = System.nanoTime();
+                for (Member m : added) {
+                    team.addMember(m);
+                }
+                long elapsed = System.nanoTime() - start;
+
+                for (Member m : added) {
+                    ids.add(m.getId());
+                }
+                team.deleteMembers(ids);
+                return elapsed;
+            }
+        });
+
+        // Import the whole roster from a csv file into an empty team
+        benchmarks.add(new Benchmark("bulkImport", 1) {
+            File csvFile;
+
+            @Override
+            void setUp(ArrayList<Member> roster) throws IOException {
+                this.roster = roster;
+                csvFile = new File(tempDirectory, "roster-" + roster.size() + ".csv");
+                if (!TeamList.exportMembers(roster, csvFile.getPath())) {
+                    throw new IOException("Could not write " + csvFile);
+                }
+            }
+
+            @Override
+            long runIteration() {
+                TeamList imported = new TeamList();
+
+                long start = System.nanoTime();
+                imported.importMembers(csvFile.getPath());
+                long elapsed = System.nanoTime() - start;
+
+                sink += imported.getNumMembers();
+                return elapsed;
+            }
+        });
+
+        // Search with the shortest allowed query (one partial query, many matches)
+        benchmarks.add(new Benchmark("searchShort", 10) {
+            @Override
+            long runIteration() {
+                long start = System.nanoTime();
+                for (int i = 0; i < opsPerIteration; i++) {
+                    sink += team.getSearch(SHORT_QUERY).size();
+                }
+                return System.nanoTime() - start;
+            }
+        });
+
+        // Search with a long query (every partial query of the query is searched)
+        benchmarks.add(new Benchmark("searchLong", 10) {
+            @Override
+            long runIteration() {
+                long start = System.nanoTime();
+                for (int i = 0; i < opsPerIteration; i++) {
+                    sink += team.getSearch(LONG_QUERY).size();
+                }
+                return System.nanoTime() - start;
+            }
+        });
+
+        // Ranked search of the long query that only keeps the best results, like the Gui search button
+        benchmarks.add(new Benchmark("searchTop", 10) {
+            @Override
+            long runIteration() {
+                long start = System.nanoTime();
+                for (int i = 0; i < opsPerIteration; i++) {
+                    sink += team.getTopSearch(LONG_QUERY, TOP_RESULTS).size();
+                }
+                return System.nanoTime() - start;
+            }
+        });
+
+        // Filter by subteam, grade and event, then read the filtered list like the table does
+        benchmarks.add(new Benchmark("combinedFilters", 10) {
+            @Override
+            long runIteration() {
+                long start = System.nanoTime();
+                for (int i = 0; i < opsPerIteration; i++) {
+                    team.resetFilters();
+                    team.filterBySubteam("Finance");
+                    team.filterByGrade(11);
+                    team.filterByEvent("PFN");
+
+                    for (Member m : team.getFilteredList()) {
+                        sink += m.getGrade();
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+
+                team.resetFilters();
+                return elapsed;
+            }
+        });
+
+        // Delete members using copies re-created from their information (the search used when the member isn't known by ID),
+        // then add them back without timing it
+        benchmarks.add(new Benchmark("deleteMember", 100) {
+            @Override
+            long runIteration() {
+                ArrayList<Member> deleted = new ArrayList<>(opsPerIteration);
+                int step = Math.max(1, team.getNumMembers() / opsPerIteration);
+                for (int i = 0; i < opsPerIteration && i * step < team.getNumMembers(); i++) {
+                    deleted.add(team.get(i * step));
+                }
+
+                long start = System.nanoTime();
+                for (Member m : deleted) {
+                    Member copy = new Member(m.getFirstName(), m.getLastname(), m.getEmail(), m.getGrade(), m.getSubteam(), m.getEventID());
+                    if (team.deleteMember(copy)) {
+                        sink++;
+                    }
+                }
+                long elapsed = System.nanoTime() - start;
+
+                team.addMembers(deleted);
+                return elapsed;
+            }
+        });
+
+        // Write the whole team to a csv file
+        benchmarks.add(new Benchmark("export", 1) {
+            @Override
+            long runIteration() throws IOException {
+                File csvFile = new File(tempDirectory, "export-" + team.getNumMembers() + ".csv");
+
+                long start = System.nanoTime();
+                if (!TeamList.exportMembers(team.getMembers(), csvFile.getPath())) {
+                    throw new IOException("Could not write " + csvFile);
+                }
+                long elapsed = System.nanoTime() - start;
+
+                sink += csvFile.length();
+                return elapsed;
+            }
+        });
+
+        return benchmarks;
+    }
+
+    /**
+     * Run the warmup and measured iterations of a benchmark
+     * @param benchmark the Benchmark that was set up
+     * @param size the size of the roster
+     * @param warmupIterations the number of iterations that are not measured
+     * @param measuredIterations the number of measured iterations
+     * @return the Result of the measured iterations
+     * @throws IOException if the benchmark fails
+     */
+    private static Result measure(Benchmark benchmark, int size, int warmupIterations, int measuredIterations) throws IOException {
+        for (int i = 0; i < warmupIterations; i++) {
+            benchmark.runIteration();
+        }
+
+        double[] nanosPerOp = new double[measuredIterations];
+        double total = 0;
+        for (int i = 0; i < measuredIterations; i++) {
+            nanosPerOp[i] = (double) benchmark.runIteration() / benchmark.opsPerIteration;
+            total += nanosPerOp[i];
+        }
+
+        Result result = new Result();
+        result.name = benchmark.name;
+        result.size = size;
+        result.iterations = measuredIterations;
+        result.opsPerIteration = benchmark.opsPerIteration;
+        result.meanNanosPerOp = total / measuredIterations;
+        result.minNanosPerOp = Double.MAX_VALUE;
+        result.maxNanosPerOp = 0;
+
+        double squaredDifferences = 0;
+        for (int i = 0; i < measuredIterations; i++) {
+            result.minNanosPerOp = Math.min(result.minNanosPerOp, nanosPerOp[i]);
+            result.maxNanosPerOp = Math.max(result.maxNanosPerOp, nanosPerOp[i]);
+            squaredDifferences += (nanosPerOp[i] - result.meanNanosPerOp) * (nanosPerOp[i] - result.meanNanosPerOp);
+        }
+        result.stdDevNanosPerOp = Math.sqrt(squaredDifferences / measuredIterations);
+
+        return result;
+    }
+
+    /**
+     * Write the results as csv, one row per benchmark and roster size
+     * @param results the ArrayList of Results
+     * @param writer the Writer for the output
+     */
+    private static void writeCsv(ArrayList<Result> results, PrintWriter writer) {
+        writer.println("benchmark,size,iterations,opsPerIteration,meanNanosPerOp,minNanosPerOp,maxNanosPerOp,stdDevNanosPerOp");
+        for (Result r : results) {
+            writer.println(String.format(Locale.ROOT, "%s,%d,%d,%d,%.1f,%.1f,%.1f,%.1f", r.name, r.size, r.iterations, r.opsPerIteration,
+                    r.meanNanosPerOp, r.minNanosPerOp, r.maxNanosPerOp, r.stdDevNanosPerOp));
+        }
+    }
+
+    /**
+     * Write the results as a json array, one object per benchmark and roster size
+     * @param results the ArrayList of Results
+     * @param writer the Writer for the output
+     */
+    private static void writeJson(ArrayList<Result> results, PrintWriter writer) {
+        writer.println("[");
+        for (int i = 0; i < results.size(); i++) {
+            Result r = results.get(i);
+            writer.print(String.format(Locale.ROOT, "  {\"benchmark\": \"%s\", \"size\": %d, \"iterations\": %d, \"opsPerIteration\": %d, "
+                    + "\"meanNanosPerOp\": %.1f, \"minNanosPerOp\": %.1f, \"maxNanosPerOp\": %.1f, \"stdDevNanosPerOp\": %.1f}",
+                    r.name, r.size, r.iterations, r.opsPerIteration, r.meanNanosPerOp, r.minNanosPerOp, r.maxNanosPerOp, r.stdDevNanosPerOp));
+            if (i < results.size() - 1) {
+                writer.print(",");
+            }
+            writer.println();
+        }
+        writer.println("]");
+    }
+
+    /**
+     * Print how to run the benchmarks
+     */
+    private static void printUsage() {
+        System.err.println("Usage: TeamListBenchmark [--sizes 1000,100000,1000000] [--benchmarks add,bulkImport,searchShort,searchLong,searchTop,combinedFilters,deleteMember,export] [--warmup 3] [--iterations 5]"
+                + " [--format csv|json] [--out file]");
+    }
+
+    /**
+     * Run the benchmarks
+     * @param args the command line arguments (see printUsage)
+     * @throws IOException if a benchmark or the output file fails
+     */
+    public static void main(String[] args) throws IOException {
+        int[] sizes = DEFAULT_SIZES;
+        String benchmarkFilter = null;
+        int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+        int measuredIterations = DEFAULT_MEASURED_ITERATIONS;
+        String format = "csv";
+        String outFile = null;
+
+        try {
+            for (int i = 0; i < args.length; i += 2) {
+                String value = args[i + 1];
+                switch (args[i]) {
+                    case "--sizes":
+                        String[] sizeValues = value.split(",");
+                        sizes = new int[sizeValues.length];
+                        for (int j = 0; j < sizeValues.length; j++) {
+                            sizes[j] = Integer.parseInt(sizeValues[j].trim());
+                        }
+                        break;
+                    case "--benchmarks":
+                        benchmarkFilter = "," + value + ",";
+                        break;
+                    case "--warmup":
+                        warmupIterations = Integer.parseInt(value);
+                        break;
+                    case "--iterations":
+                        measuredIterations = Integer.parseInt(value);
+                        break;
+                    case "--format":
+                        format = value;
+                        break;
+                    case "--out":
+                        outFile = value;
+                        break;
+                    default:
+                        throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if (!format.equals("csv") && !format.equals("json") || measuredIterations < 1) {
+                throw new IllegalArgumentException(format);
+            }
+        }
+        catch (IllegalArgumentException | ArrayIndexOutOfBoundsException error) {
+            printUsage();
+            System.exit(1);
+        }
+
+        File tempDirectory = new File(System.getProperty("java.io.tmpdir"), "teamlist-benchmark");
+        tempDirectory.mkdirs();
+
+        ArrayList<Result> results = new ArrayList<>();
+        for (int size : sizes) {
+            ArrayList<Member> roster = RosterGenerator.generateRoster(size);
+
+            for (Benchmark benchmark : createBenchmarks(tempDirectory)) {
+                if (benchmarkFilter != null && !benchmarkFilter.contains("," + benchmark.name + ",")) {
+                    continue;
+                }
+
+                // Progress goes to stderr so the results on stdout can be redirected to a file
+                System.err.println("Running " + benchmark.name + " on " + size + " members");
+                benchmark.setUp(roster);
+                results.add(measure(benchmark, size, warmupIterations, measuredIterations));
+
+                // Let the team be garbage collected before the next benchmark sets up its own
+                benchmark.team = null;
+            }
+        }
+
+        Writer output;
+        if (outFile == null) {
+            output = new PrintWriter(System.out);
+        }
+        else {
+            output = new FileWriter(outFile);
+        }
+        try (PrintWriter writer = new PrintWriter(output)) {
+            if (format.equals("json")) {
+                writeJson(results, writer);
+            }
+            else {
+                writeCsv(results, writer);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package DecaTeamOrganizer;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AutoSaver Class that saves a TeamList's changes on a scheduled background thread, so the thread that changes the team
+ * (the Gui thread) never waits for the disk. The team is checked every CHECK_INTERVAL_MILLIS. A dirty team is saved once
+ * no change has been made for QUIET_MILLIS, so a burst of edits is saved together, but never more than MAX_DELAY_MILLIS
+ * after the first unsaved change, so a long burst is still saved
+ * @author Hugh Jiang
+ */
+public class AutoSaver {
+
+    // Constants
+    final static long CHECK_INTERVAL_MILLIS = 500;
+    final static long QUIET_MILLIS = 1000;
+    final static long MAX_DELAY_MILLIS = 5000;
+    final static long STOP_TIMEOUT_MILLIS = 30000;
+
+    // Instance variables
+    private TeamList team;
+    private ScheduledExecutorService executor;
+    private volatile long numSaves;
+    private volatile long lastSaveMillis; // time taken by the last save, read from other threads
+
+    /**
+     * Constructor for an AutoSaver that has not been started
+     * @param team the TeamList to save
+     */
+    public AutoSaver(TeamList team) {
+        this.team = team;
+        numSaves = 0;
+        lastSaveMillis = 0;
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Start checking the team on a background thread
+     */
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                // A daemon thread doesn't keep the program running after the Gui is closed
+                Thread thread = new Thread(task, "Autosave");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        // With a fixed delay, a slow save delays the next check instead of making checks pile up
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                check();
+            }
+        }, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop checking the team, waiting for a save that is running to finish
+     */
+    public void stop() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(STOP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Save the team if it is dirty and the last burst of changes is over (or has gone on for too long)
+     */
+    private void check() {
+        // An exception would stop the scheduled checks, so it is caught and the team is checked again next time
+        try {
+            if (!team.isDirty()) {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            boolean quiet = now - team.getLastChangeTime() >= QUIET_MILLIS;
+            boolean overdue = now - team.getFirstUnsavedChangeTime() >= MAX_DELAY_MILLIS;
+            if (quiet || overdue) {
+                long start = System.nanoTime();
+                if (team.saveChanges()) {
+                    numSaves++;
+                }
+                lastSaveMillis = (System.nanoTime() - start) / 1000000;
+            }
+        }
+        catch (RuntimeException error) {
+            System.out.println("Error in saving changes");
+        }
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Accessor method to get the number of saves made
+     * @return the number of successful saves
+     */
+    public long getNumSaves() {
+        return numSaves;
+    }
+
+    /**
+     * Accessor method to get the time the last save took
+     * @return the time in milliseconds
+     */
+    public long getLastSaveMillis() {
+        return lastSaveMillis;
+    }
+}
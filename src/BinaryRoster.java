@@ -0,0 +1,395 @@
+package DecaTeamOrganizer;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * BinaryRoster Class that saves and loads the team in a compact binary file, used for the storage file instead of csv
+ * (csv is still used to import and export members). The file is read into memory with one read of its FileChannel (it is not mapped,
+ * since a mapped file stays locked on Windows until the mapping is freed, which would stop a new snapshot from being renamed over it),
+ * and the members are stored in the team's sorted order, so loading doesn't parse text or sort. Subteams and event IDs are stored once in a string dictionary
+ * and each member refers to them by number, so members with the same subteam or event also share the same String when loaded.
+ * <p>
+ * Layout (version 2, big-endian): magic "DTRS", format version, sort order, number of members, the dictionary of strings,
+ * a grade byte for each member (GRADE_ESCAPE if the grade doesn't fit, followed by the list of grades that don't fit),
+ * the dictionary numbers of each member's subteam and event ID (1, 2 or 4 bytes each depending on the size of the dictionary),
+ * each member's ID (so journal records, which refer to members by ID, still apply when the team is loaded; version 1 files have no IDs),
+ * the string heap with each member's first name, last name and email, and a table of each member's position in the heap, in sorted order.
+ * Strings are UTF-8 with a 1 byte length (LONG_STRING followed by a 4 byte length for longer strings)
+ * @author Hugh Jiang
+ */
+public class BinaryRoster {
+
+    // Constants
+    final static int MAGIC = 0x44545253; // "DTRS"
+    final static int FORMAT_VERSION = 2;
+    final static int FIRST_ID_VERSION = 2; // first version that saves member IDs
+    final static int GRADE_ESCAPE = 0xFF;
+    final static int LONG_STRING = 0xFF;
+
+    // Instance variables
+    private ArrayList<Member> members;
+    private boolean sortedByFirstName;
+
+    /**
+     * Constructor for a roster that was read from a file
+     * @param members the ArrayList of Members in the order of the file
+     * @param sortedByFirstName true if the members are sorted by first name, false if they are sorted by last name
+     */
+    private BinaryRoster(ArrayList<Member> members, boolean sortedByFirstName) {
+        this.members = members;
+        this.sortedByFirstName = sortedByFirstName;
+    }
+
+
+    // Static Methods
+
+    /**
+     * Check if a file starts with the magic number of a binary roster (i.e. it is not a csv file)
+     * @param source the File to check
+     * @return true if the file is a binary roster
+     */
+    static boolean isBinaryRoster(File source) {
+        try (DataInputStream input = new DataInputStream(new FileInputStream(source))) {
+            return input.readInt() == MAGIC;
+        }
+        catch (IOException error) {
+            return false;
+        }
+    }
+
+    /**
+     * Write a team to a binary roster file through a large buffer, force the file to disk, and calculate its checksum while it is written
+     * @param members the List of Members to be written, in the team's sorted order
+     * @param sortedByFirstName true if the members are sorted by first name, false if they are sorted by last name
+     * @param target the File to write (it is replaced if it exists)
+     * @return the checksum record of the file (see SnapshotFile.write())
+     * @throws IOException if the file cannot be written
+     * @throws InterruptedIOException if the thread writing the file was interrupted
+     */
+    static String write(List<Member> members, boolean sortedByFirstName, File target) throws IOException {
+        CRC32 crc = new CRC32();
+        int numMembers = members.size();
+
+        // Give every different subteam and event ID a number in the dictionary
+        HashMap<String, Integer> dictionary = new HashMap<>();
+        ArrayList<String> strings = new ArrayList<>();
+        int[] subteamCodes = new int[numMembers];
+        int[] eventCodes = new int[numMembers];
+        for (int i = 0; i < numMembers; i++) {
+            Member m = members.get(i);
+            subteamCodes[i] = getCode(m.getSubteam(), dictionary, strings);
+            eventCodes[i] = getCode(m.getEventID(), dictionary, strings);
+        }
+
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream output = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), SnapshotFile.BUFFER_SIZE), crc));
+
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeBoolean(sortedByFirstName);
+            output.writeInt(numMembers);
+
+            output.writeInt(strings.size());
+            for (String s : strings) {
+                writeString(output, s);
+            }
+
+            // Grades that don't fit in a byte are listed after the grade bytes
+            ArrayList<Integer> largeGrades = new ArrayList<>();
+            for (int i = 0; i < numMembers; i++) {
+                int grade = members.get(i).getGrade();
+                if (grade >= 0 && grade < GRADE_ESCAPE) {
+                    output.writeByte(grade);
+                }
+                else {
+                    output.writeByte(GRADE_ESCAPE);
+                    largeGrades.add(grade);
+                }
+            }
+            output.writeInt(largeGrades.size());
+            for (Integer grade : largeGrades) {
+                output.writeInt(grade);
+            }
+
+            int codeWidth = getCodeWidth(strings.size());
+            writeCodes(output, subteamCodes, codeWidth);
+            writeCodes(output, eventCodes, codeWidth);
+            for (int i = 0; i < numMembers; i++) {
+                output.writeInt(members.get(i).getId());
+            }
+
+            // The heap is written after its length, so the positions in it are counted from the start of the heap
+            int[] offsets = new int[numMembers];
+            ByteArrayOutputStream heapBytes = new ByteArrayOutputStream(numMembers * 64);
+            DataOutputStream heap = new DataOutputStream(heapBytes);
+            for (int i = 0; i < numMembers; i++) {
+                Member m = members.get(i);
+                offsets[i] = heap.size();
+                writeString(heap, m.getFirstName());
+                writeString(heap, m.getLastname());
+                writeString(heap, m.getEmail());
+
+                if (i % 1024 == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Export cancelled");
+                }
+            }
+            output.writeInt(heap.size());
+            heapBytes.writeTo(output);
+
+            for (int i = 0; i < numMembers; i++) {
+                output.writeInt(offsets[i]);
+            }
+            output.flush();
+
+            // Make sure the whole file is on disk before it can be renamed over the old one
+            channel.force(true);
+            return SnapshotFile.getChecksumRecord(channel.size(), crc.getValue());
+        }
+    }
+
+    /**
+     * Get the dictionary number of a String, adding it to the dictionary if it is new
+     * @param s the String (a subteam or event ID)
+     * @param dictionary the HashMap from each String to its number
+     * @param strings the ArrayList of Strings in the dictionary, in order of their numbers
+     * @return the number of the String
+     */
+    private static int getCode(String s, HashMap<String, Integer> dictionary, ArrayList<String> strings) {
+        Integer code = dictionary.get(s);
+        if (code == null) {
+            code = strings.size();
+            dictionary.put(s, code);
+            strings.add(s);
+        }
+        return code;
+    }
+
+    /**
+     * Get the number of bytes needed for each dictionary number
+     * @param numStrings the number of Strings in the dictionary
+     * @return 1, 2 or 4
+     */
+    private static int getCodeWidth(int numStrings) {
+        if (numStrings <= 0x100) {
+            return 1;
+        }
+        if (numStrings <= 0x10000) {
+            return 2;
+        }
+        return 4;
+    }
+
+    /**
+     * Write a dictionary number for each member
+     * @param output the DataOutputStream to write to
+     * @param codes the array of dictionary numbers
+     * @param codeWidth the number of bytes for each number, from getCodeWidth()
+     * @throws IOException if the numbers cannot be written
+     */
+    private static void writeCodes(DataOutputStream output, int[] codes, int codeWidth) throws IOException {
+        for (int code : codes) {
+            if (codeWidth == 1) {
+                output.writeByte(code);
+            }
+            else if (codeWidth == 2) {
+                output.writeShort(code);
+            }
+            else {
+                output.writeInt(code);
+            }
+        }
+    }
+
+    /**
+     * Read a dictionary number for each member from the file buffer
+     * @param buffer the ByteBuffer positioned at the numbers
+     * @param numMembers the number of members
+     * @param codeWidth the number of bytes for each number, from getCodeWidth()
+     * @return the array of dictionary numbers
+     */
+    private static int[] readCodes(ByteBuffer buffer, int numMembers, int codeWidth) {
+        int[] codes = new int[numMembers];
+        for (int i = 0; i < numMembers; i++) {
+            if (codeWidth == 1) {
+                codes[i] = buffer.get() & 0xFF;
+            }
+            else if (codeWidth == 2) {
+                codes[i] = buffer.getShort() & 0xFFFF;
+            }
+            else {
+                codes[i] = buffer.getInt();
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Write a String as UTF-8 with its length in front
+     * @param output the DataOutputStream to write to
+     * @param s the String to write
+     * @throws IOException if the String cannot be written
+     */
+    private static void writeString(DataOutputStream output, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+
+        if (bytes.length < LONG_STRING) {
+            output.writeByte(bytes.length);
+        }
+        else {
+            output.writeByte(LONG_STRING);
+            output.writeInt(bytes.length);
+        }
+        output.write(bytes);
+    }
+
+    /**
+     * Read a team from a binary roster file. The whole file is read into a heap buffer and the channel is closed before the members are decoded
+     * @param source the File to read
+     * @return the BinaryRoster containing the members of the file
+     * @throws IOException if the file cannot be read, is damaged, or was written by a newer version of the program
+     */
+    static BinaryRoster read(File source) throws IOException {
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Roster file is too large to load");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Roster file is damaged");
+                }
+            }
+            buffer.flip();
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a roster file");
+            }
+            int version = buffer.getInt();
+            if (version < 1 || version > FORMAT_VERSION) {
+                throw new IOException("Unsupported roster file version " + version);
+            }
+            boolean sortedByFirstName = buffer.get() != 0;
+            int numMembers = buffer.getInt();
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(buffer);
+            }
+
+            byte[] grades = new byte[numMembers];
+            buffer.get(grades);
+            int[] largeGrades = new int[buffer.getInt()];
+            for (int i = 0; i < largeGrades.length; i++) {
+                largeGrades[i] = buffer.getInt();
+            }
+
+            int codeWidth = getCodeWidth(strings.length);
+            int[] subteamCodes = readCodes(buffer, numMembers, codeWidth);
+            int[] eventCodes = readCodes(buffer, numMembers, codeWidth);
+            int[] ids = new int[numMembers];
+            if (version >= FIRST_ID_VERSION) {
+                for (int i = 0; i < numMembers; i++) {
+                    ids[i] = buffer.getInt();
+                }
+            }
+            else {
+                // Members get new IDs when they are added to the team
+                Arrays.fill(ids, -1);
+            }
+
+            // Copy the heap out of the buffer in one step, so the names can be decoded from an array
+            byte[] heap = new byte[buffer.getInt()];
+            buffer.get(heap);
+            int[] offsets = new int[numMembers];
+            buffer.asIntBuffer().get(offsets);
+
+            ArrayList<Member> members = new ArrayList<>(numMembers);
+            int[] position = new int[1];
+            int largeGradeIndex = 0;
+            for (int i = 0; i < numMembers; i++) {
+                position[0] = offsets[i];
+                String firstName = readString(heap, position);
+                String lastName = readString(heap, position);
+                String email = readString(heap, position);
+
+                int grade = grades[i] & 0xFF;
+                if (grade == GRADE_ESCAPE) {
+                    grade = largeGrades[largeGradeIndex];
+                    largeGradeIndex++;
+                }
+                Member m = new Member(firstName, lastName, email, grade, strings[subteamCodes[i]], strings[eventCodes[i]]);
+                m.setId(ids[i]);
+                members.add(m);
+            }
+            return new BinaryRoster(members, sortedByFirstName);
+        }
+        catch (BufferUnderflowException | IndexOutOfBoundsException error) {
+            throw new IOException("Roster file is damaged", error);
+        }
+    }
+
+    /**
+     * Read a String written by writeString() from the file buffer
+     * @param buffer the ByteBuffer positioned at the String
+     * @return the String
+     */
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.get() & 0xFF;
+        if (length == LONG_STRING) {
+            length = buffer.getInt();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a String written by writeString() from the string heap
+     * @param heap the byte array containing the heap
+     * @param position the array holding the position of the String, moved past the String
+     * @return the String
+     */
+    private static String readString(byte[] heap, int[] position) {
+        int start = position[0];
+        int length = heap[start] & 0xFF;
+        start++;
+        if (length == LONG_STRING) {
+            length = ((heap[start] & 0xFF) << 24) | ((heap[start + 1] & 0xFF) << 16) | ((heap[start + 2] & 0xFF) << 8) | (heap[start + 3] & 0xFF);
+            start += 4;
+        }
+        position[0] = start + length;
+        return new String(heap, start, length, StandardCharsets.UTF_8);
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Accessor method to get the members that were read
+     * @return the ArrayList of Members in the order of the file
+     */
+    public ArrayList<Member> getMembers() {
+        return members;
+    }
+
+    /**
+     * Accessor method to check the order the members were saved in
+     * @return true if the members are sorted by first name, false if they are sorted by last name
+     */
+    public boolean isSortedByFirstName() {
+        return sortedByFirstName;
+    }
+}
@@ -0,0 +1,114 @@
+package DecaTeamOrganizer;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * CandidateMatcher Class that checks which search candidates contain a query, splitting large candidate lists into chunks
+ * that are checked in parallel on a ForkJoinPool. Each member is checked on its own, so chunks don't depend on each other,
+ * and the result is a flag for each candidate so the matches can be read back in the original order
+ * @author Hugh Jiang
+ */
+public class CandidateMatcher extends RecursiveAction {
+
+    // Constants
+    private static final long serialVersionUID = 1L;
+    final static int PARALLEL_THRESHOLD = 32768; // fewer candidates than this are checked on the calling thread
+    final static int CHUNK_SIZE = 4096;
+
+    // Instance variables
+    private List<Member> candidates;
+    private byte[] query;
+    private BitSet filterMask;
+    private BitSet excludedSlots;
+    private boolean[] matches;
+    private Thread caller;
+    private int from;
+    private int to;
+
+    /**
+     * Constructor for checking a range of the candidates
+     * @param candidates the List of candidate Members
+     * @param query the byte array of the query from Member.toSearchKey()
+     * @param filterMask the BitSet of slots that can match (null if every slot can)
+     * @param excludedSlots the BitSet of slots that can't match, i.e. members that already matched (null if there are none)
+     * @param matches the array of flags set for the candidates that match
+     * @param caller the Thread that started the search, checked for interruption
+     * @param from the index of the first candidate to check
+     * @param to the index after the last candidate to check
+     */
+    private CandidateMatcher(List<Member> candidates, byte[] query, BitSet filterMask, BitSet excludedSlots, boolean[] matches, Thread caller, int from, int to) {
+        this.candidates = candidates;
+        this.query = query;
+        this.filterMask = filterMask;
+        this.excludedSlots = excludedSlots;
+        this.matches = matches;
+        this.caller = caller;
+        this.from = from;
+        this.to = to;
+    }
+
+
+    // Static Methods
+
+    /**
+     * Find the candidates that contain a query and pass the filter. Runs in parallel when there are at least PARALLEL_THRESHOLD
+     * candidates and more than one processor. The BitSets must not be changed until this returns
+     * @param candidates the List of candidate Members
+     * @param query the byte array of the query from Member.toSearchKey()
+     * @param filterMask the BitSet of slots that can match (null if every slot can)
+     * @param excludedSlots the BitSet of slots that can't match (null if there are none)
+     * @return the array with a flag for each candidate that matches (incomplete if the calling thread was interrupted)
+     */
+    public static boolean[] match(List<Member> candidates, byte[] query, BitSet filterMask, BitSet excludedSlots) {
+        boolean[] matches = new boolean[candidates.size()];
+        CandidateMatcher task = new CandidateMatcher(candidates, query, filterMask, excludedSlots, matches, Thread.currentThread(), 0, candidates.size());
+
+        if (candidates.size() < PARALLEL_THRESHOLD || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            task.matchRange();
+        }
+        else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        return matches;
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Check the range of candidates, splitting it in half until the ranges are small enough
+     */
+    @Override
+    protected void compute() {
+        if (to - from <= CHUNK_SIZE) {
+            matchRange();
+        }
+        else {
+            int middle = (from + to) >>> 1;
+            invokeAll(new CandidateMatcher(candidates, query, filterMask, excludedSlots, matches, caller, from, middle),
+                    new CandidateMatcher(candidates, query, filterMask, excludedSlots, matches, caller, middle, to));
+        }
+    }
+
+    /**
+     * Check every candidate in the range on the current thread
+     */
+    private void matchRange() {
+        for (int i = from; i < to; i++) {
+            // Stop if the search was cancelled
+            if ((i - from) % 1024 == 0 && caller.isInterrupted()) {
+                return;
+            }
+
+            Member m = candidates.get(i);
+            int slot = m.getSlot();
+            // Members deleted while the search runs without the team's lock have no slot
+            if (slot >= 0 && (filterMask == null || filterMask.get(slot)) && (excludedSlots == null || !excludedSlots.get(slot)) && m.searchKeyContains(query)) {
+                matches[i] = true;
+            }
+        }
+    }
+}
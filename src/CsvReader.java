@@ -0,0 +1,339 @@
+package DecaTeamOrganizer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * CsvReader Class that reads a csv file one row at a time (RFC 4180: quoted fields may contain commas, quotes, and line breaks).
+ * Rows are split into fields directly in a large character buffer, so reading a row does not create any arrays or
+ * Strings. A field is only copied into a String when it is requested with getField().
+ * Unquoted fields are trimmed, and rows that are completely empty are skipped.
+ * @author Hugh Jiang
+ */
+public class CsvReader implements Closeable {
+
+    // Constants
+    final static int BUFFER_SIZE = 1 << 16;
+    final static int DEFAULT_MAX_FIELDS = 8;
+
+    // Instance variables
+    private Reader reader;
+    private char[] buffer;
+    private int position; // index of the next unread character in buffer
+    private int limit; // number of characters in buffer
+    private boolean endOfFile;
+    private long rowNumber;
+
+    // Slices of the buffer for each field in the current row
+    private int numFields;
+    private int[] fieldStart;
+    private int[] fieldEnd;
+    private boolean[] fieldEscaped; // true if the field contains doubled quotes that need to be replaced
+
+    /**
+     * Constructor for a CsvReader that reads from a Reader (i.e. a FileReader)
+     * @param reader the Reader containing the csv data
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+        buffer = new char[BUFFER_SIZE];
+        position = 0;
+        limit = 0;
+        endOfFile = false;
+        rowNumber = 0;
+
+        numFields = 0;
+        fieldStart = new int[DEFAULT_MAX_FIELDS];
+        fieldEnd = new int[DEFAULT_MAX_FIELDS];
+        fieldEscaped = new boolean[DEFAULT_MAX_FIELDS];
+    }
+
+
+    // Static Methods
+
+    /**
+     * Quote a field if it contains a comma, quote, or line break so it can be read back (quotes inside the field are doubled)
+     * @param field the String field
+     * @return the escaped field
+     */
+    static String escapeField(String field) {
+        if (field.indexOf(',') == -1 && field.indexOf('"') == -1 && field.indexOf('\n') == -1 && field.indexOf('\r') == -1) {
+            return field;
+        }
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Check if a character is whitespace that is trimmed from unquoted fields
+     * @param c the character
+     * @return true if c is a space or tab
+     */
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Read the next row of the file. Rows that are completely empty are skipped
+     * @return true if a row was read, false if there are no more rows
+     * @throws IOException if the file cannot be read
+     */
+    public boolean nextRow() throws IOException {
+        while (true) {
+            // Read more of the file if the buffer is empty
+            if (position >= limit && !fill()) {
+                return false;
+            }
+
+            // Skip empty lines
+            char c = buffer[position];
+            if (c == '\n' || c == '\r') {
+                position++;
+                continue;
+            }
+
+            // Split the row into fields. If the row doesn't fit in the buffer, read more of the file and try again
+            while (!parseRow()) {
+                fill();
+            }
+            rowNumber++;
+            return true;
+        }
+    }
+
+    /**
+     * Move the unread characters to the start of the buffer (growing the buffer if it is full), then read more of the file
+     * @return true if there are unread characters in the buffer
+     * @throws IOException if the file cannot be read
+     */
+    private boolean fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            position = 0;
+        }
+        else if (limit == buffer.length) {
+            // A single row is larger than the buffer
+            char[] larger = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, larger, 0, limit);
+            buffer = larger;
+        }
+
+        if (!endOfFile) {
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read == -1) {
+                endOfFile = true;
+            }
+            else {
+                limit += read;
+            }
+        }
+
+        return position < limit;
+    }
+
+    /**
+     * Record the slice of the buffer for the next field of the row
+     * @param start the index of the first character of the field
+     * @param end the index after the last character of the field
+     * @param escaped true if the field contains doubled quotes
+     */
+    private void addField(int start, int end, boolean escaped) {
+        if (numFields == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, numFields * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, numFields * 2);
+            fieldEscaped = Arrays.copyOf(fieldEscaped, numFields * 2);
+        }
+        fieldStart[numFields] = start;
+        fieldEnd[numFields] = end;
+        fieldEscaped[numFields] = escaped;
+        numFields++;
+    }
+
+    /**
+     * Split the row starting at position into fields
+     * @return true if the whole row was in the buffer, false if more of the file has to be read first
+     */
+    private boolean parseRow() {
+        int i = position;
+        numFields = 0;
+
+        while (true) {
+            // Skip whitespace before the field
+            while (i < limit && isBlank(buffer[i])) {
+                i++;
+            }
+
+            int start;
+            int end;
+            boolean escaped = false;
+
+            if (i < limit && buffer[i] == '"') {
+                // Quoted field: read until the closing quote, doubled quotes are part of the field
+                i++;
+                start = i;
+                while (true) {
+                    if (i >= limit) {
+                        if (!endOfFile) {
+                            return false;
+                        }
+                        // Missing closing quote at the end of the file, take the rest of the file as the field
+                        end = i;
+                        break;
+                    }
+                    if (buffer[i] == '"') {
+                        // Need the next character to tell a doubled quote from the closing quote
+                        if (i + 1 >= limit && !endOfFile) {
+                            return false;
+                        }
+                        if (i + 1 < limit && buffer[i + 1] == '"') {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        end = i;
+                        i++;
+                        break;
+                    }
+                    i++;
+                }
+
+                // Ignore anything between the closing quote and the next comma or line break
+                while (i < limit && buffer[i] != ',' && buffer[i] != '\n' && buffer[i] != '\r') {
+                    i++;
+                }
+            }
+            else {
+                // Unquoted field: read until the next comma or line break, then trim trailing whitespace
+                start = i;
+                while (i < limit && buffer[i] != ',' && buffer[i] != '\n' && buffer[i] != '\r') {
+                    i++;
+                }
+                end = i;
+                while (end > start && isBlank(buffer[end - 1])) {
+                    end--;
+                }
+            }
+
+            if (i >= limit && !endOfFile) {
+                return false;
+            }
+
+            addField(start, end, escaped);
+
+            if (i < limit && buffer[i] == ',') {
+                i++;
+                continue;
+            }
+
+            // End of the row: consume the line break (\n, \r\n, or \r)
+            if (i < limit && buffer[i] == '\r') {
+                if (i + 1 >= limit && !endOfFile) {
+                    return false;
+                }
+                i++;
+            }
+            if (i < limit && buffer[i] == '\n') {
+                i++;
+            }
+
+            position = i;
+            return true;
+        }
+    }
+
+    /**
+     * Close the file
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Accessor method to get the number of fields in the current row
+     * @return the number of fields
+     */
+    public int getFieldCount() {
+        return numFields;
+    }
+
+    /**
+     * Accessor method to get a field of the current row as a String
+     * @param index the index of the field
+     * @return the String containing the field (without surrounding quotes)
+     */
+    public String getField(int index) {
+        if (index >= numFields) {
+            throw new IndexOutOfBoundsException("Field " + index + " is not in row " + rowNumber);
+        }
+
+        String field = new String(buffer, fieldStart[index], fieldEnd[index] - fieldStart[index]);
+        if (fieldEscaped[index]) {
+            field = field.replace("\"\"", "\"");
+        }
+        return field;
+    }
+
+    /**
+     * Check if a field of the current row is empty
+     * @param index the index of the field
+     * @return true if the field has no characters (or the row doesn't have the field)
+     */
+    public boolean isEmpty(int index) {
+        return index >= numFields || fieldStart[index] == fieldEnd[index];
+    }
+
+    /**
+     * Accessor method to get a field of the current row as an integer, without creating a String
+     * @param index the index of the field
+     * @return the integer value of the field
+     * @throws NumberFormatException if the field is not a whole number
+     */
+    public int getInt(int index) {
+        if (index >= numFields || fieldStart[index] == fieldEnd[index]) {
+            throw new NumberFormatException("Field " + (index + 1) + " is empty");
+        }
+
+        int i = fieldStart[index];
+        boolean negative = false;
+        if (buffer[i] == '-' || buffer[i] == '+') {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        if (i == fieldEnd[index]) {
+            throw new NumberFormatException("Field " + (index + 1) + " is not a number");
+        }
+
+        int value = 0;
+        for (; i < fieldEnd[index]; i++) {
+            char c = buffer[i];
+            // Also reject values with too many digits to fit in an int
+            if (c < '0' || c > '9' || value > (Integer.MAX_VALUE - 9) / 10) {
+                throw new NumberFormatException("Field " + (index + 1) + " is not a valid number");
+            }
+            value = value * 10 + (c - '0');
+        }
+
+        if (negative) {
+            return -value;
+        }
+        return value;
+    }
+
+    /**
+     * Accessor method to get the number of the current row (the first row is 1)
+     * @return the row number
+     */
+    public long getRowNumber() {
+        return rowNumber;
+    }
+}
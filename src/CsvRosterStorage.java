@@ -0,0 +1,177 @@
+package DecaTeamOrganizer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * CsvRosterStorage Class that saves a team as a single csv file, the way the program originally saved its storage file.
+ * The file can be opened in a spreadsheet, but there is no log of changes: the whole file is written again (to a temporary file
+ * that is renamed over it) every time the changes are saved, so it suits small teams
+ * @author Hugh Jiang
+ */
+public class CsvRosterStorage implements RosterStorage {
+
+    // Constants
+    final static String IMPORT_SUFFIX = ".import";
+
+    // Instance variables
+    private File file;
+    private int numChanges; // number of changes logged since the file was last written
+
+    /**
+     * Constructor for a storage in a csv file
+     * @param fileName the String containing the path and name of the csv file (i.e. storage.csv)
+     */
+    public CsvRosterStorage(String fileName) {
+        this.file = new File(fileName);
+        this.numChanges = 0;
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Load the team from the csv file. The file is read as UTF-8, the charset SnapshotFile.write() saves it in.
+     * Rows that can't be read are skipped and listed in the team's import errors
+     * @param team the empty TeamList
+     * @return true, since the file is only ever replaced as a whole
+     */
+    @Override
+    public boolean open(TeamList team) {
+        if (file.exists()) {
+            try {
+                team.importMembers(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8));
+            }
+            catch (FileNotFoundException error) {
+                System.out.println("Error in opening storage file");
+            }
+        }
+        numChanges = 0;
+        return true;
+    }
+
+    /**
+     * Count a change (the file is written when the team is compacted)
+     * @param m the Member that was added
+     */
+    @Override
+    public void logAdd(Member m) {
+        numChanges++;
+    }
+
+    /**
+     * Count a change (the file is written when the team is compacted)
+     * @param m the Member that was deleted
+     */
+    @Override
+    public void logDelete(Member m) {
+        numChanges++;
+    }
+
+    /**
+     * Count a change (the file is written when the team is compacted)
+     * @param original the Member before the edit
+     * @param edited the Member after the edit
+     */
+    @Override
+    public void logEdit(Member original, Member edited) {
+        numChanges++;
+    }
+
+    /**
+     * Count a change (the file is written when the team is compacted)
+     */
+    @Override
+    public void logClear() {
+        numChanges++;
+    }
+
+    /**
+     * Nothing is written until the team is compacted
+     */
+    @Override
+    public void commit() {
+    }
+
+    /**
+     * Nothing is written until the team is compacted
+     */
+    @Override
+    public void force() {
+    }
+
+    /**
+     * Changes are only written by compacting, so there is nothing to force
+     * @param syncOnCommit ignored
+     */
+    @Override
+    public void setSyncOnCommit(boolean syncOnCommit) {
+    }
+
+    /**
+     * Check if there are changes, since they can only be saved by writing the whole file
+     * @return true if a change was logged since the file was last written
+     */
+    @Override
+    public boolean needsCompaction() {
+        return numChanges > 0;
+    }
+
+    /**
+     * Write a team to a csv file
+     * @param members the List of Members to be written
+     * @param sortedByFirstName ignored, the members are read back in the order of the file and sorted
+     * @param target the File to write
+     * @return the checksum record of the file
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public String write(List<Member> members, boolean sortedByFirstName, File target) throws IOException {
+        return SnapshotFile.write(members, target);
+    }
+
+    /**
+     * Rename a csv file that was written with write() over the storage file
+     * @param written the File that was written
+     * @param checksum ignored, since the file was forced to disk before it was renamed
+     * @throws IOException if the file cannot be renamed
+     */
+    @Override
+    public void install(File written, String checksum) throws IOException {
+        SnapshotFile.replace(written, file);
+        numChanges = 0;
+    }
+
+    /**
+     * Nothing has to be closed, since the file is only open while it is written
+     */
+    @Override
+    public void close() {
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Accessor method to get the file that the team is written to before it is renamed over the storage file
+     * @return the temporary File
+     */
+    @Override
+    public File getTempFile() {
+        return new File(file.getPath() + SnapshotFile.TEMP_SUFFIX);
+    }
+
+    /**
+     * Accessor method to get the file that imported teams are written to
+     * @return the import File
+     */
+    @Override
+    public File getImportFile() {
+        return new File(file.getPath() + IMPORT_SUFFIX);
+    }
+}
@@ -0,0 +1,112 @@
+package DecaTeamOrganizer;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * FilteredMemberList Class is a read-only view of the members in a sorted list whose slots are set in a bitmap.
+ * TeamList returns it from its filter methods so that filtering does not copy the member list.
+ * Members are read in the order of the underlying list, and sequential access (i.e. populating a table) takes constant time per member
+ * @author Hugh Jiang
+ */
+class FilteredMemberList extends AbstractList<Member> {
+
+    // Instance variables
+    private List<Member> members;
+    private BitSet mask;
+    private int size;
+
+    // Cursor remembering the last member that was read, so reading the next member doesn't rescan the list
+    private int cursorIndex;
+    private int cursorPosition;
+
+    /**
+     * Constructor for a view of the members in a list that are set in a bitmap
+     * @param members the sorted List of all Members
+     * @param mask the BitSet with a bit set for the slot of every Member in the view (call refresh() after it changes)
+     */
+    FilteredMemberList(List<Member> members, BitSet mask) {
+        this.members = members;
+        this.mask = mask;
+        this.size = mask.cardinality();
+        resetCursor();
+    }
+
+    /**
+     * Update the view after members were removed from the list or the bitmap
+     */
+    void refresh() {
+        size = mask.cardinality();
+        resetCursor();
+    }
+
+    /**
+     * Move the cursor to before the first member of the list
+     */
+    private void resetCursor() {
+        cursorIndex = -1;
+        cursorPosition = -1;
+    }
+
+    /**
+     * Accessor method to check if a member is in this view
+     * @param m the Member to check
+     * @return true if the Member's slot is set in the bitmap
+     */
+    private boolean inView(Member m) {
+        return m.getSlot() >= 0 && mask.get(m.getSlot());
+    }
+
+    /**
+     * Accessor method to get the member at an index of the view
+     * @param index the index of the member in this view
+     * @return the Member at the specified index
+     */
+    @Override
+    public Member get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        // Restart from the beginning if the index is closer to the start than to the cursor
+        if (index < cursorIndex && index < cursorIndex - index) {
+            resetCursor();
+        }
+
+        // Walk forward or backward from the cursor until we reach the member at index
+        while (cursorIndex < index) {
+            cursorPosition++;
+            if (inView(members.get(cursorPosition))) {
+                cursorIndex++;
+            }
+        }
+        while (cursorIndex > index) {
+            cursorPosition--;
+            if (inView(members.get(cursorPosition))) {
+                cursorIndex--;
+            }
+        }
+
+        return members.get(cursorPosition);
+    }
+
+    /**
+     * Accessor method to get the number of members in the view
+     * @return the number of Members in the view
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if a member is in this view without scanning the list
+     * @param o the Object to check
+     * @return true if o is a Member in this view
+     */
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Member && inView((Member) o);
+    }
+}
@@ -0,0 +1,219 @@
+package DecaTeamOrganizer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * FuzzyIndex Class that finds members by first name, last name, or event ID even when the query is misspelled (i.e. "Jonh" finds "John").
+ * Every distinct lowercase name and event ID (term) is stored once in a BK-tree, where each child is stored under its edit distance
+ * from its parent. By the triangle inequality, a search only has to visit the children whose distance is within the allowed
+ * distance of the query's distance to the parent, so most of the tree is skipped.
+ * Each term keeps the slots of the members that have it (see SlotList), so names shared by many members are only compared once
+ * @author Hugh Jiang
+ */
+public class FuzzyIndex {
+
+    /**
+     * Node of the BK-tree for one term
+     */
+    private static class Node {
+        String term;
+        SlotList slots = new SlotList();
+        HashMap<Integer, Node> children; // children by their edit distance from this term (null if there are none)
+
+        Node(String term) {
+            this.term = term;
+        }
+    }
+
+    // Instance variables
+    private Node root;
+    private HashMap<String, Node> nodesByTerm;
+
+    /**
+     * Constructor initializes an empty index
+     */
+    public FuzzyIndex() {
+        clear();
+    }
+
+
+    // Static Methods
+
+    /**
+     * Get the terms a member is indexed under
+     * @param m the Member
+     * @return the array of lowercase first name, last name, and event ID (empty fields are left out)
+     */
+    private static ArrayList<String> getTerms(Member m) {
+        ArrayList<String> terms = new ArrayList<>(3);
+        String[] fields = {m.getFirstName(), m.getLastname(), m.getEventID()};
+
+        for (String field : fields) {
+            String term = field.trim().toLowerCase();
+            if (!term.isEmpty() && !terms.contains(term)) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Calculate the Levenshtein edit distance between two Strings (the number of characters that have to be inserted,
+     * deleted, or replaced to turn one into the other), using two rows of the dynamic programming table
+     * @param a the first String
+     * @param b the second String
+     * @return the edit distance between a and b
+     */
+    static int editDistance(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = 1;
+                if (a.charAt(i - 1) == b.charAt(j - 1)) {
+                    cost = 0;
+                }
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+            }
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+
+    // Mutator Methods
+
+    /**
+     * Add a member under each of their terms, adding terms that are not in the tree yet.
+     * Members must be added in increasing order of their slots
+     * @param m the Member to be indexed
+     */
+    public void add(Member m) {
+        for (String term : getTerms(m)) {
+            Node node = nodesByTerm.get(term);
+
+            if (node == null) {
+                node = insertTerm(term);
+            }
+            node.slots.add(m.getSlot());
+        }
+    }
+
+    /**
+     * Insert a new term into the BK-tree
+     * @param term the lowercase term
+     * @return the new Node
+     */
+    private Node insertTerm(String term) {
+        Node node = new Node(term);
+        nodesByTerm.put(term, node);
+
+        if (root == null) {
+            root = node;
+            return node;
+        }
+
+        // Walk down the tree along the edges with the term's distance from each node until there is a free edge
+        Node parent = root;
+        while (true) {
+            int distance = editDistance(term, parent.term);
+            if (parent.children == null) {
+                parent.children = new HashMap<>();
+            }
+
+            Node child = parent.children.get(distance);
+            if (child == null) {
+                parent.children.put(distance, node);
+                return node;
+            }
+            parent = child;
+        }
+    }
+
+    /**
+     * Remove a member from the index. Terms stay in the tree when their last member is removed (they are skipped by searches),
+     * since removing a node from a BK-tree would mean re-inserting everything below it
+     * @param m the Member to be removed
+     */
+    public void remove(Member m) {
+        for (String term : getTerms(m)) {
+            Node node = nodesByTerm.get(term);
+            if (node != null) {
+                node.slots.remove(m.getSlot());
+            }
+        }
+    }
+
+    /**
+     * Remove every member and term from the index
+     */
+    public void clear() {
+        root = null;
+        nodesByTerm = new HashMap<>();
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Find the members with a first name, last name, or event ID within an edit distance of a query word
+     * @param word the query word (compared without case)
+     * @param maxDistance the largest edit distance that matches
+     * @return the HashMap from the slot of each matching member to the smallest edit distance between the word and one of their terms
+     */
+    public HashMap<Integer, Integer> search(String word, int maxDistance) {
+        HashMap<Integer, Integer> matches = new HashMap<>();
+        String query = word.trim().toLowerCase();
+
+        if (root == null || query.isEmpty()) {
+            return matches;
+        }
+
+        // Depth first search of the tree using a stack of nodes to visit
+        ArrayList<Node> toVisit = new ArrayList<>();
+        toVisit.add(root);
+
+        while (!toVisit.isEmpty()) {
+            Node node = toVisit.remove(toVisit.size() - 1);
+            int distance = editDistance(query, node.term);
+
+            if (distance <= maxDistance && node.slots.getNumSlots() > 0) {
+                for (int slot : node.slots.toArray()) {
+                    Integer best = matches.get(slot);
+                    if (best == null || distance < best) {
+                        matches.put(slot, distance);
+                    }
+                }
+            }
+
+            // Only children within maxDistance of the query's distance can contain matches
+            if (node.children != null) {
+                for (int childDistance = Math.max(1, distance - maxDistance); childDistance <= distance + maxDistance; childDistance++) {
+                    Node child = node.children.get(childDistance);
+                    if (child != null) {
+                        toVisit.add(child);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Accessor method to get the number of distinct terms in the index
+     * @return the number of terms (including terms that no longer have any members)
+     */
+    public int getNumTerms() {
+        return nodesByTerm.size();
+    }
+}
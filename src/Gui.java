@@ -1,27 +1,71 @@
 package DecaTeamOrganizer;
 
 import java.awt.Dimension;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.JFileChooser;
+import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.JPopupMenu;
+import javax.swing.ProgressMonitor;
+import javax.swing.ProgressMonitorInputStream;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 /**
  * Gui Class provides Graphical User Interface for the program
  * @author Hugh Jiang
  */
 public class Gui extends javax.swing.JFrame {
-    // Number of columns in the main display table
-    final static int NUM_TABLE_COLUMNS = 6;
     // Default status text of the filter status label
     final static String DEFAULT_FILTER_STATUS_TEXT = "Current Filters: None";
     // Default status text for search label
     final static String DEFAULT_SEARCH_STATUS_TEXT = "No Searches Active";
+    // Number of members written between progress updates when exporting
+    final static int EXPORT_CHUNK_SIZE = 4096;
+    // Time to wait after the last keystroke in the search box before searching
+    final static int LIVE_SEARCH_DELAY_MILLIS = 150;
+    // Largest number of ranked results shown for a search, so broad searches of a large team render quickly
+    final static int SEARCH_RESULT_LIMIT = 1000;
+    // Time to wait after the last keystroke before suggesting completions, and the largest number of suggestions
+    final static int SUGGESTION_DELAY_MILLIS = 50;
+    final static int SUGGESTION_LIMIT = 8;
     
     TeamList memberList;
+    MemberTableModel tableModel;
+    // Search running on a background thread (null if no search has been run)
+    SwingWorker<ArrayList<Member>, Void> searchWorker;
+    // Search-as-you-type in the search box
+    IncrementalSearch liveSearch;
+    Timer liveSearchTimer;
+    Timer suggestionTimer;
+    JPopupMenu suggestionPopup;
+    SwingWorker<ArrayList<String>, Void> suggestionWorker;
+    boolean applyingSuggestion; // true while a chosen suggestion is put in the search box, so it isn't completed again
+    boolean liveResultsShown;
     boolean mainTableShowed;
     boolean editingBulk;
     
@@ -35,9 +79,25 @@ public class Gui extends javax.swing.JFrame {
         // Initializes JFrame Components
         initComponents();
         
-        // Create a new TeamList and import previous data in the list
+        // Create a new TeamList and load previous data (storage file and journal of unsaved changes) in the list
         memberList = new TeamList();
-        memberList.importMembers(TeamList.STORAGE_FILE);
+        if (!memberList.openStorage()) {
+            JOptionPane.showMessageDialog(null, "The storage file was damaged, so the last good copy of the team was loaded", 
+                    "Storage File Damaged", JOptionPane.WARNING_MESSAGE);
+        }
+        
+        // Save changes on a background thread once each burst of edits is over
+        memberList.startAutoSave();
+        
+        // Display the members directly from memberList instead of copying them into the table
+        tableModel = new MemberTableModel(memberList);
+        displayTable.setModel(tableModel);
+        
+        // Search as the user types, once they stop typing for a moment
+        setUpLiveSearch();
+        
+        // Let earlier versions of the team be restored, i.e. after deleting members by mistake
+        setUpHistoryMenu();
         
         // Populate the table with imported data
         populateTable();
@@ -843,34 +903,16 @@ public class Gui extends javax.swing.JFrame {
     }
     
     /**
-     * Populate main display table with specified ArrayList of Members: this method overloads populateTable().
-     * @param memberArr the ArrayList of Members that is to be added to the table
+     * Populate main display table with specified List of Members: this method overloads populateTable().
+     * @param memberArr the List of Members that is to be added to the table
      */
-    public void populateTable(ArrayList<Member> memberArr) {
+    public void populateTable(List<Member> memberArr) {
         
         // Set boolean flag
         mainTableShowed = false;
         
-        DefaultTableModel model = (DefaultTableModel) displayTable.getModel();
-        
-        // Remove all existing elements on table
-        model.getDataVector().removeAllElements();
-        
-        String[] rowData = new String[NUM_TABLE_COLUMNS];
-        
-        Member temp;
-        
-        for (int i = 0; i < memberArr.size(); i++) {
-            temp = memberArr.get(i);
-            rowData[0] = temp.getFirstName();
-            rowData[1] = temp.getLastname();
-            rowData[2] = String.valueOf(temp.getGrade());
-            rowData[3] = "" + temp.getSubteam();
-            rowData[4] = "" + temp.getEventID();
-            rowData[5] = temp.getEmail();
-            
-            model.addRow(rowData);
-        }
+        // Show the list in the table (cells are read from the members when they are drawn)
+        tableModel.setMembers(memberArr);
         
         // Reset any previous selections
         displayTable.clearSelection();
@@ -897,6 +939,7 @@ public class Gui extends javax.swing.JFrame {
         memberList.resetFilters();
         
         // Reset search box text and status text
+        cancelSearch();
         searchField.setText("");
         searchStatus.setText(DEFAULT_SEARCH_STATUS_TEXT);
         
@@ -941,13 +984,8 @@ public class Gui extends javax.swing.JFrame {
             
             Member m;
             
-            // Retrieve the correct member based on whether we are using the index selection or member
-            if (mainTableShowed) {
-                m = memberList.get(editIndexes[0]);
-            }
-            else {
-                m = editMembers.get(0);
-            }
+            // Retrieve the member that was selected
+            m = editMembers.get(0);
             
             // Set header title
             editMemberTitle.setText("Edit Member");
@@ -1109,7 +1147,7 @@ public class Gui extends javax.swing.JFrame {
      */
     private void formWindowClosing(java.awt.event.WindowEvent evt) {//GEN-FIRST:event_formWindowClosing
         System.out.println("Closing Program");
-        memberList.exportMembers();
+        memberList.closeStorage();
         System.out.println("Export successful");
         System.exit(0);
     }//GEN-LAST:event_formWindowClosing
@@ -1130,6 +1168,7 @@ public class Gui extends javax.swing.JFrame {
         memberList.resetFilters();
         
         // Reset search fields
+        cancelSearch();
         searchStatus.setText(DEFAULT_SEARCH_STATUS_TEXT);
         searchField.setText("");
         
@@ -1180,6 +1219,7 @@ public class Gui extends javax.swing.JFrame {
     
     private void resetFiltersActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_resetFiltersActionPerformed
         // Set status text
+        cancelSearch();
         filterStatus.setText(DEFAULT_FILTER_STATUS_TEXT);
         searchStatus.setText(DEFAULT_SEARCH_STATUS_TEXT);
         
@@ -1202,11 +1242,9 @@ public class Gui extends javax.swing.JFrame {
 
     private void deleteAllMenuActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_deleteAllMenuActionPerformed
         // Delete all members
-        if (JOptionPane.showConfirmDialog(null, "This action is irreversible. Are you sure you would like to delete all members from the team?", 
+        if (JOptionPane.showConfirmDialog(null, "Are you sure you would like to delete all members from the team? This can be undone with File > Version History.", 
                 "WARNING: Deleting All Members", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION) {
             memberList.deleteAll();
-            memberList.exportMembers();
-            memberList.importMembers(TeamList.STORAGE_FILE);
             populateTable();
 
         }
@@ -1224,59 +1262,30 @@ public class Gui extends javax.swing.JFrame {
         if (!displayTable.getSelectionModel().isSelectionEmpty()) {
             
             // If row(s) are selected in the table, ask for confirmation that the user would like to delete the members
-            if (JOptionPane.showConfirmDialog(null, "This action is irreversible. Would you like to delete the selected member(s) from the team?", 
+            if (JOptionPane.showConfirmDialog(null, "Would you like to delete the selected member(s) from the team? This can be undone with File > Version History.", 
                     "WARNING: Deleting Selected Member(s)", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE) == JOptionPane.YES_OPTION) {
                 
                 // If user would like to delete members, get the indexes of the selected table rows to delete
                 int[] rowsSelected = displayTable.getSelectedRows();
                 
-                // If the current table is displaying the full team list, delete the members by index in the main TeamList ArrayList
-                if (mainTableShowed) {
-                    
-                    String tempFirstLastName;
-                    
-                    // Delete the selected members
-                    for (int i = 0; i < rowsSelected.length; i++) {
-                        // Store the full name of the member to be deleted
-                        tempFirstLastName = displayTable.getModel().getValueAt(rowsSelected[i], 0).toString() + " " 
-                                + displayTable.getModel().getValueAt(rowsSelected[i], 1).toString();
-                        
-                        // deleteMember(int indexToDelete) deletes specified member and returns true if member was deleted successfully
-                        // note that the index of the deleted member must be decremented by i because for every member deleted, the sorted array shifts left by 1
-                        if(memberList.deleteMember(rowsSelected[i]-i)) {
-                            // Record members that were deleted successfully
-                            deleted = deleted + " | " + tempFirstLastName + " |";
-                        }
-                        else {
-                            // Record members that couldn't be deleted (this shouldn't ever happen)
-                            failed = failed + " | " + tempFirstLastName + " |";
-                        }
-                    }
+                // Get the IDs of the selected members, then delete all of them at once by ID 
+                // (this works the same whether the table is showing the full team list, a filtered list, or search results)
+                ArrayList<Integer> idsSelected = new ArrayList<>(rowsSelected.length);
+                StringBuilder deletedNames = new StringBuilder();
+                
+                for (int i = 0; i < rowsSelected.length; i++) {
+                    Member m = tableModel.getMemberAt(rowsSelected[i]);
+                    idsSelected.add(m.getId());
+                    deletedNames.append(" | ").append(m.getFullName()).append(" |");
+                }
+                
+                // deleteMembers returns the number of members that were deleted successfully
+                if (memberList.deleteMembers(idsSelected) == idsSelected.size()) {
+                    deleted = deletedNames.toString();
                 }
-                // If the current table is not displaying the full team list (and is instead displaying a filtered list), 
-                // then the members will have to be deleted by searching for the member and then deleting using TeamList class's deleteMember(Member m) method
                 else {
-                    
-                    String fname, lname, email, subteam, event;
-                    int grade;
-                    
-                    for (int i = 0; i < rowsSelected.length; i++) {
-
-                        fname = displayTable.getModel().getValueAt(rowsSelected[i], 0).toString();
-                        lname = displayTable.getModel().getValueAt(rowsSelected[i], 1).toString();
-                        grade = Integer.valueOf(displayTable.getModel().getValueAt(rowsSelected[i], 2).toString());
-                        subteam = displayTable.getModel().getValueAt(rowsSelected[i], 3).toString();
-                        event = displayTable.getModel().getValueAt(rowsSelected[i], 4).toString();
-                        email = displayTable.getModel().getValueAt(rowsSelected[i], 5).toString();
-
-                        // Update list of deleted members / members that failed to delete
-                        if(memberList.deleteMember(new Member (fname, lname, email, grade, subteam, event))) {
-                            deleted = deleted + " | " + fname + " " + lname + " |";
-                        }
-                        else {
-                            failed = failed + " |" + fname + " " + lname + " |";
-                        }
-                    }
+                    // Record members that couldn't be deleted (this shouldn't ever happen)
+                    failed = deletedNames.toString();
                 }
                 
                 // Show message of who was deleted
@@ -1315,11 +1324,81 @@ public class Gui extends javax.swing.JFrame {
         String query = searchField.getText().trim();
         String searchText = "Searched: " + query;
         
+        // The suggestions are no longer needed once a search is made
+        suggestionTimer.stop();
+        suggestionPopup.setVisible(false);
+        
+        // Searches with fields, quotes, brackets, or operators (i.e. grade:10 subteam:Finance "wang") are compiled by MemberQuery
+        boolean fieldedQuery = MemberQuery.isQuery(query);
+        if (fieldedQuery) {
+            try {
+                new MemberQuery(query);
+            }
+            catch (ParseException error) {
+                JOptionPane.showMessageDialog(null, error.getMessage() + " (at character " + (error.getErrorOffset() + 1) + ").", "Error: Invalid Query", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
+        
         // Make sure the query meets minimum length requirements
-        if (query.length() >= TeamList.MIN_SEARCH_QUERY_LENGTH) {
-            searchStatus.setText(searchText);
+        if (fieldedQuery || query.length() >= TeamList.MIN_SEARCH_QUERY_LENGTH) {
+            searchStatus.setText("Searching: " + query);
+            
+            // Only the newest search is shown, so stop any search that is still running
+            cancelSearch();
             
-            populateTable(memberList.getSearch(query));
+            // Search on a background thread so the window keeps responding during large searches
+            searchWorker = new SwingWorker<ArrayList<Member>, Void>() {
+                private String fallbackText = null; // status text if the results are not exact matches
+                
+                @Override
+                protected ArrayList<Member> doInBackground() throws ParseException {
+                    if (fieldedQuery) {
+                        return memberList.getQuery(query);
+                    }
+                    ArrayList<Member> results = memberList.getTopSearch(query, SEARCH_RESULT_LIMIT);
+                    
+                    // If nothing matches, the name may be spelled differently, so show names that sound the same instead
+                    if (results.isEmpty() && !isCancelled()) {
+                        fallbackText = "Sounds like: " + query;
+                        results = memberList.getSoundsLike(query);
+                    }
+                    
+                    // Otherwise the query may be misspelled, so show the closest names and event IDs
+                    if (results.isEmpty() && !isCancelled()) {
+                        fallbackText = "Close matches: " + query;
+                        results = memberList.getFuzzySearch(query, TeamList.DEFAULT_FUZZY_DISTANCE);
+                    }
+                    return results;
+                }
+                
+                @Override
+                protected void done() {
+                    // Ignore searches that were replaced by a newer search
+                    if (isCancelled() || searchWorker != this) {
+                        return;
+                    }
+                    
+                    try {
+                        ArrayList<Member> results = get();
+                        populateTable(results);
+                        if (fallbackText != null && !results.isEmpty()) {
+                            searchStatus.setText(fallbackText);
+                        }
+                        else if (!fieldedQuery && results.size() == SEARCH_RESULT_LIMIT) {
+                            searchStatus.setText("Top " + SEARCH_RESULT_LIMIT + " results: " + query);
+                        }
+                        else {
+                            searchStatus.setText(searchText);
+                        }
+                    }
+                    catch (InterruptedException | ExecutionException error) {
+                        System.out.println("Error in searching");
+                        searchStatus.setText(DEFAULT_SEARCH_STATUS_TEXT);
+                    }
+                }
+            };
+            searchWorker.execute();
         }
         else {
             // Error handling, if no search query was entered
@@ -1327,21 +1406,285 @@ public class Gui extends javax.swing.JFrame {
         }
     }//GEN-LAST:event_searchButtonActionPerformed
 
+    /**
+     * Stop the search running on a background thread (if any) so its results are not shown
+     */
+    private void cancelSearch() {
+        if (searchWorker != null) {
+            searchWorker.cancel(true);
+            searchWorker = null;
+        }
+        liveSearchTimer.stop();
+        liveResultsShown = false;
+    }
+    
+    /**
+     * Add the Version History item to the File menu, which shows the versions of the team since it was opened and restores the one that is chosen
+     */
+    private void setUpHistoryMenu() {
+        JMenuItem historyMenu = new JMenuItem("Version History");
+        historyMenu.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent event) {
+                showVersionHistory();
+            }
+        });
+        fileMenu.insert(historyMenu, 1);
+    }
+    
+    /**
+     * Show the versions of the team (newest first), then restore the version the user chooses after confirming what will change
+     */
+    private void showVersionHistory() {
+        ArrayList<RosterHistory.Version> versions = memberList.getVersions();
+        long current = memberList.getCurrentVersionNumber();
+        SimpleDateFormat timeFormat = new SimpleDateFormat("MMM d HH:mm:ss");
+        
+        // Describe each version, i.e. "Version 12 | Oct 17 14:03:22 | Deleted 3 members | 120 members"
+        String[] choices = new String[versions.size()];
+        for (int i = 0; i < versions.size(); i++) {
+            RosterHistory.Version version = versions.get(versions.size() - 1 - i);
+            choices[i] = "Version " + version.getNumber() + " | " + timeFormat.format(new Date(version.getTime())) + " | " 
+                    + version.getDescription() + " | " + version.getNumMembers() + " members" + (version.getNumber() == current ? " (current)" : "");
+        }
+        
+        Object choice = JOptionPane.showInputDialog(null, "Choose a version of the team to restore:", "Version History", 
+                JOptionPane.PLAIN_MESSAGE, null, choices, choices[0]);
+        if (choice == null) {
+            return;
+        }
+        
+        long number = current;
+        for (int i = 0; i < choices.length; i++) {
+            if (choices[i].equals(choice)) {
+                number = versions.get(versions.size() - 1 - i).getNumber();
+            }
+        }
+        if (number == current) {
+            return;
+        }
+        
+        // Tell the user what the restore will change before doing it
+        RosterHistory.Diff diff = memberList.diffVersions(current, number);
+        if (diff == null) {
+            return;
+        }
+        if (JOptionPane.showConfirmDialog(null, "Restoring version " + number + " will add " + diff.getAdded().size() + " member(s) and remove " 
+                + diff.getRemoved().size() + " member(s). The current version will stay in the history. Continue?", 
+                "Restore Version " + number, JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE) == JOptionPane.YES_OPTION) {
+            memberList.restoreVersion(number);
+            populateTable();
+        }
+    }
+    
+    /**
+     * Set up search-as-you-type: every change to the search box restarts a timer, and the search runs when the timer fires,
+     * so a burst of keystrokes only causes one search
+     */
+    private void setUpLiveSearch() {
+        liveSearch = new IncrementalSearch(memberList);
+        liveResultsShown = false;
+        
+        liveSearchTimer = new Timer(LIVE_SEARCH_DELAY_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent event) {
+                runLiveSearch();
+            }
+        });
+        liveSearchTimer.setRepeats(false);
+        
+        // Suggestions are shown under the search box without taking the keyboard focus, so typing can continue
+        suggestionPopup = new JPopupMenu();
+        suggestionPopup.setFocusable(false);
+        applyingSuggestion = false;
+        suggestionTimer = new Timer(SUGGESTION_DELAY_MILLIS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent event) {
+                showSuggestions();
+            }
+        });
+        suggestionTimer.setRepeats(false);
+        
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent event) {
+                liveSearchTimer.restart();
+                if (!applyingSuggestion) {
+                    suggestionTimer.restart();
+                }
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent event) {
+                liveSearchTimer.restart();
+                if (!applyingSuggestion) {
+                    suggestionTimer.restart();
+                }
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent event) {
+                // Attribute changes don't change the text
+            }
+        });
+    }
+    
+    /**
+     * Suggest first names, last names, and emails that start with the text in the search box. The completions are found on a
+     * background thread (so a running search can't block the window) and shown in a popup under the search box.
+     * Choosing a suggestion puts it in the search box and searches for it
+     */
+    private void showSuggestions() {
+        final String prefix = searchField.getText().trim();
+        
+        if (suggestionWorker != null) {
+            suggestionWorker.cancel(true);
+        }
+        if (prefix.isEmpty() || MemberQuery.isQuery(prefix)) {
+            suggestionPopup.setVisible(false);
+            return;
+        }
+        
+        suggestionWorker = new SwingWorker<ArrayList<String>, Void>() {
+            @Override
+            protected ArrayList<String> doInBackground() {
+                return memberList.getCompletions(prefix, SUGGESTION_LIMIT);
+            }
+            
+            @Override
+            protected void done() {
+                // Ignore suggestions for text that has changed since
+                if (isCancelled() || suggestionWorker != this || !prefix.equals(searchField.getText().trim())) {
+                    return;
+                }
+                
+                try {
+                    ArrayList<String> completions = get();
+                    suggestionPopup.setVisible(false);
+                    suggestionPopup.removeAll();
+                    
+                    // Don't suggest only what was already typed
+                    if (completions.isEmpty() || (completions.size() == 1 && completions.get(0).equalsIgnoreCase(prefix))) {
+                        return;
+                    }
+                    for (final String completion : completions) {
+                        JMenuItem item = new JMenuItem(completion);
+                        item.addActionListener(new ActionListener() {
+                            @Override
+                            public void actionPerformed(ActionEvent event) {
+                                applyingSuggestion = true;
+                                searchField.setText(completion);
+                                applyingSuggestion = false;
+                                suggestionPopup.setVisible(false);
+                                searchButton.doClick();
+                            }
+                        });
+                        suggestionPopup.add(item);
+                    }
+                    suggestionPopup.show(searchField, 0, searchField.getHeight());
+                }
+                catch (InterruptedException | ExecutionException error) {
+                    System.out.println("Error in finding suggestions");
+                }
+            }
+        };
+        suggestionWorker.execute();
+    }
+    
+    /**
+     * Show the members containing the text in the search box. Runs on a background thread, and replaces any search that is still running.
+     * When the text gets shorter than the minimum query length, the filtered list is shown again
+     */
+    private void runLiveSearch() {
+        final String query = searchField.getText().trim();
+        
+        if (query.length() < TeamList.MIN_SEARCH_QUERY_LENGTH) {
+            if (liveResultsShown) {
+                cancelSearch();
+                searchStatus.setText(DEFAULT_SEARCH_STATUS_TEXT);
+                populateTable(memberList.getFilteredList());
+            }
+            return;
+        }
+        
+        // Queries in the query language are usually incomplete while typing, so they only run when Search is clicked
+        if (MemberQuery.isQuery(query)) {
+            return;
+        }
+        
+        if (searchWorker != null) {
+            searchWorker.cancel(true);
+        }
+        
+        searchWorker = new SwingWorker<ArrayList<Member>, Void>() {
+            @Override
+            protected ArrayList<Member> doInBackground() {
+                return liveSearch.search(query);
+            }
+            
+            @Override
+            protected void done() {
+                // Ignore searches that were replaced by a newer search
+                if (isCancelled() || searchWorker != this) {
+                    return;
+                }
+                
+                try {
+                    populateTable(get());
+                    searchStatus.setText("Matching: " + query);
+                    liveResultsShown = true;
+                }
+                catch (InterruptedException | ExecutionException error) {
+                    System.out.println("Error in searching");
+                }
+            }
+        };
+        searchWorker.execute();
+    }
+
     private void sortFirstNameMenuActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_sortFirstNameMenuActionPerformed
         // Sort member by first name
-        memberList.setSortByFirstName(true);
-        memberList.sort();
-        showContainerPanel();
-        JOptionPane.showMessageDialog(null, "Members will be sorted by first name alphabetically", "Sorting Option Changed", JOptionPane.INFORMATION_MESSAGE);
+        sortInBackground(true, "Members will be sorted by first name alphabetically");
     }//GEN-LAST:event_sortFirstNameMenuActionPerformed
 
     private void sortLastNameMenuActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_sortLastNameMenuActionPerformed
         // TODO add your handling code here:
-        memberList.setSortByFirstName(false);
-        memberList.sort();
-        showContainerPanel();
-        JOptionPane.showMessageDialog(null, "Members will be sorted by last name alphabetically", "Sorting Option Changed", JOptionPane.INFORMATION_MESSAGE);
+        sortInBackground(false, "Members will be sorted by last name alphabetically");
     }//GEN-LAST:event_sortLastNameMenuActionPerformed
+    
+    /**
+     * Sort a copy of the team on a background thread, then show the team in the new order
+     * @param byFirstName true to sort by first name, false to sort by last name
+     * @param message the String shown to the user once the team is sorted
+     */
+    private void sortInBackground(final boolean byFirstName, final String message) {
+        final ArrayList<Member> sorted = new ArrayList<>(memberList.getMembers());
+        final long version = memberList.getVersion();
+        
+        // Only one sort at a time
+        sortingOptionsMenu.setEnabled(false);
+        
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() {
+                sorted.sort(TeamList.getSortOrder(byFirstName));
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                sortingOptionsMenu.setEnabled(true);
+                
+                // Sorts again on this thread if the team was changed while the copy was being sorted
+                memberList.applySort(byFirstName, sorted, version);
+                
+                if (containerPanel.isVisible()) {
+                    showContainerPanel();
+                }
+                JOptionPane.showMessageDialog(null, message, "Sorting Option Changed", JOptionPane.INFORMATION_MESSAGE);
+            }
+        }.execute();
+    }
 
     
     private void editMemberMenuActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_editMemberMenuActionPerformed
@@ -1365,26 +1708,9 @@ public class Gui extends javax.swing.JFrame {
             // Boolean variable to check if multiple rows are selected
             editingBulk = editIndexes.length > 1;
             
-            // If members were selected from the main table, add them to the editMembers arraylist using direct index access
-            if (mainTableShowed) {
-                for (int i = 0; i < editIndexes.length; i++) {
-                    editMembers.add(memberList.get(editIndexes[i]));
-                }
-            }
-            // else, if members were not added from the main table, we have to add members to the editMembers arraylist by creating new member objects
-            else {
-                String fname, lname, email, subteam, event;
-                int grade;
-                
-                for (int i = 0; i < editIndexes.length; i++) {
-                    fname = displayTable.getModel().getValueAt(editIndexes[i], 0).toString();
-                    lname = displayTable.getModel().getValueAt(editIndexes[i], 1).toString();
-                    grade = Integer.valueOf(displayTable.getModel().getValueAt(editIndexes[i], 2).toString());
-                    subteam = displayTable.getModel().getValueAt(editIndexes[i], 3).toString();
-                    event = displayTable.getModel().getValueAt(editIndexes[i], 4).toString();
-                    email = displayTable.getModel().getValueAt(editIndexes[i], 5).toString();
-                    editMembers.add(new Member(fname, lname, email, grade, subteam, event));
-                }
+            // Add the selected members to the editMembers arraylist directly from the table (they are edited later by ID)
+            for (int i = 0; i < editIndexes.length; i++) {
+                editMembers.add(tableModel.getMemberAt(editIndexes[i]));
             }
             
             hideContainerPanel();
@@ -1445,9 +1771,8 @@ public class Gui extends javax.swing.JFrame {
 
             // If Member entry is valid
             if (valid) {
-                // Delete the original member, then add the new edited member
-                memberList.deleteMember(editMembers.get(0));
-                memberList.addMember(new Member(fName, lName, email, grade, subteam, event));
+                // Replace the original member with the new edited member
+                memberList.editMember(editMembers.get(0).getId(), new Member(fName, lName, email, grade, subteam, event));
                 
                 JOptionPane.showMessageDialog(null, "Successfully edited " + fName + " " + lName, "Success", JOptionPane.INFORMATION_MESSAGE);
             } 
@@ -1475,8 +1800,7 @@ public class Gui extends javax.swing.JFrame {
                 email = editMembers.get(i).getEmail();
                 grade = editMembers.get(i).getGrade();
                 
-                memberList.deleteMember(editMembers.get(i));
-                memberList.addMember(new Member(fName, lName, email, grade, subteam, event));
+                memberList.editMember(editMembers.get(i).getId(), new Member(fName, lName, email, grade, subteam, event));
             }
         }
         
@@ -1504,6 +1828,7 @@ public class Gui extends javax.swing.JFrame {
      */
     private void resetSearchButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_resetSearchButtonActionPerformed
         // TODO add your handling code here:
+        cancelSearch();
         searchField.setText("");
         searchStatus.setText(DEFAULT_SEARCH_STATUS_TEXT);
         populateTable(memberList.getFilteredList());
@@ -1521,25 +1846,81 @@ public class Gui extends javax.swing.JFrame {
         int returnVal = fileChooser.showOpenDialog(this);
         
         if (returnVal == JFileChooser.APPROVE_OPTION) {
+            final File importFile = fileChooser.getSelectedFile();
+            final ProgressMonitorInputStream progressInput;
             
-            // If user chose to delete existing members on import, delete members before importing file
-            if (choice == 0) {
-                memberList.deleteAll();
+            // The progress dialog follows how much of the file has been read, and cancelling it stops the import
+            try {
+                progressInput = new ProgressMonitorInputStream(this, "Importing members from " + importFile.getName(), new FileInputStream(importFile));
+            }
+            catch (FileNotFoundException error) {
+                JOptionPane.showMessageDialog(null, "Could not open " + importFile.toString(), "Failed to Import", JOptionPane.ERROR_MESSAGE);
+                return;
             }
             
-            // Import members
-            memberList.importMembers(fileChooser.getSelectedFile().toString());
+            // If user chose to keep existing members, the imported members are added to them, otherwise they replace them
+            final MemberImport memberImport = new MemberImport(memberList, choice != 0);
             
-            // Populate the table with imported data
-            populateTable();
-
-            // Set default view
-            hideAddMemberPanel();
-            hideEditMemberPanel();
-            showContainerPanel();
+            // Only one import at a time
+            importMembersMenu.setEnabled(false);
             
-            JOptionPane.showMessageDialog(null, "Successfully imported members from " + fileChooser.getSelectedFile().toString(), 
-                    "Successfully Imported", JOptionPane.INFORMATION_MESSAGE);
+            // Read, sort and index the imported members on a background thread so the window keeps responding
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() throws IOException {
+                    // Read as UTF-8, the charset the export writes, so exported files import intact
+                    memberImport.run(new InputStreamReader(progressInput, StandardCharsets.UTF_8));
+                    return null;
+                }
+                
+                @Override
+                protected void done() {
+                    importMembersMenu.setEnabled(true);
+                    
+                    try {
+                        get();
+                    }
+                    catch (InterruptedException | ExecutionException error) {
+                        memberImport.discard();
+                        
+                        if (error.getCause() instanceof InterruptedIOException) {
+                            JOptionPane.showMessageDialog(null, "File import cancelled by user", "Failed to Import", JOptionPane.INFORMATION_MESSAGE);
+                        }
+                        else {
+                            System.out.println("Troubleshoot file reading error");
+                            JOptionPane.showMessageDialog(null, "Could not read " + importFile.toString(), "Failed to Import", JOptionPane.ERROR_MESSAGE);
+                        }
+                        return;
+                    }
+                    
+                    // Put the imported members on the team, the table is updated by the table model
+                    memberImport.apply();
+                    
+                    if (containerPanel.isVisible()) {
+                        showContainerPanel();
+                    }
+                    else {
+                        totalMembersMenuDisplay.setText("Total Members: " + memberList.getNumMembers());
+                    }
+                    
+                    // Let the user know about any rows that could not be imported
+                    ArrayList<String> importErrors = memberImport.getImportErrors();
+                    if (importErrors.isEmpty()) {
+                        JOptionPane.showMessageDialog(null, "Successfully imported members from " + importFile.toString(), 
+                                "Successfully Imported", JOptionPane.INFORMATION_MESSAGE);
+                    }
+                    else {
+                        String skippedRows = "";
+                        // Only list the first few rows so the message fits on the screen
+                        for (int i = 0; i < importErrors.size() && i < 10; i++) {
+                            skippedRows = skippedRows + "\n" + importErrors.get(i);
+                        }
+                        JOptionPane.showMessageDialog(null, "Imported members from " + importFile.toString() 
+                                + "\nSkipped " + importErrors.size() + " row(s) that could not be read:" + skippedRows, 
+                                "Imported With Errors", JOptionPane.WARNING_MESSAGE);
+                    }
+                }
+            }.execute();
             
         } else {
             JOptionPane.showMessageDialog(null, "File import cancelled by user", "Failed to Import", JOptionPane.INFORMATION_MESSAGE);
@@ -1547,8 +1928,93 @@ public class Gui extends javax.swing.JFrame {
     }//GEN-LAST:event_importMembersMenuActionPerformed
 
     private void exportMembersMenuActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_exportMembersMenuActionPerformed
-        // Show window detailing instructions fo retrieving the exported file
-        JOptionPane.showMessageDialog(null, "To export the team list, close the program and visit the program folder.\nA file called " + TeamList.STORAGE_FILE + " will store the exported team.\nCopy the file to your desired file location. Do not delete the original file.\nDeleting the original file will delete all members from the team list.", "Export Members", JOptionPane.INFORMATION_MESSAGE);
+        // Choose where to export the team
+        JFileChooser exportChooser = new JFileChooser();
+        exportChooser.setDialogTitle("Export Members to CSV File");
+        exportChooser.setSelectedFile(new File("team.csv"));
+        
+        if (exportChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            JOptionPane.showMessageDialog(null, "File export cancelled by user", "Failed to Export", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        final File exportFile = exportChooser.getSelectedFile();
+        // Export a copy of the list so the team can still be changed while the file is written
+        final ArrayList<Member> members = new ArrayList<>(memberList.getMembers());
+        final ProgressMonitor monitor = new ProgressMonitor(this, "Exporting members to " + exportFile.getName(), null, 0, 100);
+        
+        exportMembersMenu.setEnabled(false);
+        
+        // Write the file on a background thread, reporting progress after every chunk of members.
+        // Like TeamList.exportMembers(List, String), the members are written to a temporary file that is renamed over the chosen file once it is complete,
+        // so cancelling or a crash never leaves the chosen file cut off
+        final SwingWorker<Void, Void> exportWorker = new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws IOException {
+                File temp = new File(exportFile.getPath() + SnapshotFile.TEMP_SUFFIX);
+                boolean replaced = false;
+                
+                try {
+                    try (FileOutputStream output = new FileOutputStream(temp)) {
+                        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                        TeamList.writeHeader(writer);
+                        
+                        for (int i = 0; i < members.size(); i += EXPORT_CHUNK_SIZE) {
+                            int end = Math.min(i + EXPORT_CHUNK_SIZE, members.size());
+                            TeamList.writeMembers(writer, members.subList(i, end));
+                            setProgress((int) (100L * end / members.size()));
+                        }
+                        writer.flush();
+                        
+                        // Make sure the whole file is on disk before it replaces the chosen file
+                        output.getChannel().force(true);
+                    }
+                    SnapshotFile.replace(temp, exportFile);
+                    replaced = true;
+                }
+                finally {
+                    // Only the temporary file is deleted if the export failed or was cancelled, the chosen file is left as it was
+                    if (!replaced) {
+                        temp.delete();
+                    }
+                }
+                return null;
+            }
+            
+            @Override
+            protected void done() {
+                monitor.close();
+                exportMembersMenu.setEnabled(true);
+                
+                try {
+                    get();
+                    JOptionPane.showMessageDialog(null, "Successfully exported " + members.size() + " members to " + exportFile.toString(), 
+                            "Successfully Exported", JOptionPane.INFORMATION_MESSAGE);
+                }
+                catch (CancellationException error) {
+                    JOptionPane.showMessageDialog(null, "File export cancelled by user", "Failed to Export", JOptionPane.INFORMATION_MESSAGE);
+                }
+                catch (InterruptedException | ExecutionException error) {
+                    System.out.println("Error in exporting file");
+                    JOptionPane.showMessageDialog(null, "Could not write " + exportFile.toString(), "Failed to Export", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        
+        // Show the progress in the dialog, and cancel the export if the dialog was cancelled
+        exportWorker.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent event) {
+                if ("progress".equals(event.getPropertyName())) {
+                    monitor.setProgress((Integer) event.getNewValue());
+                    
+                    if (monitor.isCanceled()) {
+                        exportWorker.cancel(true);
+                    }
+                }
+            }
+        });
+        exportWorker.execute();
     }//GEN-LAST:event_exportMembersMenuActionPerformed
     
     
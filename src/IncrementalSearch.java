@@ -0,0 +1,106 @@
+package DecaTeamOrganizer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IncrementalSearch Class for search-as-you-type. Remembers the results of the last query, so when the next query contains it
+ * (i.e. the user typed another character), only the previous results are checked instead of searching the whole team again.
+ * The previous results are only reused if the team and its filters have not changed since they were found
+ * @author Hugh Jiang
+ */
+public class IncrementalSearch {
+
+    // Instance variables
+    private TeamList team;
+    private String lastQuery; // lowercase query of the last search (null if there is none)
+    private ArrayList<Member> lastResults;
+    private long lastVersion;
+    private List<Member> lastFilteredList;
+
+    /**
+     * Constructor for an incremental search on a team
+     * @param team the TeamList that is searched
+     */
+    public IncrementalSearch(TeamList team) {
+        this.team = team;
+        this.lastQuery = null;
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Find the members whose name, email, or eventID contain the query (see TeamList.getMembersContaining).
+     * Can be called on a background thread. If the search is interrupted, an empty list is returned and it isn't remembered
+     * @param query the String search query. Must be at least 3 characters long
+     * @return the ArrayList of Members containing the query, in the order of the filtered list
+     */
+    public synchronized ArrayList<Member> search(String query) {
+        String lowercaseQuery = query.toLowerCase();
+        ArrayList<Member> results;
+        long version;
+        List<Member> filteredList;
+
+        // Take the version and filtered list under the team's lock so they belong together. The search itself runs without the lock,
+        // so edits on the Gui thread don't wait for it
+        synchronized (team) {
+            version = team.getVersion();
+            filteredList = team.getFilteredList();
+        }
+
+        if (lastQuery != null && lowercaseQuery.contains(lastQuery) && version == lastVersion && filteredList == lastFilteredList) {
+            results = refine(lastResults, lowercaseQuery);
+        }
+        else {
+            results = team.getMembersContaining(query);
+        }
+
+        if (Thread.currentThread().isInterrupted()) {
+            clear();
+            return new ArrayList<>();
+        }
+
+        // Results that overlapped a change may be out of date, so they are not narrowed by the next query
+        if (team.getVersion() != version) {
+            clear();
+            return results;
+        }
+
+        lastQuery = lowercaseQuery;
+        lastResults = results;
+        lastVersion = version;
+        lastFilteredList = filteredList;
+        return results;
+    }
+
+    /**
+     * Narrow the results of a previous query to the members that also contain a longer query
+     * @param previous the ArrayList of Members found for a query contained in the new query
+     * @param lowercaseQuery the new lowercase query
+     * @return the ArrayList of Members from previous that contain the new query, in the same order
+     */
+    private static ArrayList<Member> refine(ArrayList<Member> previous, String lowercaseQuery) {
+        ArrayList<Member> results = new ArrayList<>();
+        byte[] queryKey = Member.toSearchKey(lowercaseQuery);
+
+        for (int i = 0; i < previous.size(); i++) {
+            if (i % 1024 == 0 && Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            if (previous.get(i).searchKeyContains(queryKey)) {
+                results.add(previous.get(i));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Forget the last results, so the next search starts from the whole team
+     */
+    public synchronized void clear() {
+        lastQuery = null;
+        lastResults = null;
+        lastFilteredList = null;
+    }
+}
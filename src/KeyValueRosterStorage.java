@@ -0,0 +1,335 @@
+package DecaTeamOrganizer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * KeyValueRosterStorage Class that saves a team in a KeyValueStore (an LSM tree in a directory), keyed by member ID.
+ * Each member is stored under their ID key (ID_PREFIX and the ID in hexadecimal, so keys sort by ID), and also has an entry in a secondary
+ * index on name (NAME_PREFIX, last name, first name and ID), so members can be looked up by ID or by name straight from the disk.
+ * Adding, deleting or editing a member only writes the keys of that member, so saving a change never rewrites the rest of the team,
+ * and the store never has to fit in memory (the TeamList itself still loads the whole team)
+ * @author Hugh Jiang
+ */
+public class KeyValueRosterStorage implements RosterStorage {
+
+    // Constants
+    final static String ID_PREFIX = "i";
+    final static String NAME_PREFIX = "n";
+    final static char SEPARATOR = '\u0000';
+    final static char LAST_CHAR = '\uffff'; // after every other character, so prefix + LAST_CHAR ends a range of keys with the prefix
+    final static String TEMP_FILE = "compact.tmp";
+    final static String IMPORT_FILE = "import.tmp";
+    final static byte[] EMPTY_VALUE = new byte[0];
+
+    // Instance variables
+    private KeyValueStore store;
+
+    /**
+     * Constructor for a storage in a directory
+     * @param directoryName the String containing the path and name of the directory (i.e. storage.kv)
+     */
+    public KeyValueRosterStorage(String directoryName) {
+        this.store = new KeyValueStore(new File(directoryName));
+    }
+
+
+    // Static Methods
+
+    /**
+     * Get the key a member is stored under
+     * @param id the ID of the Member
+     * @return the key, i.e. "i0000002a" for ID 42
+     */
+    static String getIdKey(int id) {
+        String hex = Integer.toHexString(id);
+        return ID_PREFIX + "00000000".substring(hex.length()) + hex;
+    }
+
+    /**
+     * Get the key of a member in the name index, which sorts members by last name and then first name, ignoring case
+     * @param m the Member
+     * @return the key
+     */
+    static String getNameKey(Member m) {
+        return NAME_PREFIX + m.getLastname().toLowerCase() + SEPARATOR + m.getFirstName().toLowerCase() + SEPARATOR + getIdKey(m.getId());
+    }
+
+    /**
+     * Encode the information of a member as the value stored under their ID key
+     * @param m the Member
+     * @return the encoded bytes
+     * @throws IOException if the member cannot be encoded
+     */
+    static byte[] encode(Member m) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream output = new DataOutputStream(bytes);
+        SortedTable.writeString(output, m.getFirstName());
+        SortedTable.writeString(output, m.getLastname());
+        SortedTable.writeString(output, m.getEmail());
+        output.writeInt(m.getGrade());
+        SortedTable.writeString(output, m.getSubteam());
+        SortedTable.writeString(output, m.getEventID());
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Create a member from the value stored under their ID key
+     * @param id the ID of the Member
+     * @param value the encoded bytes
+     * @return the Member, with their ID
+     */
+    static Member decode(int id, byte[] value) {
+        ByteBuffer buffer = ByteBuffer.wrap(value);
+        String firstName = SortedTable.readString(buffer);
+        String lastName = SortedTable.readString(buffer);
+        String email = SortedTable.readString(buffer);
+        int grade = buffer.getInt();
+        String subteam = SortedTable.readString(buffer);
+        String eventID = SortedTable.readString(buffer);
+
+        Member m = new Member(firstName, lastName, email, grade, subteam, eventID);
+        m.setId(id);
+        return m;
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Open the store and load every member, with the IDs they were saved with
+     * @param team the empty TeamList
+     * @return boolean indicating if every table of the store could be read
+     */
+    @Override
+    public boolean open(TeamList team) {
+        ArrayList<Member> members = new ArrayList<>();
+
+        try {
+            store.open();
+            for (Map.Entry<String, byte[]> entry : store.scan(ID_PREFIX, ID_PREFIX + LAST_CHAR)) {
+                int id = Integer.parseUnsignedInt(entry.getKey().substring(ID_PREFIX.length()), 16);
+                members.add(decode(id, entry.getValue()));
+            }
+        }
+        catch (IOException | RuntimeException error) {
+            System.out.println("Error in loading storage directory");
+            return false;
+        }
+
+        team.addMembers(members);
+        return store.isIntact();
+    }
+
+    /**
+     * Store a member under their ID and add them to the name index
+     * @param m the Member that was added
+     */
+    @Override
+    public void logAdd(Member m) {
+        try {
+            store.put(getIdKey(m.getId()), encode(m));
+            store.put(getNameKey(m), EMPTY_VALUE);
+        }
+        catch (IOException error) {
+            System.out.println("Error in writing to storage log");
+        }
+    }
+
+    /**
+     * Delete a member's ID key and name index entry
+     * @param m the Member that was deleted
+     */
+    @Override
+    public void logDelete(Member m) {
+        try {
+            store.delete(getIdKey(m.getId()));
+            store.delete(getNameKey(m));
+        }
+        catch (IOException error) {
+            System.out.println("Error in writing to storage log");
+        }
+    }
+
+    /**
+     * Replace a member under their ID and move their name index entry
+     * @param original the Member before the edit
+     * @param edited the Member after the edit
+     */
+    @Override
+    public void logEdit(Member original, Member edited) {
+        try {
+            if (original.getId() != edited.getId()) {
+                store.delete(getIdKey(original.getId()));
+            }
+            store.delete(getNameKey(original));
+            store.put(getIdKey(edited.getId()), encode(edited));
+            store.put(getNameKey(edited), EMPTY_VALUE);
+        }
+        catch (IOException error) {
+            System.out.println("Error in writing to storage log");
+        }
+    }
+
+    /**
+     * Delete every member
+     */
+    @Override
+    public void logClear() {
+        try {
+            store.clear();
+        }
+        catch (IOException error) {
+            System.out.println("Error in writing to storage log");
+        }
+    }
+
+    /**
+     * Write the logged changes to the store's log (tables are written and merged by the AutoSaver or the store's background thread)
+     * @throws IOException if the log cannot be written
+     */
+    @Override
+    public void commit() throws IOException {
+        store.commit();
+    }
+
+    /**
+     * Force the store's log to disk, write a full memtable to a table and merge tables that have built up
+     * @throws IOException if the store cannot be forced to disk
+     */
+    @Override
+    public void force() throws IOException {
+        store.force();
+    }
+
+    /**
+     * Mutator method to set whether the store's log is forced to disk when changes are committed
+     * @param syncOnCommit false if another thread calls force()
+     */
+    @Override
+    public void setSyncOnCommit(boolean syncOnCommit) {
+        store.setSyncOnCommit(syncOnCommit);
+    }
+
+    /**
+     * The store compacts itself by merging tables, so the whole team never has to be written again
+     * @return false
+     */
+    @Override
+    public boolean needsCompaction() {
+        return false;
+    }
+
+    /**
+     * Write a whole team to a table file, i.e. an imported team that replaces the stored team
+     * @param members the List of Members to be written (they must have IDs)
+     * @param sortedByFirstName ignored, since members are stored by ID
+     * @param target the File to write
+     * @return null, since the table is forced to disk before it is installed
+     * @throws IOException if the file cannot be written
+     * @throws InterruptedIOException if the thread writing the file was interrupted
+     */
+    @Override
+    public String write(List<Member> members, boolean sortedByFirstName, File target) throws IOException {
+        Member[] byId = members.toArray(new Member[0]);
+        Arrays.sort(byId, Comparator.comparingInt(Member::getId));
+        String[] nameKeys = new String[byId.length];
+
+        // ID keys all come before name keys, so the table is written in two sorted runs
+        try (SortedTable.Writer writer = new SortedTable.Writer(target)) {
+            for (int i = 0; i < byId.length; i++) {
+                writer.add(getIdKey(byId[i].getId()), encode(byId[i]));
+                nameKeys[i] = getNameKey(byId[i]);
+
+                if (i % 1024 == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Export cancelled");
+                }
+            }
+
+            Arrays.sort(nameKeys);
+            for (String nameKey : nameKeys) {
+                writer.add(nameKey, EMPTY_VALUE);
+            }
+            writer.finish();
+        }
+        return null;
+    }
+
+    /**
+     * Replace everything in the store with a table written with write()
+     * @param written the table File
+     * @param checksum ignored
+     * @throws IOException if the table cannot be installed
+     */
+    @Override
+    public void install(File written, String checksum) throws IOException {
+        store.replaceAll(written);
+    }
+
+    /**
+     * Write the remaining changes to a table and close the store
+     * @throws IOException if the store cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Find a member in the store by their ID, without loading the team
+     * @param id the ID of the Member
+     * @return the Member, or null if no member has the ID
+     * @throws IOException if the store cannot be read
+     */
+    public Member getMember(int id) throws IOException {
+        byte[] value = store.get(getIdKey(id));
+        return value == null ? null : decode(id, value);
+    }
+
+    /**
+     * Find the members in the store whose last name starts with a prefix (ignoring case) with the name index, without loading the team
+     * @param lastNamePrefix the start of the last name
+     * @return the ArrayList of Members, ordered by last name and then first name
+     * @throws IOException if the store cannot be read
+     */
+    public ArrayList<Member> findByLastName(String lastNamePrefix) throws IOException {
+        String from = NAME_PREFIX + lastNamePrefix.toLowerCase();
+        ArrayList<Member> found = new ArrayList<>();
+
+        for (Map.Entry<String, byte[]> entry : store.scan(from, from + LAST_CHAR)) {
+            String key = entry.getKey();
+            int id = Integer.parseUnsignedInt(key.substring(key.lastIndexOf(SEPARATOR) + 1 + ID_PREFIX.length()), 16);
+            Member m = getMember(id);
+            if (m != null) {
+                found.add(m);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Accessor method to get the file that compacted teams are written to, inside the store's directory
+     * @return the temporary File
+     */
+    @Override
+    public File getTempFile() {
+        return new File(store.getDirectory(), TEMP_FILE);
+    }
+
+    /**
+     * Accessor method to get the file that imported teams are written to, inside the store's directory
+     * @return the import File
+     */
+    @Override
+    public File getImportFile() {
+        return new File(store.getDirectory(), IMPORT_FILE);
+    }
+}
@@ -0,0 +1,841 @@
+package DecaTeamOrganizer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * KeyValueStore Class for an embedded key-value store in a directory, laid out as a log-structured merge tree (LSM tree).
+ * Keys are Strings and values are byte arrays.
+ * <ul>
+ * <li>A put or delete is appended to the log file and applied to the memtable (a sorted map in memory), so a point update costs
+ * one log record no matter how much data is stored</li>
+ * <li>When the memtable has MEMTABLE_LIMIT entries, it is frozen and a new memtable and log are started. The frozen memtable is written to a new
+ * SortedTable file without holding the lock (by force(), or by a background thread if commit() forces the log itself), so changes don't wait for it</li>
+ * <li>A lookup checks the memtable, the frozen memtable and then the tables from newest to oldest, reading one block of each table</li>
+ * <li>Tables are merged like a binary counter: whenever the newest table is at least half the size of the one before it,
+ * the two are merged, so there are O(log n) tables and each entry is rewritten O(log n) times</li>
+ * </ul>
+ * The MANIFEST file lists the tables and the oldest log that hasn't been written to a table yet, and is replaced in one step,
+ * so the store always opens to the last committed change. Only the memtable and the sparse index of each table are kept in memory
+ * @author Hugh Jiang
+ */
+public class KeyValueStore {
+
+    // Constants
+    final static int MEMTABLE_LIMIT = 16384;
+    final static int GROUP_COMMIT_SIZE = 64;
+    final static long GROUP_COMMIT_MILLIS = 1000;
+    final static String MANIFEST_FILE = "MANIFEST";
+    final static String LOG_PREFIX = "log-";
+    final static String LOG_SUFFIX = ".log";
+    final static String TABLE_PREFIX = "table-";
+    final static String TABLE_SUFFIX = ".sst";
+    final static byte PUT_RECORD = 1;
+    final static byte DELETE_RECORD = 2;
+    final static byte CLEAR_RECORD = 3;
+
+    /**
+     * A Cursor that merges several cursors, giving the newest value of each key (including tombstones)
+     */
+    private static class MergedCursor extends SortedTable.Cursor {
+        private PriorityQueue<int[]> heads; // {cursor number} of each cursor that has a current entry, ordered by key and then newest first
+        private ArrayList<SortedTable.Cursor> cursors;
+        private String key;
+        private byte[] value;
+
+        /**
+         * Constructor for a cursor before the first entry of the merged cursors
+         * @param cursors the List of Cursors, newest first
+         * @throws IOException if an entry cannot be read
+         */
+        MergedCursor(List<SortedTable.Cursor> cursors) throws IOException {
+            this.cursors = new ArrayList<>(cursors);
+            this.heads = new PriorityQueue<>(Math.max(cursors.size(), 1), (a, b) -> {
+                int comparison = this.cursors.get(a[0]).getKey().compareTo(this.cursors.get(b[0]).getKey());
+                return comparison != 0 ? comparison : Integer.compare(a[0], b[0]);
+            });
+            for (int i = 0; i < cursors.size(); i++) {
+                if (cursors.get(i).next()) {
+                    heads.add(new int[] {i});
+                }
+            }
+        }
+
+        @Override
+        boolean next() throws IOException {
+            if (heads.isEmpty()) {
+                return false;
+            }
+
+            // The newest cursor with the smallest key gives the value, and the older cursors with the same key are skipped
+            int[] newest = heads.poll();
+            key = cursors.get(newest[0]).getKey();
+            value = cursors.get(newest[0]).getValue();
+            advance(newest);
+
+            while (!heads.isEmpty() && cursors.get(heads.peek()[0]).getKey().equals(key)) {
+                advance(heads.poll());
+            }
+            return true;
+        }
+
+        /**
+         * Move a cursor to its next entry and put it back in the queue if it has one
+         * @param head the cursor number
+         * @throws IOException if the entry cannot be read
+         */
+        private void advance(int[] head) throws IOException {
+            if (cursors.get(head[0]).next()) {
+                heads.add(head);
+            }
+        }
+
+        @Override
+        String getKey() {
+            return key;
+        }
+
+        @Override
+        byte[] getValue() {
+            return value;
+        }
+    }
+
+    // Instance variables
+    private File directory;
+    private TreeMap<String, byte[]> memtable;
+    private TreeMap<String, byte[]> frozenMemtable; // full memtable that is being written to a table (null if there is none)
+    private ArrayList<SortedTable> tables; // oldest first
+    private long nextFileNumber;
+    private long logNumber;
+    private long oldestLogNumber; // the oldest log whose changes are not in a table yet (older than logNumber while a frozen memtable is written)
+    private FileOutputStream logOutput;
+    private DataOutputStream log;
+    private ByteArrayOutputStream record;
+    private DataOutputStream recordData;
+    private CRC32 crc;
+    private int unsyncedRecords;
+    private long lastSyncTime;
+    private boolean syncOnCommit;
+    private boolean merging; // true while two tables are being merged (only one merge runs at a time)
+    private boolean flushing; // true while a frozen memtable is being written to a table
+    private Thread backgroundCompaction;
+    private boolean intact;
+
+    /**
+     * Constructor for a store in a directory. The store is not read until open() is called
+     * @param directory the directory File (created by open() if it doesn't exist)
+     */
+    public KeyValueStore(File directory) {
+        this.directory = directory;
+        this.record = new ByteArrayOutputStream();
+        this.recordData = new DataOutputStream(record);
+        this.crc = new CRC32();
+        this.syncOnCommit = true;
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Open the store: read the manifest and the tables it lists, then replay the logs into the memtable.
+     * A log that ends in a damaged record (i.e. the program stopped while writing it) is replayed up to that record
+     * @throws IOException if the directory or a new log cannot be created
+     */
+    public synchronized void open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create directory " + directory);
+        }
+        memtable = new TreeMap<>();
+        frozenMemtable = null;
+        tables = new ArrayList<>();
+        merging = false;
+        flushing = false;
+        intact = true;
+        nextFileNumber = 1;
+
+        // Files are numbered in the order they were created
+        ArrayList<Long> logNumbers = new ArrayList<>();
+        File[] files = directory.listFiles();
+        for (File file : files) {
+            long number = getFileNumber(file.getName());
+            nextFileNumber = Math.max(nextFileNumber, number + 1);
+            if (file.getName().startsWith(LOG_PREFIX) && number > 0) {
+                logNumbers.add(number);
+            }
+        }
+
+        long oldestLog = 0;
+        ArrayList<String> tableNames = new ArrayList<>();
+        File manifest = new File(directory, MANIFEST_FILE);
+        if (manifest.exists()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), StandardCharsets.UTF_8))) {
+                oldestLog = Long.parseLong(reader.readLine().substring(LOG_PREFIX.length()));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        tableNames.add(line);
+                    }
+                }
+            }
+            catch (NullPointerException | NumberFormatException | IndexOutOfBoundsException error) {
+                throw new IOException("Manifest is damaged");
+            }
+        }
+
+        for (String name : tableNames) {
+            try {
+                tables.add(new SortedTable(new File(directory, name)));
+            }
+            catch (IOException error) {
+                System.out.println("Error in opening table file " + name);
+                intact = false;
+            }
+        }
+
+        // Replay every log that hasn't been written to a table, oldest first
+        logNumbers.sort(null);
+        for (long number : logNumbers) {
+            if (number >= oldestLog) {
+                replayLog(new File(directory, LOG_PREFIX + number + LOG_SUFFIX));
+            }
+        }
+
+        logNumber = nextFileNumber++;
+        openLog();
+
+        // Write the replayed changes to a table, which also removes the old logs and any files left by a merge that didn't finish
+        flush();
+    }
+
+    /**
+     * Get the number of a log or table file from its name
+     * @param name the file name, i.e. "table-12.sst"
+     * @return the number, or 0 if the file is not a log or table file
+     */
+    private static long getFileNumber(String name) {
+        String number;
+        if (name.startsWith(LOG_PREFIX) && name.endsWith(LOG_SUFFIX)) {
+            number = name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length());
+        }
+        else if (name.startsWith(TABLE_PREFIX) && name.endsWith(TABLE_SUFFIX)) {
+            number = name.substring(TABLE_PREFIX.length(), name.length() - TABLE_SUFFIX.length());
+        }
+        else {
+            return 0;
+        }
+
+        try {
+            return Long.parseLong(number);
+        }
+        catch (NumberFormatException error) {
+            return 0;
+        }
+    }
+
+    /**
+     * Apply the records of a log file to the memtable, stopping at the first damaged record
+     * @param logFile the log File
+     * @throws IOException if the log cannot be read
+     */
+    private void replayLog(File logFile) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile), SortedTable.BUFFER_SIZE))) {
+            while (true) {
+                byte[] payload;
+                int expectedCrc;
+                try {
+                    int length = input.readInt();
+                    expectedCrc = input.readInt();
+                    if (length <= 0 || length > logFile.length()) {
+                        System.out.println("Stopped replaying log at damaged record");
+                        return;
+                    }
+                    payload = new byte[length];
+                    input.readFully(payload);
+                }
+                catch (EOFException error) {
+                    // The end of the log, or a record that was cut off
+                    return;
+                }
+
+                crc.reset();
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    System.out.println("Stopped replaying log at damaged record");
+                    return;
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(payload);
+                byte type = buffer.get();
+                if (type == PUT_RECORD) {
+                    String key = SortedTable.readString(buffer);
+                    byte[] value = new byte[buffer.getInt()];
+                    buffer.get(value);
+                    memtable.put(key, value);
+                }
+                else if (type == DELETE_RECORD) {
+                    memtable.put(SortedTable.readString(buffer), SortedTable.TOMBSTONE);
+                }
+                else if (type == CLEAR_RECORD) {
+                    memtable.clear();
+                    for (SortedTable table : tables) {
+                        table.close();
+                    }
+                    tables.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Create a new log file for the current log number
+     * @throws IOException if the log cannot be created
+     */
+    private void openLog() throws IOException {
+        logOutput = new FileOutputStream(new File(directory, LOG_PREFIX + logNumber + LOG_SUFFIX));
+        log = new DataOutputStream(new BufferedOutputStream(logOutput, SortedTable.BUFFER_SIZE));
+        unsyncedRecords = 0;
+        lastSyncTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Append the record in the record buffer to the log, with its length and checksum
+     * @throws IOException if the record cannot be written
+     */
+    private void appendRecord() throws IOException {
+        crc.reset();
+        crc.update(record.toByteArray(), 0, record.size());
+        log.writeInt(record.size());
+        log.writeInt((int) crc.getValue());
+        record.writeTo(log);
+        record.reset();
+        unsyncedRecords++;
+    }
+
+    /**
+     * Store a value under a key. The change is written to the log on the next commit()
+     * @param key the String key
+     * @param value the value
+     * @throws IOException if the change cannot be logged
+     */
+    public synchronized void put(String key, byte[] value) throws IOException {
+        recordData.writeByte(PUT_RECORD);
+        SortedTable.writeString(recordData, key);
+        recordData.writeInt(value.length);
+        recordData.write(value);
+        appendRecord();
+        memtable.put(key, value);
+    }
+
+    /**
+     * Delete a key. The change is written to the log on the next commit()
+     * @param key the String key
+     * @throws IOException if the change cannot be logged
+     */
+    public synchronized void delete(String key) throws IOException {
+        recordData.writeByte(DELETE_RECORD);
+        SortedTable.writeString(recordData, key);
+        appendRecord();
+        memtable.put(key, SortedTable.TOMBSTONE);
+    }
+
+    /**
+     * Delete every key. The tables are removed straight away, after the record of the change is forced to disk
+     * @throws IOException if the change cannot be logged
+     */
+    public synchronized void clear() throws IOException {
+        recordData.writeByte(CLEAR_RECORD);
+        appendRecord();
+        sync();
+
+        // Replayed, the record would also clear the tables, so it is safe to stop if the program stops part way through.
+        // A frozen memtable that is being written is dropped too, and its table is deleted when it is finished
+        memtable.clear();
+        frozenMemtable = null;
+        ArrayList<SortedTable> removed = new ArrayList<>(tables);
+        tables.clear();
+        rotateLog();
+        oldestLogNumber = logNumber;
+        writeManifest();
+        deleteObsoleteFiles(removed);
+    }
+
+    /**
+     * Write the changes made since the last commit to the log file, forcing them to disk once a group of records has built up
+     * (unless forcing was left to another thread). Only the log is written here: if no other thread forces the store, a full memtable is
+     * written to a table and tables are merged on a background thread, so the thread changing the store never waits for them
+     * @throws IOException if the changes cannot be written
+     */
+    public synchronized void commit() throws IOException {
+        log.flush();
+        if (syncOnCommit && (unsyncedRecords >= GROUP_COMMIT_SIZE || System.currentTimeMillis() - lastSyncTime >= GROUP_COMMIT_MILLIS)) {
+            sync();
+        }
+        if (syncOnCommit && memtable.size() >= MEMTABLE_LIMIT) {
+            startBackgroundCompaction();
+        }
+    }
+
+    /**
+     * Start a background thread that writes full memtables to tables and merges tables, unless one is already running. Called while holding the lock
+     */
+    private void startBackgroundCompaction() {
+        if (backgroundCompaction != null && backgroundCompaction.isAlive()) {
+            return;
+        }
+
+        backgroundCompaction = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    compact();
+                }
+                catch (IOException error) {
+                    System.out.println("Error in writing storage table");
+                }
+            }
+        }, "Storage compaction");
+        backgroundCompaction.setDaemon(true);
+        backgroundCompaction.start();
+    }
+
+    /**
+     * Write full memtables to tables and merge tables that have built up, without holding the lock while the files are written
+     * @throws IOException if a table cannot be written
+     */
+    private void compact() throws IOException {
+        // Changes made while a table was written may have filled the new memtable already
+        boolean flushed;
+        do {
+            flushed = flushFrozen();
+        } while (flushed);
+        mergeTables();
+    }
+
+    /**
+     * Force the committed changes to disk, write a full memtable to a table, and merge tables that have built up.
+     * Can be called on a different thread than the one changing the store: the slow work (forcing, writing and merging tables) is done without holding the lock
+     * @throws IOException if the changes cannot be forced to disk
+     */
+    public void force() throws IOException {
+        FileChannel channel;
+        synchronized (this) {
+            channel = logOutput.getChannel();
+        }
+
+        try {
+            channel.force(false);
+        }
+        catch (ClosedChannelException error) {
+            // The log was replaced by a new one, and the old log was forced to disk before it was closed
+        }
+
+        compact();
+    }
+
+    /**
+     * Write the buffered log records and force the log file to disk
+     * @throws IOException if the log cannot be written
+     */
+    private void sync() throws IOException {
+        log.flush();
+        logOutput.getChannel().force(false);
+        unsyncedRecords = 0;
+        lastSyncTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Close the current log (forcing it to disk) and start a new one. The old log is deleted once the manifest no longer needs it
+     * @throws IOException if the new log cannot be created
+     */
+    private void rotateLog() throws IOException {
+        sync();
+        log.close();
+        logNumber = nextFileNumber++;
+        openLog();
+    }
+
+    /**
+     * If the memtable is full, freeze it and start a new memtable and log, then write the frozen memtable to a new table without holding the lock.
+     * The table only replaces the frozen memtable if it is still in the store (a clear() or replaceAll() may have dropped it in the meantime)
+     * @return boolean indicating if a memtable was written
+     * @throws IOException if the table cannot be written
+     */
+    private boolean flushFrozen() throws IOException {
+        TreeMap<String, byte[]> frozen;
+        boolean dropTombstones;
+        File tableFile;
+        synchronized (this) {
+            if (flushing || memtable.size() < MEMTABLE_LIMIT) {
+                return false;
+            }
+            frozen = memtable;
+            frozenMemtable = frozen;
+            flushing = true;
+            memtable = new TreeMap<>();
+            rotateLog();
+            dropTombstones = tables.isEmpty();
+            tableFile = new File(directory, TABLE_PREFIX + (nextFileNumber++) + TABLE_SUFFIX);
+        }
+
+        SortedTable table;
+        try {
+            writeTable(frozen, dropTombstones, tableFile);
+            table = new SortedTable(tableFile);
+        }
+        catch (IOException error) {
+            boolean dropped;
+            synchronized (this) {
+                flushing = false;
+                dropped = frozenMemtable != frozen;
+
+                // The frozen changes are still in their log, so they go back under the changes made since
+                if (!dropped) {
+                    frozen.putAll(memtable);
+                    memtable = frozen;
+                    frozenMemtable = null;
+                }
+            }
+            tableFile.delete();
+
+            // A memtable that was dropped while it was being written is not needed, so nothing was lost
+            if (dropped) {
+                return false;
+            }
+            throw error;
+        }
+
+        synchronized (this) {
+            flushing = false;
+            if (frozenMemtable != frozen) {
+                table.close();
+                tableFile.delete();
+                return false;
+            }
+            tables.add(table);
+            frozenMemtable = null;
+            oldestLogNumber = logNumber;
+            writeManifest();
+            deleteObsoleteFiles(new ArrayList<>());
+        }
+        return true;
+    }
+
+    /**
+     * Write the entries of a memtable to a new table file
+     * @param entries the TreeMap of entries
+     * @param dropTombstones true to leave out deleted keys (when there is no older table)
+     * @param tableFile the table File
+     * @throws IOException if the table cannot be written
+     */
+    private static void writeTable(TreeMap<String, byte[]> entries, boolean dropTombstones, File tableFile) throws IOException {
+        try (SortedTable.Writer writer = new SortedTable.Writer(tableFile)) {
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                if (!dropTombstones || entry.getValue() != SortedTable.TOMBSTONE) {
+                    writer.add(entry.getKey(), entry.getValue());
+                }
+            }
+            writer.finish();
+        }
+    }
+
+    /**
+     * Write the memtable to a new table and start an empty memtable and a new log, while holding the lock (when the store is opened or closed)
+     * @throws IOException if the table cannot be written
+     */
+    private void flush() throws IOException {
+        if (!memtable.isEmpty()) {
+            // Nothing is older than the first table, so deleted keys don't have to be kept
+            File tableFile = new File(directory, TABLE_PREFIX + (nextFileNumber++) + TABLE_SUFFIX);
+            writeTable(memtable, tables.isEmpty(), tableFile);
+            tables.add(new SortedTable(tableFile));
+            memtable = new TreeMap<>();
+        }
+
+        rotateLog();
+        oldestLogNumber = logNumber;
+        writeManifest();
+        deleteObsoleteFiles(new ArrayList<>());
+    }
+
+    /**
+     * Merge the two newest tables while the newest is at least half the size of the one before it (like carrying in a binary counter).
+     * The merged table is written without holding the lock, and only replaces the two tables if they are still in the store
+     * (a clear() or replaceAll() may have removed them in the meantime)
+     * @throws IOException if a merged table cannot be written
+     */
+    private void mergeTables() throws IOException {
+        while (true) {
+            SortedTable older;
+            SortedTable newer;
+            boolean dropTombstones;
+            File mergedFile;
+            synchronized (this) {
+                int numTables = tables.size();
+                if (merging || numTables < 2 || tables.get(numTables - 1).getSize() * 2 < tables.get(numTables - 2).getSize()) {
+                    return;
+                }
+                older = tables.get(numTables - 2);
+                newer = tables.get(numTables - 1);
+                dropTombstones = numTables == 2;
+                mergedFile = new File(directory, TABLE_PREFIX + (nextFileNumber++) + TABLE_SUFFIX);
+                merging = true;
+            }
+
+            SortedTable merged = null;
+            try {
+                ArrayList<SortedTable.Cursor> cursors = new ArrayList<>();
+                cursors.add(newer.getCursor(null, null));
+                cursors.add(older.getCursor(null, null));
+                MergedCursor cursor = new MergedCursor(cursors);
+
+                try (SortedTable.Writer writer = new SortedTable.Writer(mergedFile)) {
+                    while (cursor.next()) {
+                        if (!dropTombstones || cursor.getValue() != SortedTable.TOMBSTONE) {
+                            writer.add(cursor.getKey(), cursor.getValue());
+                        }
+                    }
+                    writer.finish();
+                }
+                merged = new SortedTable(mergedFile);
+            }
+            catch (IOException error) {
+                boolean removed;
+                synchronized (this) {
+                    merging = false;
+                    removed = !tables.contains(older) || !tables.contains(newer);
+                }
+                mergedFile.delete();
+
+                // Tables that were removed while they were being merged are closed, so reading them fails, but nothing was lost
+                if (removed) {
+                    return;
+                }
+                throw error;
+            }
+
+            synchronized (this) {
+                merging = false;
+                int index = tables.indexOf(older);
+                if (index == -1 || index + 1 >= tables.size() || tables.get(index + 1) != newer) {
+                    merged.close();
+                    mergedFile.delete();
+                    return;
+                }
+
+                tables.set(index, merged);
+                tables.remove(index + 1);
+                writeManifest();
+                ArrayList<SortedTable> removed = new ArrayList<>();
+                removed.add(older);
+                removed.add(newer);
+                deleteObsoleteFiles(removed);
+            }
+        }
+    }
+
+    /**
+     * Replace everything in the store with a table that was written with SortedTable.Writer (i.e. a whole team that was imported)
+     * @param written the table File, in the store's directory
+     * @throws IOException if the table cannot be opened or installed
+     */
+    public synchronized void replaceAll(File written) throws IOException {
+        File tableFile = new File(directory, TABLE_PREFIX + (nextFileNumber++) + TABLE_SUFFIX);
+        SnapshotFile.replace(written, tableFile);
+        SortedTable table = new SortedTable(tableFile);
+
+        ArrayList<SortedTable> removed = new ArrayList<>(tables);
+        tables.clear();
+        tables.add(table);
+        memtable = new TreeMap<>();
+        frozenMemtable = null;
+        rotateLog();
+        oldestLogNumber = logNumber;
+        writeManifest();
+        deleteObsoleteFiles(removed);
+    }
+
+    /**
+     * Write the manifest (the oldest log that is still needed and the tables) to a temporary file and rename it over the old manifest
+     * @throws IOException if the manifest cannot be written
+     */
+    private void writeManifest() throws IOException {
+        StringBuilder contents = new StringBuilder();
+        contents.append(LOG_PREFIX).append(oldestLogNumber).append('\n');
+        for (SortedTable table : tables) {
+            contents.append(table.getFile().getName()).append('\n');
+        }
+
+        File temp = new File(directory, MANIFEST_FILE + SnapshotFile.TEMP_SUFFIX);
+        try (FileOutputStream output = new FileOutputStream(temp)) {
+            output.write(contents.toString().getBytes(StandardCharsets.UTF_8));
+            output.getChannel().force(true);
+        }
+        SnapshotFile.replace(temp, new File(directory, MANIFEST_FILE));
+    }
+
+    /**
+     * Close and delete tables that were removed from the manifest, and delete old logs and tables that are not in the manifest
+     * @param removed the ArrayList of SortedTables that were removed
+     */
+    private void deleteObsoleteFiles(ArrayList<SortedTable> removed) {
+        for (SortedTable table : removed) {
+            table.close();
+            table.getFile().delete();
+        }
+
+        // A merge or flush that is running is writing a table that isn't in the manifest yet
+        if (merging || flushing) {
+            return;
+        }
+        ArrayList<String> tableNames = new ArrayList<>();
+        for (SortedTable table : tables) {
+            tableNames.add(table.getFile().getName());
+        }
+        for (File file : directory.listFiles()) {
+            String name = file.getName();
+            long number = getFileNumber(name);
+            if ((name.startsWith(LOG_PREFIX) && number > 0 && number < oldestLogNumber) || (name.startsWith(TABLE_PREFIX) && number > 0 && !tableNames.contains(name))) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Wait for a background compaction to finish, then write the memtable to a table, force everything to disk and close the files
+     * @throws IOException if the store cannot be closed
+     */
+    public void close() throws IOException {
+        Thread activeCompaction;
+        synchronized (this) {
+            activeCompaction = backgroundCompaction;
+            backgroundCompaction = null;
+        }
+        // Joined without holding the lock, since the compaction needs it to finish
+        if (activeCompaction != null) {
+            try {
+                activeCompaction.join();
+            }
+            catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        closeFiles();
+    }
+
+    /**
+     * Write the memtable (and a frozen memtable that wasn't written) to a table, force everything to disk and close the files
+     * @throws IOException if the store cannot be closed
+     */
+    private synchronized void closeFiles() throws IOException {
+        if (frozenMemtable != null) {
+            frozenMemtable.putAll(memtable);
+            memtable = frozenMemtable;
+            frozenMemtable = null;
+        }
+        flush();
+        log.close();
+        for (SortedTable table : tables) {
+            table.close();
+        }
+        tables.clear();
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Find the value of a key, checking the memtable, the frozen memtable and then the tables from newest to oldest
+     * @param key the String key
+     * @return the value, or null if the key is not in the store
+     * @throws IOException if a table cannot be read
+     */
+    public synchronized byte[] get(String key) throws IOException {
+        byte[] value = memtable.get(key);
+        if (value == null && frozenMemtable != null) {
+            value = frozenMemtable.get(key);
+        }
+
+        for (int i = tables.size() - 1; i >= 0 && value == null; i--) {
+            value = tables.get(i).get(key);
+        }
+        return value == SortedTable.TOMBSTONE ? null : value;
+    }
+
+    /**
+     * Find the keys in a range and their values, in increasing order of their keys
+     * @param from the first key of the range
+     * @param to the key after the range
+     * @return the ArrayList of entries
+     * @throws IOException if a table cannot be read
+     */
+    public synchronized ArrayList<Map.Entry<String, byte[]>> scan(String from, String to) throws IOException {
+        ArrayList<SortedTable.Cursor> cursors = new ArrayList<>();
+        cursors.add(new SortedTable.MapCursor(memtable.subMap(from, to).entrySet().iterator()));
+        if (frozenMemtable != null) {
+            cursors.add(new SortedTable.MapCursor(frozenMemtable.subMap(from, to).entrySet().iterator()));
+        }
+        for (int i = tables.size() - 1; i >= 0; i--) {
+            cursors.add(tables.get(i).getCursor(from, to));
+        }
+
+        ArrayList<Map.Entry<String, byte[]>> entries = new ArrayList<>();
+        MergedCursor cursor = new MergedCursor(cursors);
+        while (cursor.next()) {
+            if (cursor.getValue() != SortedTable.TOMBSTONE) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(cursor.getKey(), cursor.getValue()));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Mutator method to set whether commit() forces the log to disk and starts the background thread that writes and merges tables
+     * @param syncOnCommit false if another thread calls force()
+     */
+    public synchronized void setSyncOnCommit(boolean syncOnCommit) {
+        this.syncOnCommit = syncOnCommit;
+    }
+
+    /**
+     * Accessor method to check if every table listed in the manifest could be opened
+     * @return false if a table was missing or damaged when the store was opened
+     */
+    public synchronized boolean isIntact() {
+        return intact;
+    }
+
+    /**
+     * Accessor method to check if a full memtable is being written to a table
+     * @return true while there is a frozen memtable
+     */
+    public synchronized boolean hasFrozenMemtable() {
+        return frozenMemtable != null;
+    }
+
+    /**
+     * Accessor method to get the number of tables
+     * @return the number of tables
+     */
+    public synchronized int getNumTables() {
+        return tables.size();
+    }
+
+    /**
+     * Accessor method to get the directory of the store
+     * @return the directory File
+     */
+    public File getDirectory() {
+        return directory;
+    }
+}
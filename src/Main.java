@@ -12,9 +12,16 @@ package DecaTeamOrganizer;
 public class Main {
 
     /**
+     * Opens the Gui, or runs TeamList commands without the Gui when command line arguments are given (see TeamListBatch)
      * @param args the command line arguments
      */
     public static void main(String[] args) {
+        if (args.length > 0) {
+            // Batch mode must be able to run on a server without a display
+            System.setProperty("java.awt.headless", "true");
+            System.exit(TeamListBatch.run(args));
+        }
+        
         // TODO code application logic here
         Gui ui = new Gui();
         ui.setVisible(true);
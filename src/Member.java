@@ -1,5 +1,7 @@
 package DecaTeamOrganizer;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * The Member class containing instance fields and methods for each Member that
  * will be added in the DECA team organizer.
@@ -14,6 +16,9 @@ public class Member {
     private int grade;
     private String lastName;
     private String subteam; // DECA subteam name
+    private int id = -1; // Stable ID given by TeamList when this Member is first added (-1 if never added)
+    private int slot = -1; // Position of this Member in TeamList's bitmap indexes (-1 if not in a TeamList)
+    private byte[] searchKey; // Cached lowercase UTF-8 search string (null until it is needed or after a searched field changes)
 
     /**
      * Constructor to initialize this Member's instance fields
@@ -109,6 +114,80 @@ public class Member {
         return firstName + " " + lastName + " " + email + " " + eventID;
     }
 
+    /**
+     * Accessor method to return the search key of this Member: the search
+     * string in lowercase, encoded as UTF-8 bytes. The key is created once and
+     * kept until a searched field changes, so searching doesn't create any
+     * Strings for this Member
+     *
+     * @return the byte array containing the search key (must not be changed)
+     */
+    public byte[] getSearchKey() {
+        byte[] key = searchKey;
+        if (key == null) {
+            key = toSearchKey(getSearchString());
+            searchKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * Normalize a String (i.e. a search query) the same way as search keys, so
+     * it can be compared with them
+     *
+     * @param s the String to normalize
+     * @return the lowercase String encoded as UTF-8 bytes
+     */
+    public static byte[] toSearchKey(String s) {
+        return s.toLowerCase().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Check if this Member's search key contains a query. Since UTF-8 is
+     * compared byte by byte, this matches the same members as checking the
+     * lowercase search String, without creating any objects
+     *
+     * @param query the byte array of the query from toSearchKey()
+     * @return true if the query is found in this Member's name, email, or
+     * event ID
+     */
+    public boolean searchKeyContains(byte[] query) {
+        return searchKeyIndexOf(query, 0) >= 0;
+    }
+
+    /**
+     * Find where a query occurs in this Member's search key, i.e. to tell
+     * which field it was found in
+     *
+     * @param query the byte array of the query from toSearchKey()
+     * @param from the index of the search key to start looking from
+     * @return the index of the first occurrence at or after from, or -1 if
+     * there is none
+     */
+    public int searchKeyIndexOf(byte[] query, int from) {
+        byte[] key = getSearchKey();
+        if (query.length == 0) {
+            return Math.min(from, key.length);
+        }
+
+        byte first = query[0];
+        int last = key.length - query.length;
+        for (int i = Math.max(from, 0); i <= last; i++) {
+            // Find the next position of the first byte of the query, then compare the rest
+            if (key[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < query.length && key[i + j] == query[j]) {
+                j++;
+            }
+            if (j == query.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Accessor method to return this Member's email address
      *
@@ -127,6 +206,17 @@ public class Member {
         return eventID;
     }
 
+    /**
+     * Accessor method to return this Member's ID. The ID stays the same when
+     * the Member is edited, so it can be used to find the Member again
+     *
+     * @return this Member's ID, or -1 if this Member was never added to a
+     * TeamList
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Accessor method to return this Member's first name
      *
@@ -174,6 +264,16 @@ public class Member {
         return lastName;
     }
 
+    /**
+     * Accessor method to return this Member's slot in TeamList's bitmap
+     * indexes
+     *
+     * @return this Member's slot, or -1 if this Member is not in a TeamList
+     */
+    int getSlot() {
+        return slot;
+    }
+
     /**
      * Accessor method to return this Member's subteam
      *
@@ -191,6 +291,7 @@ public class Member {
      */
     public void setEmail(String email) {
         this.email = email;
+        searchKey = null;
     }
 
     /**
@@ -200,6 +301,7 @@ public class Member {
      */
     public void setEventID(String eventID) {
         this.eventID = eventID;
+        searchKey = null;
     }
 
     /**
@@ -209,6 +311,17 @@ public class Member {
      */
     public void setFirstName(String firstName) {
         this.firstName = firstName;
+        searchKey = null;
+    }
+
+    /**
+     * Mutator method to set this Member's ID. Only TeamList should call this
+     * method
+     *
+     * @param id the integer containing this Member's ID
+     */
+    void setId(int id) {
+        this.id = id;
     }
 
     /**
@@ -227,6 +340,17 @@ public class Member {
      */
     public void setLastname(String lastName) {
         this.lastName = lastName;
+        searchKey = null;
+    }
+
+    /**
+     * Mutator method to set this Member's slot in TeamList's bitmap indexes.
+     * Only TeamList should call this method
+     *
+     * @param slot the integer containing this Member's slot
+     */
+    void setSlot(int slot) {
+        this.slot = slot;
     }
 
     /**
@@ -0,0 +1,150 @@
+package DecaTeamOrganizer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayList;
+
+/**
+ * MemberImport Class that imports a file into a TeamList in two steps, so that the slow work can run on a background thread.
+ * run() reads the file, builds the sorted list and indexes of the new team in a separate staging TeamList, and saves it to a snapshot file.
+ * apply() then swaps the staging list into the team on the Gui thread in constant time.
+ * If the team was changed while the import was running, apply() adds the imported members to the team normally instead
+ * @author Hugh Jiang
+ */
+public class MemberImport {
+
+    // Instance variables
+    private TeamList target;
+    private boolean keepExisting;
+    private ArrayList<Member> existingMembers; // copy of the team when the import started
+    private long startVersion;
+    private TeamList staged;
+    private ArrayList<Member> importedMembers;
+    private ArrayList<String> importErrors;
+    private File snapshot;
+    private String snapshotChecksum;
+
+    /**
+     * Constructor for an import into a team. Must be called on the thread that changes the team (the Gui thread)
+     * @param target the TeamList that the members are imported into
+     * @param keepExisting true to keep the members already on the team, false to replace them with the imported members
+     */
+    public MemberImport(TeamList target, boolean keepExisting) {
+        this.target = target;
+        this.keepExisting = keepExisting;
+        this.startVersion = target.getVersion();
+        this.staged = target.createStagingList();
+        this.importErrors = new ArrayList<>();
+
+        // Only the list of references is copied here, the members themselves are copied on the background thread
+        if (keepExisting) {
+            existingMembers = new ArrayList<>(target.getMembers());
+        }
+        else {
+            existingMembers = new ArrayList<>();
+        }
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Read the imported file and build the new team. Can be called on a background thread
+     * @param reader the Reader for the imported file (it is closed when the file has been read)
+     * @throws IOException if the file cannot be read
+     * @throws InterruptedIOException if the thread was interrupted (i.e. the import was cancelled)
+     */
+    public void run(Reader reader) throws IOException {
+        importedMembers = TeamList.readMembers(reader, importErrors);
+
+        // The staging list indexes its own copies of the existing members, since indexing changes a member's slot
+        ArrayList<Member> newTeam = new ArrayList<>(existingMembers.size() + importedMembers.size());
+        for (Member m : existingMembers) {
+            Member copy = new Member(m.getFirstName(), m.getLastname(), m.getEmail(), m.getGrade(), m.getSubteam(), m.getEventID());
+            copy.setId(m.getId());
+            newTeam.add(copy);
+        }
+        newTeam.addAll(importedMembers);
+
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Import cancelled");
+        }
+
+        // One sort and one pass of indexing for the whole team
+        staged.addMembers(newTeam);
+
+        // Save the new team in the target's storage format, so the journal doesn't have to record every imported member
+        snapshot = target.getStorage().getImportFile();
+        try {
+            snapshotChecksum = target.getStorage().write(staged.getMembers(), staged.isSortByFirstName(), snapshot);
+        }
+        catch (InterruptedIOException error) {
+            snapshot.delete();
+            snapshot = null;
+            throw error;
+        }
+        catch (IOException error) {
+            System.out.println("Error in exporting file");
+            snapshot.delete();
+            snapshot = null;
+        }
+    }
+
+    /**
+     * Put the imported members on the team. Must be called on the Gui thread after run() finished
+     */
+    public void apply() {
+        if (target.getVersion() == startVersion && snapshot != null) {
+            target.replaceWith(staged, importedMembers, keepExisting, snapshot, snapshotChecksum);
+            return;
+        }
+
+        // The team changed while importing (or the snapshot couldn't be saved), so add the imported members on top of the current team
+        if (snapshot != null) {
+            snapshot.delete();
+        }
+        if (!keepExisting) {
+            target.deleteAll();
+        }
+
+        ArrayList<Member> copies = new ArrayList<>(importedMembers.size());
+        for (Member m : importedMembers) {
+            copies.add(new Member(m.getFirstName(), m.getLastname(), m.getEmail(), m.getGrade(), m.getSubteam(), m.getEventID()));
+        }
+        target.addMembers(copies);
+    }
+
+    /**
+     * Remove the snapshot file of an import that was cancelled or failed
+     */
+    public void discard() {
+        if (snapshot != null) {
+            snapshot.delete();
+            snapshot = null;
+        }
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Accessor method to get the rows of the file that could not be imported
+     * @return ArrayList containing a description of each skipped row
+     */
+    public ArrayList<String> getImportErrors() {
+        return importErrors;
+    }
+
+    /**
+     * Accessor method to get the number of members read from the file
+     * @return the number of imported members (0 if run() has not finished)
+     */
+    public int getNumImported() {
+        if (importedMembers == null) {
+            return 0;
+        }
+        return importedMembers.size();
+    }
+}
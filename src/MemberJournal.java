@@ -0,0 +1,320 @@
+package DecaTeamOrganizer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * MemberJournal Class that appends a record for every change made to a TeamList to a journal file, so changes
+ * are saved as they happen instead of only when the program is closed.
+ * The first record of the journal identifies the snapshot (storage file) that the changes are applied on top of.
+ * Add, delete and edit records start with the member's ID (the snapshot saves IDs too), so they are replayed by ID instead of searching for the member.
+ * Records written by older versions have no ID, and are replayed by searching for a member with the same information.
+ * Records are written to the file when committed and forced to disk in groups, so saving costs O(1) per change.
+ * Forcing can also be left to another thread (i.e. an AutoSaver) with setSyncOnCommit(false) and force()
+ * @author Hugh Jiang
+ */
+public class MemberJournal {
+
+    // Constants
+    final static int GROUP_COMMIT_SIZE = 64;
+    final static long GROUP_COMMIT_MILLIS = 1000;
+    final static char SNAPSHOT_RECORD = 'S';
+    final static char ADD_RECORD = 'A';
+    final static char DELETE_RECORD = 'D';
+    final static char EDIT_RECORD = 'E';
+    final static char CLEAR_RECORD = 'C';
+    // Number of fields written for each member
+    final static int MEMBER_FIELDS = 6;
+
+    // Instance variables
+    private FileOutputStream output;
+    private Writer writer;
+    private StringBuilder pending;
+    private int numRecords;
+    private int unsyncedRecords;
+    private long lastSyncTime;
+    private boolean syncOnCommit;
+
+    /**
+     * Constructor opens the journal file for appending
+     * @param fileName the String containing the path and name of the journal file
+     * @throws IOException if the journal file cannot be opened
+     */
+    public MemberJournal(String fileName) throws IOException {
+        this(fileName, 0);
+    }
+
+    /**
+     * Constructor opens a journal file that already has records (i.e. ones that were replayed) for appending
+     * @param fileName the String containing the path and name of the journal file
+     * @param numRecords the number of change records already in the file
+     * @throws IOException if the journal file cannot be opened
+     */
+    public MemberJournal(String fileName, int numRecords) throws IOException {
+        output = new FileOutputStream(fileName, true);
+        writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        pending = new StringBuilder();
+        this.numRecords = numRecords;
+        unsyncedRecords = 0;
+        lastSyncTime = System.currentTimeMillis();
+        syncOnCommit = true;
+    }
+
+
+    // Static Methods
+
+    /**
+     * Get the header record that identifies a snapshot file by its length and last modified time
+     * @param snapshot the snapshot File
+     * @return the header record for the snapshot
+     */
+    static String getSnapshotRecord(File snapshot) {
+        return SNAPSHOT_RECORD + "," + snapshot.length() + "," + snapshot.lastModified();
+    }
+
+    /**
+     * Split a journal record into its fields
+     * @param record the String containing one line of the journal
+     * @return the array of fields, or null if the record is incomplete or damaged (i.e. the program crashed while writing it)
+     */
+    static String[] parseRecord(String record) {
+        ArrayList<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < record.length(); i++) {
+            char c = record.charAt(i);
+
+            if (quoted) {
+                if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    // Doubled quote inside a quoted field
+                    field.append('"');
+                    i++;
+                }
+                else if (c == '"') {
+                    quoted = false;
+                }
+                else {
+                    field.append(c);
+                }
+            }
+            else if (c == '"') {
+                quoted = true;
+            }
+            else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            }
+            else {
+                field.append(c);
+            }
+        }
+
+        // An unclosed quote means the record was cut off
+        if (quoted || record.isEmpty()) {
+            return null;
+        }
+        fields.add(field.toString());
+
+        // Check that the record has the right number of fields for its type
+        int expectedFields;
+        boolean memberRecord = true;
+        switch (fields.get(0)) {
+            case "A":
+            case "D":
+                expectedFields = 2 + MEMBER_FIELDS;
+                break;
+            case "E":
+                expectedFields = 2 + 2 * MEMBER_FIELDS;
+                break;
+            case "C":
+                expectedFields = 1;
+                memberRecord = false;
+                break;
+            case "S":
+                expectedFields = 3;
+                memberRecord = false;
+                break;
+            default:
+                return null;
+        }
+        // Member records written by older versions have no ID field
+        if (fields.size() != expectedFields && !(memberRecord && fields.size() == expectedFields - 1)) {
+            return null;
+        }
+
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Check if an add, delete or edit record starts with the member's ID (records written by older versions don't)
+     * @param fields the array of fields in the record, from parseRecord()
+     * @return true if fields[1] is the member's ID, and their information starts at fields[2]
+     */
+    static boolean hasMemberId(String[] fields) {
+        if (fields[0].charAt(0) == EDIT_RECORD) {
+            return fields.length == 2 + 2 * MEMBER_FIELDS;
+        }
+        return fields.length == 2 + MEMBER_FIELDS;
+    }
+
+    /**
+     * Create a Member from the fields of a journal record
+     * @param fields the array of fields in the record
+     * @param start the index of the first field of the member
+     * @return the Member stored in the record
+     * @throws NumberFormatException if the grade field is damaged
+     */
+    static Member parseMember(String[] fields, int start) {
+        return new Member(fields[start], fields[start + 1], fields[start + 2], Integer.parseInt(fields[start + 3]),
+                fields[start + 4], fields[start + 5]);
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Add the fields of a member to the pending record
+     * @param m the Member to be written
+     */
+    private void appendMember(Member m) {
+        pending.append(',').append(CsvReader.escapeField(m.getFirstName()));
+        pending.append(',').append(CsvReader.escapeField(m.getLastname()));
+        pending.append(',').append(CsvReader.escapeField(m.getEmail()));
+        pending.append(',').append(m.getGrade());
+        pending.append(',').append(CsvReader.escapeField(m.getSubteam()));
+        pending.append(',').append(CsvReader.escapeField(m.getEventID()));
+    }
+
+    /**
+     * Finish the pending record
+     */
+    private void endRecord() {
+        pending.append('\n');
+        numRecords++;
+        unsyncedRecords++;
+    }
+
+    /**
+     * Record that a member was added. The record is written to the file on the next commit
+     * @param m the Member that was added
+     */
+    public void logAdd(Member m) {
+        pending.append(ADD_RECORD).append(',').append(m.getId());
+        appendMember(m);
+        endRecord();
+    }
+
+    /**
+     * Record that a member was deleted. The record is written to the file on the next commit
+     * @param m the Member that was deleted
+     */
+    public void logDelete(Member m) {
+        pending.append(DELETE_RECORD).append(',').append(m.getId());
+        appendMember(m);
+        endRecord();
+    }
+
+    /**
+     * Record that a member was edited. The record is written to the file on the next commit
+     * @param original the Member before the edit
+     * @param edited the Member after the edit
+     */
+    public void logEdit(Member original, Member edited) {
+        pending.append(EDIT_RECORD).append(',').append(original.getId());
+        appendMember(original);
+        appendMember(edited);
+        endRecord();
+    }
+
+    /**
+     * Record that all members were deleted. The record is written to the file on the next commit
+     */
+    public void logClear() {
+        pending.append(CLEAR_RECORD);
+        endRecord();
+    }
+
+    /**
+     * Write the pending records to the journal file. The file is forced to disk once a group of records
+     * has built up or enough time has passed since the last time it was forced (unless forcing was left to another thread)
+     * @throws IOException if the records cannot be written
+     */
+    public void commit() throws IOException {
+        if (pending.length() > 0) {
+            writer.write(pending.toString());
+            pending.setLength(0);
+        }
+        writer.flush();
+
+        if (syncOnCommit && (unsyncedRecords >= GROUP_COMMIT_SIZE || System.currentTimeMillis() - lastSyncTime >= GROUP_COMMIT_MILLIS)) {
+            sync();
+        }
+    }
+
+    /**
+     * Force the records that were already committed to disk. Unlike the other methods, this can be called from
+     * a different thread than the one recording changes, since it doesn't touch the pending records
+     * @throws IOException if the journal cannot be forced to disk
+     */
+    public void force() throws IOException {
+        output.getChannel().force(false);
+    }
+
+    /**
+     * Write the pending records and force the journal file to disk
+     * @throws IOException if the records cannot be written
+     */
+    public void sync() throws IOException {
+        if (pending.length() > 0) {
+            writer.write(pending.toString());
+            pending.setLength(0);
+        }
+        writer.flush();
+        output.getChannel().force(false);
+
+        unsyncedRecords = 0;
+        lastSyncTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Empty the journal and start it over on top of a new snapshot. Called after the changes in the journal were saved to the snapshot
+     * @param snapshot the snapshot File that the journal's records will be applied on top of
+     * @throws IOException if the journal cannot be reset
+     */
+    public void reset(File snapshot) throws IOException {
+        pending.setLength(0);
+        writer.flush();
+        output.getChannel().truncate(0);
+
+        pending.append(getSnapshotRecord(snapshot)).append('\n');
+        numRecords = 0;
+        sync();
+    }
+
+    /**
+     * Force any remaining records to disk and close the journal file
+     * @throws IOException if the journal cannot be closed
+     */
+    public void close() throws IOException {
+        sync();
+        writer.close();
+    }
+
+    /**
+     * Mutator method to set whether commit() forces the journal to disk
+     * @param syncOnCommit false if another thread forces the journal with force()
+     */
+    public void setSyncOnCommit(boolean syncOnCommit) {
+        this.syncOnCommit = syncOnCommit;
+    }
+
+    /**
+     * Accessor method to get the number of change records in the journal
+     * @return the number of records since the journal was last reset
+     */
+    public int getNumRecords() {
+        return numRecords;
+    }
+}
@@ -0,0 +1,508 @@
+package DecaTeamOrganizer;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+
+/**
+ * MemberQuery Class that compiles a query in a small query language into a plan that selects members using the team's indexes.
+ * <pre>
+ * grade:10  grade:9..11  grade:&gt;=11   members in a grade or a range of grades (also &gt;, &lt; and &lt;=)
+ * subteam:Finance  subteam:"Business Administration"  subteam:none
+ * event:BFS
+ * wang  "van der"              members whose name, email, or event ID contain the text (ignoring case)
+ * a AND b,  a b                both (AND is optional)
+ * a OR b                       either (AND is applied before OR)
+ * NOT a                        not a
+ * ( ... )                      grouping
+ * </pre>
+ * For example {@code grade:10..11 (subteam:Finance OR event:BFS) NOT "wang"}.
+ * Operators must be written in capitals, so words like "and" are searched for as text.
+ * Grade, subteam, and event predicates read the bitmap indexes, text predicates use the trigram index, and AND evaluates
+ * the cheapest predicates first so text is only checked against the members that are still left
+ * @author Hugh Jiang
+ */
+public class MemberQuery {
+
+    // Constants
+    final static int GRADE_PREDICATE_COST = 0;
+    final static int BITMAP_PREDICATE_COST = 1;
+    final static int TEXT_PREDICATE_COST = 2;
+
+    /**
+     * Step of a query plan
+     */
+    static abstract class Node {
+        /**
+         * Find the slots of the members that match this step
+         * @param team the TeamList being queried (locked by the caller)
+         * @param within the slots the result will be narrowed to (null for every member). Steps can use it to skip work,
+         *               but may also return slots outside of it
+         * @return the BitSet of matching slots, which the caller may modify
+         */
+        abstract BitSet evaluate(TeamList team, BitSet within);
+
+        /**
+         * Get the relative cost of evaluating this step, used to order the steps of an AND
+         * @return the cost (bitmap lookups are cheapest)
+         */
+        abstract int getCost();
+    }
+
+    /**
+     * Members in a range of grades
+     */
+    static class GradeNode extends Node {
+        int min;
+        int max;
+
+        GradeNode(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        BitSet evaluate(TeamList team, BitSet within) {
+            return team.getGradeSlots(min, max);
+        }
+
+        int getCost() {
+            return GRADE_PREDICATE_COST;
+        }
+
+        public String toString() {
+            if (min == max) {
+                return "grade:" + min;
+            }
+            return "grade:" + min + ".." + max;
+        }
+    }
+
+    /**
+     * Members in a subteam or event
+     */
+    static class FieldNode extends Node {
+        String field;
+        String value;
+
+        FieldNode(String field, String value) {
+            this.field = field;
+            this.value = value;
+        }
+
+        BitSet evaluate(TeamList team, BitSet within) {
+            if (field.equals("subteam")) {
+                return team.getSubteamSlots(value);
+            }
+            return team.getEventSlots(value);
+        }
+
+        int getCost() {
+            return BITMAP_PREDICATE_COST;
+        }
+
+        public String toString() {
+            return field + ":\"" + value + "\"";
+        }
+    }
+
+    /**
+     * Members containing a word or phrase
+     */
+    static class TextNode extends Node {
+        String text;
+
+        TextNode(String text) {
+            this.text = text;
+        }
+
+        BitSet evaluate(TeamList team, BitSet within) {
+            return team.getSlotsContaining(text, within);
+        }
+
+        int getCost() {
+            return TEXT_PREDICATE_COST;
+        }
+
+        public String toString() {
+            return "\"" + text + "\"";
+        }
+    }
+
+    /**
+     * Members not matching a step
+     */
+    static class NotNode extends Node {
+        Node operand;
+
+        NotNode(Node operand) {
+            this.operand = operand;
+        }
+
+        BitSet evaluate(TeamList team, BitSet within) {
+            BitSet slots;
+            if (within == null) {
+                slots = team.getAllSlots();
+            }
+            else {
+                slots = (BitSet) within.clone();
+            }
+            slots.andNot(operand.evaluate(team, slots));
+            return slots;
+        }
+
+        int getCost() {
+            return operand.getCost();
+        }
+
+        public String toString() {
+            return "NOT " + operand;
+        }
+    }
+
+    /**
+     * Members matching every step
+     */
+    static class AndNode extends Node {
+        ArrayList<Node> operands = new ArrayList<>();
+
+        BitSet evaluate(TeamList team, BitSet within) {
+            // Cheap bitmap steps narrow the result before text has to be checked, and negated steps are removed last
+            ArrayList<Node> ordered = new ArrayList<>(operands);
+            ordered.sort(Comparator.comparing((Node operand) -> operand instanceof NotNode).thenComparingInt(Node::getCost));
+
+            BitSet slots = null;
+            if (within != null) {
+                slots = (BitSet) within.clone();
+            }
+
+            for (Node operand : ordered) {
+                if (slots != null && slots.isEmpty()) {
+                    break;
+                }
+
+                // Negated steps only have to be evaluated on the members that are left, then removed from them
+                if (operand instanceof NotNode) {
+                    if (slots == null) {
+                        slots = team.getAllSlots();
+                    }
+                    slots.andNot(((NotNode) operand).operand.evaluate(team, slots));
+                }
+                else if (slots == null) {
+                    slots = operand.evaluate(team, null);
+                }
+                else {
+                    slots.and(operand.evaluate(team, slots));
+                }
+            }
+            return slots;
+        }
+
+        int getCost() {
+            int cost = Integer.MAX_VALUE;
+            for (Node operand : operands) {
+                cost = Math.min(cost, operand.getCost());
+            }
+            return cost;
+        }
+
+        public String toString() {
+            return "AND" + operands;
+        }
+    }
+
+    /**
+     * Members matching at least one step
+     */
+    static class OrNode extends Node {
+        ArrayList<Node> operands = new ArrayList<>();
+
+        BitSet evaluate(TeamList team, BitSet within) {
+            BitSet slots = new BitSet();
+            for (Node operand : operands) {
+                slots.or(operand.evaluate(team, within));
+            }
+            return slots;
+        }
+
+        int getCost() {
+            int cost = 0;
+            for (Node operand : operands) {
+                cost = Math.max(cost, operand.getCost());
+            }
+            return cost;
+        }
+
+        public String toString() {
+            return "OR" + operands;
+        }
+    }
+
+    // Instance variables
+    private String query;
+    private ArrayList<String> tokens;
+    private ArrayList<Integer> tokenPositions;
+    private int current; // index of the next token
+    private Node plan;
+
+    /**
+     * Constructor that compiles a query
+     * @param query the String query (see the class description)
+     * @throws ParseException if the query is not valid, with the position of the problem in the query
+     */
+    public MemberQuery(String query) throws ParseException {
+        this.query = query;
+        tokenize();
+        current = 0;
+
+        if (tokens.isEmpty()) {
+            throw new ParseException("The query is empty", 0);
+        }
+        plan = parseOr();
+
+        if (current < tokens.size()) {
+            throw new ParseException("Unexpected \"" + tokens.get(current) + "\"", tokenPositions.get(current));
+        }
+    }
+
+
+    // Static Methods
+
+    /**
+     * Check if a search looks like it was written in the query language (it has a field, quotes, brackets, or an operator)
+     * rather than being plain text for TeamList.getSearch()
+     * @param search the String that was searched for
+     * @return boolean indicating if the search should be compiled as a query
+     */
+    public static boolean isQuery(String search) {
+        return search.matches("(?s).*(\\b(grade|subteam|event):|[\"()]|\\b(AND|OR|NOT)\\b).*");
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Split the query into tokens: brackets, quoted phrases (kept with their quotes), and words.
+     * A field followed by a quoted value (i.e. subteam:"Business Administration") is a single token
+     * @throws ParseException if a quote is not closed
+     */
+    private void tokenize() throws ParseException {
+        tokens = new ArrayList<>();
+        tokenPositions = new ArrayList<>();
+        int i = 0;
+
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            int start = i;
+
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            if (c == '(' || c == ')') {
+                i++;
+            }
+            else {
+                // Read a word (which may end with a quoted value) or a quoted phrase
+                while (i < query.length() && !Character.isWhitespace(query.charAt(i)) && query.charAt(i) != '(' && query.charAt(i) != ')') {
+                    if (query.charAt(i) == '"') {
+                        int close = query.indexOf('"', i + 1);
+                        if (close < 0) {
+                            throw new ParseException("Missing closing quote", i);
+                        }
+                        i = close;
+                    }
+                    i++;
+                }
+            }
+            tokens.add(query.substring(start, i));
+            tokenPositions.add(start);
+        }
+    }
+
+    /**
+     * Parse the operands of OR (the lowest precedence)
+     * @return the plan Node
+     * @throws ParseException if the query is not valid
+     */
+    private Node parseOr() throws ParseException {
+        Node first = parseAnd();
+        if (!peek("OR")) {
+            return first;
+        }
+
+        OrNode or = new OrNode();
+        or.operands.add(first);
+        while (peek("OR")) {
+            current++;
+            or.operands.add(parseAnd());
+        }
+        return or;
+    }
+
+    /**
+     * Parse the operands of AND, which may be written as AND or left out
+     * @return the plan Node
+     * @throws ParseException if the query is not valid
+     */
+    private Node parseAnd() throws ParseException {
+        Node first = parseNot();
+        AndNode and = new AndNode();
+        and.operands.add(first);
+
+        while (current < tokens.size() && !peek("OR") && !peek(")")) {
+            if (peek("AND")) {
+                current++;
+            }
+            and.operands.add(parseNot());
+        }
+
+        if (and.operands.size() == 1) {
+            return first;
+        }
+        return and;
+    }
+
+    /**
+     * Parse NOT followed by its operand, or a single predicate
+     * @return the plan Node
+     * @throws ParseException if the query is not valid
+     */
+    private Node parseNot() throws ParseException {
+        if (peek("NOT")) {
+            current++;
+            return new NotNode(parseNot());
+        }
+        return parsePredicate();
+    }
+
+    /**
+     * Parse a bracketed query, a field predicate, or text
+     * @return the plan Node
+     * @throws ParseException if the query is not valid
+     */
+    private Node parsePredicate() throws ParseException {
+        if (current >= tokens.size()) {
+            throw new ParseException("The query ends where a search term was expected", query.length());
+        }
+        String token = tokens.get(current);
+        int position = tokenPositions.get(current);
+
+        if (token.equals("AND") || token.equals("OR") || token.equals(")")) {
+            throw new ParseException("Expected a search term before \"" + token + "\"", position);
+        }
+        current++;
+
+        if (token.equals("(")) {
+            Node inner = parseOr();
+            if (!peek(")")) {
+                throw new ParseException("Missing closing bracket", query.length());
+            }
+            current++;
+            return inner;
+        }
+
+        int colon = token.indexOf(':');
+        if (colon > 0 && !token.startsWith("\"")) {
+            String field = token.substring(0, colon).toLowerCase();
+            String value = unquote(token.substring(colon + 1));
+
+            if (value.isEmpty()) {
+                throw new ParseException("Missing value for " + field, position);
+            }
+            switch (field) {
+                case "grade":
+                    return parseGrade(value, position);
+                case "subteam":
+                case "event":
+                    return new FieldNode(field, value);
+                default:
+                    // Not a field, i.e. a search for a time like "10:30"
+                    break;
+            }
+        }
+
+        String text = unquote(token);
+        if (text.isEmpty()) {
+            throw new ParseException("Empty phrase", position);
+        }
+        return new TextNode(text);
+    }
+
+    /**
+     * Parse the value of a grade predicate: a grade, a range (9..11), or a comparison (&gt;=10, &gt;10, &lt;=11, &lt;12)
+     * @param value the String after "grade:"
+     * @param position the position of the predicate in the query
+     * @return the GradeNode
+     * @throws ParseException if the value is not a grade
+     */
+    private GradeNode parseGrade(String value, int position) throws ParseException {
+        try {
+            int range = value.indexOf("..");
+            if (range >= 0) {
+                return new GradeNode(Integer.parseInt(value.substring(0, range)), Integer.parseInt(value.substring(range + 2)));
+            }
+            if (value.startsWith(">=")) {
+                return new GradeNode(Integer.parseInt(value.substring(2)), Integer.MAX_VALUE);
+            }
+            if (value.startsWith("<=")) {
+                return new GradeNode(Integer.MIN_VALUE, Integer.parseInt(value.substring(2)));
+            }
+            if (value.startsWith(">")) {
+                return new GradeNode(Integer.parseInt(value.substring(1)) + 1, Integer.MAX_VALUE);
+            }
+            if (value.startsWith("<")) {
+                return new GradeNode(Integer.MIN_VALUE, Integer.parseInt(value.substring(1)) - 1);
+            }
+            int grade = Integer.parseInt(value);
+            return new GradeNode(grade, grade);
+        }
+        catch (NumberFormatException error) {
+            throw new ParseException("\"" + value + "\" is not a grade or range of grades", position);
+        }
+    }
+
+    /**
+     * Check if the next token is a keyword or bracket
+     * @param keyword the String to compare with
+     * @return boolean indicating if the next token equals the keyword
+     */
+    private boolean peek(String keyword) {
+        return current < tokens.size() && tokens.get(current).equals(keyword);
+    }
+
+    /**
+     * Remove the double quotes around a value
+     * @param value the String that may be quoted
+     * @return the value without its quotes
+     */
+    private static String unquote(String value) {
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    /**
+     * Find the slots of the members matching the query
+     * @param team the TeamList being queried (locked by the caller)
+     * @param within the slots to search in (null for every member)
+     * @return the BitSet of matching slots, all of which are in within
+     */
+    BitSet evaluate(TeamList team, BitSet within) {
+        BitSet slots = plan.evaluate(team, within);
+        if (within != null) {
+            slots.and(within);
+        }
+        return slots;
+    }
+
+    /**
+     * Describe the compiled plan, i.e. AND[grade:10, subteam:"Finance", "wang"]
+     * @return the String description of the plan
+     */
+    public String toString() {
+        return plan.toString();
+    }
+}
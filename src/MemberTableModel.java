@@ -0,0 +1,168 @@
+package DecaTeamOrganizer;
+
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * MemberTableModel Class that displays a List of Members in the Gui's main table.
+ * Cells are read directly from the Members when the table draws them, so showing a list doesn't copy it.
+ * When the table shows the full team list, changes to the TeamList are passed on to the table as single row inserts and deletes
+ * @author Hugh Jiang
+ */
+public class MemberTableModel extends AbstractTableModel implements TeamListListener {
+
+    // Constants
+    private static final long serialVersionUID = 1L;
+    final static String[] COLUMN_NAMES = {"First Name", "Last Name", "Grade", "Subteam", "Event", "Email"};
+
+    // Instance variables
+    private TeamList teamList;
+    private List<Member> members;
+
+    /**
+     * Constructor for a table model that shows the full team list of a TeamList
+     * @param teamList the TeamList to be displayed
+     */
+    public MemberTableModel(TeamList teamList) {
+        this.teamList = teamList;
+        this.members = teamList.getMembers();
+        teamList.addTeamListListener(this);
+    }
+
+
+    // Mutator Methods
+
+    /**
+     * Show a list of members in the table (i.e. the full team list, a filtered list, or search results)
+     * @param members the List of Members to be displayed
+     */
+    public void setMembers(List<Member> members) {
+        this.members = members;
+        fireTableDataChanged();
+    }
+
+    /**
+     * Check if the table is showing the full team list
+     * @return true if the full team list is displayed
+     */
+    private boolean showingMainList() {
+        return members == teamList.getMembers();
+    }
+
+    /**
+     * Update the table after a member is inserted into the team list
+     * @param index the index of the new Member in the full team list
+     */
+    @Override
+    public void memberInserted(int index) {
+        if (showingMainList()) {
+            fireTableRowsInserted(index, index);
+        }
+        else {
+            // A filtered list or search result may no longer match the team list, so show the current filtered list instead
+            setMembers(teamList.getFilteredList());
+        }
+    }
+
+    /**
+     * Update the table after a member is removed from the team list
+     * @param index the index the removed Member had in the full team list
+     */
+    @Override
+    public void memberRemoved(int index) {
+        if (showingMainList()) {
+            fireTableRowsDeleted(index, index);
+        }
+        else {
+            setMembers(teamList.getFilteredList());
+        }
+    }
+
+    /**
+     * Update the rows of the table for a range of the team list that changed
+     * @param firstIndex the first index in the full team list that changed
+     * @param lastIndex the last index in the full team list that changed
+     */
+    @Override
+    public void membersUpdated(int firstIndex, int lastIndex) {
+        if (showingMainList()) {
+            fireTableRowsUpdated(firstIndex, lastIndex);
+        }
+        else {
+            setMembers(teamList.getFilteredList());
+        }
+    }
+
+    /**
+     * Update the whole table after many members changed
+     */
+    @Override
+    public void membersChanged() {
+        setMembers(teamList.getFilteredList());
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Accessor method to get the Member displayed in a row of the table
+     * @param row the index of the row (in the model, not the view)
+     * @return the Member displayed in the row
+     */
+    public Member getMemberAt(int row) {
+        return members.get(row);
+    }
+
+    @Override
+    public int getRowCount() {
+        return members.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return String.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    /**
+     * Accessor method to get the value of a cell, read directly from the Member in the row
+     * @param row the index of the row
+     * @param column the index of the column
+     * @return the String displayed in the cell
+     */
+    @Override
+    public Object getValueAt(int row, int column) {
+        Member m = members.get(row);
+
+        switch (column) {
+            case 0:
+                return m.getFirstName();
+            case 1:
+                return m.getLastname();
+            case 2:
+                return String.valueOf(m.getGrade());
+            case 3:
+                return m.getSubteam();
+            case 4:
+                return m.getEventID();
+            case 5:
+                return m.getEmail();
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package DecaTeamOrganizer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * PhoneticIndex Class that finds members whose first or last name sounds like a spoken name (i.e. "Katherine" finds "Catherine").
+ * Each word of a member's first and last name is reduced to a Soundex-style code, and the slots of the members are stored
+ * in a hash map by code (see SlotList), so a lookup takes constant time no matter how many members there are
+ * @author Hugh Jiang
+ */
+public class PhoneticIndex {
+
+    // Constants
+    final static int CODE_LENGTH = 4;
+
+    // Soundex digit of each letter from A to Z. Vowels (and H, W, Y) are '0', which is not part of the code
+    final static String LETTER_CODES = "01230120022455012623010202";
+
+    // Instance variables
+    private HashMap<String, SlotList> slotsByCode;
+
+    /**
+     * Constructor initializes an empty index
+     */
+    public PhoneticIndex() {
+        clear();
+    }
+
+
+    // Static Methods
+
+    /**
+     * Calculate the phonetic code of a name. This is Soundex, except that the first letter is coded like the rest instead of
+     * being kept, so names starting with letters that sound the same (i.e. C and K, or F and P) get the same code.
+     * Names starting with a vowel start with 'A'
+     * @param name the name (one word, case is ignored)
+     * @return the code (i.e. "2365" for both Katherine and Catherine), or an empty String if the name has no letters
+     */
+    public static String getCode(String name) {
+        StringBuilder code = new StringBuilder(CODE_LENGTH);
+        char previous = ' ';
+
+        for (int i = 0; i < name.length() && code.length() < CODE_LENGTH; i++) {
+            char letter = Character.toUpperCase(name.charAt(i));
+            if (letter < 'A' || letter > 'Z') {
+                continue;
+            }
+            char digit = LETTER_CODES.charAt(letter - 'A');
+
+            if (code.length() == 0 && previous == ' ' && digit == '0') {
+                // Names that start with a vowel sound
+                code.append('A');
+            }
+            else if (digit != '0' && digit != previous) {
+                code.append(digit);
+            }
+
+            // Like Soundex, H and W do not separate letters with the same code, but vowels do
+            if (letter != 'H' && letter != 'W') {
+                previous = digit;
+            }
+        }
+
+        if (code.length() == 0) {
+            return "";
+        }
+        while (code.length() < CODE_LENGTH) {
+            code.append('0');
+        }
+        return code.toString();
+    }
+
+    /**
+     * Get the codes a member is indexed under, one for each word of their first and last name
+     * @param m the Member
+     * @return the ArrayList of different codes
+     */
+    private static ArrayList<String> getCodes(Member m) {
+        ArrayList<String> codes = new ArrayList<>(2);
+        addWordCodes(m.getFirstName(), codes);
+        addWordCodes(m.getLastname(), codes);
+        return codes;
+    }
+
+    /**
+     * Add the code of each word in a name (words are separated by spaces or hyphens, i.e. "Mary-Ann") to a list, skipping repeated codes
+     * @param name the first or last name
+     * @param codes the ArrayList of codes
+     */
+    private static void addWordCodes(String name, ArrayList<String> codes) {
+        int start = 0;
+        for (int i = 0; i <= name.length(); i++) {
+            if (i == name.length() || Character.isWhitespace(name.charAt(i)) || name.charAt(i) == '-') {
+                if (i > start) {
+                    String code = getCode(name.substring(start, i));
+                    if (!code.isEmpty() && !codes.contains(code)) {
+                        codes.add(code);
+                    }
+                }
+                start = i + 1;
+            }
+        }
+    }
+
+
+    // Mutator Methods
+
+    /**
+     * Add a member under the codes of their names. Members must be added in increasing order of their slots
+     * @param m the Member to be indexed
+     */
+    public void add(Member m) {
+        for (String code : getCodes(m)) {
+            SlotList slots = slotsByCode.get(code);
+
+            if (slots == null) {
+                slots = new SlotList();
+                slotsByCode.put(code, slots);
+            }
+            slots.add(m.getSlot());
+        }
+    }
+
+    /**
+     * Remove a member from the index
+     * @param m the Member to be removed
+     */
+    public void remove(Member m) {
+        for (String code : getCodes(m)) {
+            SlotList slots = slotsByCode.get(code);
+
+            if (slots != null) {
+                slots.remove(m.getSlot());
+                if (slots.getNumSlots() == 0) {
+                    slotsByCode.remove(code);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove every member from the index
+     */
+    public void clear() {
+        slotsByCode = new HashMap<>();
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Find the members with a first or last name that sounds like a name
+     * @param name the spoken name (one word)
+     * @return the BitSet of the slots of the matching members (empty if there are none)
+     */
+    public BitSet getSlots(String name) {
+        SlotList slots = slotsByCode.get(getCode(name));
+
+        if (slots == null) {
+            return new BitSet();
+        }
+        return slots.toBitSet();
+    }
+}
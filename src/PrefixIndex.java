@@ -0,0 +1,133 @@
+package DecaTeamOrganizer;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * PrefixIndex Class that suggests completions for the start of a first name, last name, or email, for autocomplete.
+ * Every distinct lowercase name and email (term) is kept once in a sorted map, so the terms starting with a prefix
+ * are next to each other: finding the first one takes logarithmic time, and each of the next N completions takes constant time
+ * @author Hugh Jiang
+ */
+public class PrefixIndex {
+
+    /**
+     * A term and the number of members who have it
+     */
+    private static class Term {
+        String display; // the term as it was first typed (i.e. with capitals)
+        int count;
+
+        Term(String display) {
+            this.display = display;
+            this.count = 0;
+        }
+    }
+
+    // Instance variables
+    private TreeMap<String, Term> terms;
+
+    /**
+     * Constructor initializes an empty index
+     */
+    public PrefixIndex() {
+        clear();
+    }
+
+
+    // Static Methods
+
+    /**
+     * Get the fields of a member that can be completed
+     * @param m the Member
+     * @return the array of the first name, last name, and email
+     */
+    private static String[] getFields(Member m) {
+        String[] fields = {m.getFirstName().trim(), m.getLastname().trim(), m.getEmail().trim()};
+        return fields;
+    }
+
+
+    // Mutator Methods
+
+    /**
+     * Add a member's first name, last name, and email
+     * @param m the Member to be indexed
+     */
+    public void add(Member m) {
+        for (String field : getFields(m)) {
+            if (field.isEmpty()) {
+                continue;
+            }
+
+            // toLowerCase() returns the same String if it is already lowercase (like most emails), so no copy is kept
+            String key = field.toLowerCase();
+            Term term = terms.get(key);
+            if (term == null) {
+                term = new Term(field);
+                terms.put(key, term);
+            }
+            term.count++;
+        }
+    }
+
+    /**
+     * Remove a member's first name, last name, and email. A term is removed when no member has it anymore
+     * @param m the Member to be removed
+     */
+    public void remove(Member m) {
+        for (String field : getFields(m)) {
+            String key = field.toLowerCase();
+            Term term = terms.get(key);
+
+            if (term != null) {
+                term.count--;
+                if (term.count <= 0) {
+                    terms.remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remove every term from the index
+     */
+    public void clear() {
+        terms = new TreeMap<>();
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Find the first names, last names, and emails that start with a prefix, in alphabetical order
+     * @param prefix the String that was typed (case is ignored)
+     * @param limit the largest number of completions
+     * @return the ArrayList of completions, as they were first typed (empty if the prefix is blank)
+     */
+    public ArrayList<String> getCompletions(String prefix, int limit) {
+        ArrayList<String> completions = new ArrayList<>();
+        String key = prefix.trim().toLowerCase();
+        if (key.isEmpty()) {
+            return completions;
+        }
+
+        // The terms starting with the prefix come right after it in sorted order, so read from the prefix until a term doesn't start with it
+        for (Map.Entry<String, Term> entry : terms.tailMap(key, true).entrySet()) {
+            if (completions.size() >= limit || !entry.getKey().startsWith(key)) {
+                break;
+            }
+            completions.add(entry.getValue().display);
+        }
+        return completions;
+    }
+
+    /**
+     * Accessor method to get the number of distinct terms in the index
+     * @return the number of terms
+     */
+    public int size() {
+        return terms.size();
+    }
+}
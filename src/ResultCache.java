@@ -0,0 +1,94 @@
+package DecaTeamOrganizer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ResultCache Class that remembers the results of recent searches or filters, so repeating one returns instantly.
+ * Keys must describe everything the result depends on (i.e. the query, the active filters, and the team's version),
+ * so a result is never returned after the team has changed. When the cache is full, the least recently used result is removed
+ * @param <V> the type of the cached results
+ * @author Hugh Jiang
+ */
+public class ResultCache<V> {
+
+    // Instance variables
+    private LinkedHashMap<String, V> results;
+    private long hits;
+    private long misses;
+
+    /**
+     * Constructor for an empty cache
+     * @param capacity the largest number of results kept
+     */
+    public ResultCache(final int capacity) {
+        // An access ordered LinkedHashMap keeps the least recently used entry first
+        results = new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > capacity;
+            }
+        };
+        hits = 0;
+        misses = 0;
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Get a cached result, counting it as a hit or a miss
+     * @param key the String describing the result
+     * @return the cached result, or null if it is not cached
+     */
+    public V get(String key) {
+        V result = results.get(key);
+        if (result == null) {
+            misses++;
+        }
+        else {
+            hits++;
+        }
+        return result;
+    }
+
+    /**
+     * Cache a result, removing the least recently used result if the cache is full
+     * @param key the String describing the result
+     * @param result the result, which must not be changed afterwards
+     */
+    public void put(String key, V result) {
+        results.put(key, result);
+    }
+
+    /**
+     * Remove every cached result. The hit and miss counts are kept
+     */
+    public void clear() {
+        results.clear();
+    }
+
+    /**
+     * Accessor method to get the number of lookups that found a cached result
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Accessor method to get the number of lookups that did not find a cached result
+     * @return the number of misses
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Accessor method to get the number of cached results
+     * @return the number of results
+     */
+    public int size() {
+        return results.size();
+    }
+}
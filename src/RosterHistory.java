@@ -0,0 +1,296 @@
+package DecaTeamOrganizer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RosterHistory Class that keeps the versions of a team as a chain of deltas: each version only stores the members that were
+ * added and removed by the change that created it. Members are never changed once they are on a team (an edit removes the member
+ * and adds a new one), so every version shares the same Member objects and a small edit costs a few references, however large the team is.
+ * The difference between any two versions is found by combining the deltas between them, so it takes time in proportion to those deltas.
+ * Members with the same ID and information count as the same member, so a copy of a member (i.e. from an import that kept the team) cancels out the original.
+ * The oldest versions are dropped once there are MAX_VERSIONS versions or the deltas hold MAX_DELTA_MEMBERS members
+ * @author Hugh Jiang
+ */
+public class RosterHistory {
+
+    // Constants
+    final static int MAX_VERSIONS = 10000;
+    final static long MAX_DELTA_MEMBERS = 4000000;
+    final static Member[] NO_MEMBERS = new Member[0];
+
+    /**
+     * A version of the team and the change that created it
+     */
+    public static class Version {
+        private long number;
+        private long time;
+        private String description;
+        private int numMembers;
+        private Member[] added;
+        private Member[] removed;
+
+        /**
+         * Constructor for a version
+         * @param number the version number
+         * @param description the String describing the change, i.e. "Deleted 3 members"
+         * @param numMembers the number of members on the team in this version
+         * @param added the array of Members added by the change
+         * @param removed the array of Members removed by the change
+         */
+        Version(long number, String description, int numMembers, Member[] added, Member[] removed) {
+            this.number = number;
+            this.time = System.currentTimeMillis();
+            this.description = description;
+            this.numMembers = numMembers;
+            this.added = added;
+            this.removed = removed;
+        }
+
+        /**
+         * Accessor method to get the version number
+         * @return the version number
+         */
+        public long getNumber() {
+            return number;
+        }
+
+        /**
+         * Accessor method to get the time the version was created
+         * @return the time in milliseconds
+         */
+        public long getTime() {
+            return time;
+        }
+
+        /**
+         * Accessor method to get the description of the change that created the version
+         * @return the description
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Accessor method to get the number of members on the team in this version
+         * @return the number of members
+         */
+        public int getNumMembers() {
+            return numMembers;
+        }
+    }
+
+    /**
+     * A member as a key of the changes in diff(), equal to any member with the same ID and information
+     */
+    private static class MemberKey {
+        private Member member;
+
+        /**
+         * Constructor for a key
+         * @param member the Member
+         */
+        MemberKey(Member member) {
+            this.member = member;
+        }
+
+        /**
+         * Two keys are equal if their members have the same ID and information
+         * @param other the other Object
+         * @return boolean indicating if the keys are equal
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof MemberKey)) {
+                return false;
+            }
+            Member m = ((MemberKey) other).member;
+            return member.getId() == m.getId() && member.equals(m);
+        }
+
+        /**
+         * Hash code from the member's ID and name, which is enough to tell most members apart
+         * @return the hash code
+         */
+        @Override
+        public int hashCode() {
+            return (member.getId() * 31 + member.getFirstName().hashCode()) * 31 + member.getLastname().hashCode();
+        }
+    }
+
+    /**
+     * The members to add and remove to turn one version of the team into another
+     */
+    public static class Diff {
+        private ArrayList<Member> added;
+        private ArrayList<Member> removed;
+
+        /**
+         * Constructor for a difference
+         * @param added the ArrayList of Members in the second version but not the first
+         * @param removed the ArrayList of Members in the first version but not the second
+         */
+        Diff(ArrayList<Member> added, ArrayList<Member> removed) {
+            this.added = added;
+            this.removed = removed;
+        }
+
+        /**
+         * Accessor method to get the members that are only in the second version
+         * @return the ArrayList of added Members
+         */
+        public ArrayList<Member> getAdded() {
+            return added;
+        }
+
+        /**
+         * Accessor method to get the members that are only in the first version
+         * @return the ArrayList of removed Members
+         */
+        public ArrayList<Member> getRemoved() {
+            return removed;
+        }
+    }
+
+    // Instance variables
+    private ArrayList<Version> versions; // oldest first, numbered one after another. The delta of the oldest version is never used
+    private long numDeltaMembers;
+
+    /**
+     * Constructor for a history that starts at the current team
+     * @param numMembers the number of members on the team
+     */
+    public RosterHistory(int numMembers) {
+        clear(numMembers);
+    }
+
+
+    // Mutator Methods
+
+    /**
+     * Forget every version, starting the history over at the current team
+     * @param numMembers the number of members on the team
+     */
+    public void clear(int numMembers) {
+        versions = new ArrayList<>();
+        versions.add(new Version(1, "Opened team", numMembers, NO_MEMBERS, NO_MEMBERS));
+        numDeltaMembers = 0;
+    }
+
+    /**
+     * Add a version for a change to the team. The members are copied into arrays, so the collections can be changed afterwards
+     * @param description the String describing the change
+     * @param numMembers the number of members on the team after the change
+     * @param added the Collection of Members added by the change
+     * @param removed the Collection of Members removed by the change
+     */
+    public void record(String description, int numMembers, Collection<Member> added, Collection<Member> removed) {
+        Member[] addedArray = added.isEmpty() ? NO_MEMBERS : added.toArray(NO_MEMBERS);
+        Member[] removedArray = removed.isEmpty() ? NO_MEMBERS : removed.toArray(NO_MEMBERS);
+
+        versions.add(new Version(getCurrentNumber() + 1, description, numMembers, addedArray, removedArray));
+        numDeltaMembers += addedArray.length + removedArray.length;
+
+        // Drop the oldest versions, but always keep the current one
+        while (versions.size() > 1 && (versions.size() > MAX_VERSIONS || numDeltaMembers > MAX_DELTA_MEMBERS)) {
+            Version oldest = versions.remove(0);
+            numDeltaMembers -= oldest.added.length + oldest.removed.length;
+        }
+
+        // The delta of the new oldest version led from a version that was dropped, so it can be released too
+        Version oldest = versions.get(0);
+        numDeltaMembers -= oldest.added.length + oldest.removed.length;
+        oldest.added = NO_MEMBERS;
+        oldest.removed = NO_MEMBERS;
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Find the members to add and remove to turn one version of the team into another, by combining the deltas
+     * of the versions between them (undoing them if the second version is older)
+     * @param from the number of the first version
+     * @param to the number of the second version
+     * @return the Diff, or null if either version is not in the history
+     */
+    public Diff diff(long from, long to) {
+        if (getVersion(from) == null || getVersion(to) == null) {
+            return null;
+        }
+
+        // Count +1 for each time a member is added and -1 for each time they are removed, so a member that was added and removed again cancels out
+        HashMap<MemberKey, Integer> changes = new HashMap<>();
+        if (from < to) {
+            for (long number = from + 1; number <= to; number++) {
+                Version version = getVersion(number);
+                addChanges(changes, version.added, 1);
+                addChanges(changes, version.removed, -1);
+            }
+        }
+        else {
+            for (long number = from; number > to; number--) {
+                Version version = getVersion(number);
+                addChanges(changes, version.added, -1);
+                addChanges(changes, version.removed, 1);
+            }
+        }
+
+        ArrayList<Member> added = new ArrayList<>();
+        ArrayList<Member> removed = new ArrayList<>();
+        for (Map.Entry<MemberKey, Integer> entry : changes.entrySet()) {
+            if (entry.getValue() > 0) {
+                added.add(entry.getKey().member);
+            }
+            else if (entry.getValue() < 0) {
+                removed.add(entry.getKey().member);
+            }
+        }
+        return new Diff(added, removed);
+    }
+
+    /**
+     * Add the changes of one delta to the count of each member
+     * @param changes the HashMap of counts
+     * @param members the array of Members in the delta
+     * @param change +1 if the members are added, -1 if they are removed
+     */
+    private static void addChanges(HashMap<MemberKey, Integer> changes, Member[] members, int change) {
+        for (Member m : members) {
+            MemberKey key = new MemberKey(m);
+            Integer count = changes.get(key);
+            changes.put(key, count == null ? change : count + change);
+        }
+    }
+
+    /**
+     * Get a version by its number
+     * @param number the version number
+     * @return the Version, or null if it is not in the history
+     */
+    public Version getVersion(long number) {
+        long index = number - versions.get(0).number;
+        if (index < 0 || index >= versions.size()) {
+            return null;
+        }
+        return versions.get((int) index);
+    }
+
+    /**
+     * Accessor method to get every version in the history
+     * @return the ArrayList of Versions, oldest first
+     */
+    public ArrayList<Version> getVersions() {
+        return new ArrayList<>(versions);
+    }
+
+    /**
+     * Accessor method to get the number of the current version
+     * @return the version number of the team as it is now
+     */
+    public long getCurrentNumber() {
+        return versions.get(versions.size() - 1).number;
+    }
+}
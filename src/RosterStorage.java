@@ -0,0 +1,113 @@
+package DecaTeamOrganizer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * RosterStorage Interface for the ways a TeamList can be saved between runs of the program. A TeamList is given its storage when it is
+ * created (SnapshotRosterStorage by default) and uses it in three ways:
+ * <ul>
+ * <li>open() loads the saved team when the program starts</li>
+ * <li>every change to the team is logged (logAdd() etc.) and committed, and force() makes the committed changes durable</li>
+ * <li>when needsCompaction() says so, the whole team is written with write() and becomes the saved team with install()</li>
+ * </ul>
+ * Except for force() (which the AutoSaver calls on its own thread), the methods are only called while holding the TeamList's lock,
+ * or on a copy of the team in the case of write()
+ * @author Hugh Jiang
+ */
+public interface RosterStorage {
+
+    /**
+     * Load the saved team into an empty TeamList, i.e. with the TeamList's add and delete methods. Changes made to the team while it
+     * is loaded are not logged
+     * @param team the empty TeamList
+     * @return boolean indicating if the saved team was intact (false if a damaged file had to be skipped or an older copy was loaded)
+     */
+    boolean open(TeamList team);
+
+    /**
+     * Log that a member was added. The change does not have to be written until commit()
+     * @param m the Member that was added (they already have an ID)
+     */
+    void logAdd(Member m);
+
+    /**
+     * Log that a member was deleted
+     * @param m the Member that was deleted
+     */
+    void logDelete(Member m);
+
+    /**
+     * Log that a member was edited
+     * @param original the Member before the edit
+     * @param edited the Member after the edit (they have the original member's ID)
+     */
+    void logEdit(Member original, Member edited);
+
+    /**
+     * Log that every member was deleted
+     */
+    void logClear();
+
+    /**
+     * Write the changes logged since the last commit, so they are saved if the program stops (but not necessarily if the computer does)
+     * @throws IOException if the changes cannot be written
+     */
+    void commit() throws IOException;
+
+    /**
+     * Force the committed changes to disk. Can be called on a different thread than the one changing the team
+     * @throws IOException if the changes cannot be forced to disk
+     */
+    void force() throws IOException;
+
+    /**
+     * Mutator method to set whether commit() forces changes to disk by itself
+     * @param syncOnCommit false if another thread calls force() (i.e. an AutoSaver)
+     */
+    void setSyncOnCommit(boolean syncOnCommit);
+
+    /**
+     * Check if the whole team should be written again with write() and install(), i.e. because the log of changes is long
+     * @return true if the team should be compacted
+     */
+    boolean needsCompaction();
+
+    /**
+     * Write a whole team to a file in this storage's format, without making it the saved team yet
+     * @param members the List of Members to be written
+     * @param sortedByFirstName true if the members are sorted by first name, false if they are sorted by last name
+     * @param target the File to write (getTempFile() or getImportFile())
+     * @return the String that install() needs to check the file (i.e. its checksum record)
+     * @throws IOException if the file cannot be written
+     * @throws java.io.InterruptedIOException if the thread writing the file was interrupted
+     */
+    String write(List<Member> members, boolean sortedByFirstName, File target) throws IOException;
+
+    /**
+     * Make a file written with write() the saved team, replacing the saved team and every change logged so far
+     * @param written the File that was written (it is renamed or deleted)
+     * @param checksum the String that write() returned
+     * @throws IOException if the file cannot be installed
+     */
+    void install(File written, String checksum) throws IOException;
+
+    /**
+     * Force every logged change to disk and close the storage. The storage is not used again until open() is called
+     * @throws IOException if the storage cannot be closed
+     */
+    void close() throws IOException;
+
+    /**
+     * Accessor method to get the file that compacted teams are written to before they are installed
+     * @return the temporary File
+     */
+    File getTempFile();
+
+    /**
+     * Accessor method to get the file that imported teams are written to on a background thread before they are installed
+     * @return the import File
+     */
+    File getImportFile();
+}
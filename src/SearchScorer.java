@@ -0,0 +1,102 @@
+package DecaTeamOrganizer;
+
+/**
+ * SearchScorer Class that scores how relevant a member is to a search, for ranked searches that only keep the best results.
+ * A longer matched part of the query always scores higher than a shorter one. Among matches of the same length,
+ * matches in a name score higher than matches in the event ID, which score higher than matches in the email,
+ * and matches at the start of a field or word score higher than matches in the middle
+ * @author Hugh Jiang
+ */
+public class SearchScorer {
+
+    // Constants
+    final static int MATCH_LENGTH_WEIGHT = 100; // larger than the highest bonus, so the length of the match decides first
+    final static int NAME_BONUS = 30;
+    final static int EVENT_BONUS = 20;
+    final static int EMAIL_BONUS = 10;
+    final static int FIELD_START_BONUS = 20;
+    final static int WORD_START_BONUS = 10;
+
+    /**
+     * Get the highest score a match of some length can have
+     * @param matchLength the length in bytes of the matched (partial) query
+     * @return the score of a match of that length at the start of a name
+     */
+    static int getMaxScore(int matchLength) {
+        return matchLength * MATCH_LENGTH_WEIGHT + NAME_BONUS + FIELD_START_BONUS;
+    }
+
+    /**
+     * Score a member for a (partial) query. Every occurrence of the query is scored and the best one is kept
+     * @param m the Member
+     * @param query the byte array of the query from Member.toSearchKey()
+     * @return the score, or -1 if the member does not contain the query
+     */
+    static int score(Member m, byte[] query) {
+        int position = m.searchKeyIndexOf(query, 0);
+        if (position < 0) {
+            return -1;
+        }
+
+        // The search key is "first last email event", and emails and event IDs don't contain spaces,
+        // so the last two spaces separate the name, email, and event ID
+        byte[] key = m.getSearchKey();
+        int eventStart = lastIndexOfSpace(key, key.length - 1) + 1;
+        int emailStart = lastIndexOfSpace(key, eventStart - 2) + 1;
+
+        int best = -1;
+        while (position >= 0) {
+            int fieldStart;
+            int bonus;
+            if (position >= eventStart) {
+                fieldStart = eventStart;
+                bonus = EVENT_BONUS;
+            }
+            else if (position >= emailStart) {
+                fieldStart = emailStart;
+                bonus = EMAIL_BONUS;
+            }
+            else {
+                fieldStart = 0;
+                bonus = NAME_BONUS;
+            }
+
+            if (position == fieldStart) {
+                bonus += FIELD_START_BONUS;
+            }
+            else if (isWordSeparator(key[position - 1])) {
+                bonus += WORD_START_BONUS;
+            }
+
+            best = Math.max(best, bonus);
+            position = m.searchKeyIndexOf(query, position + 1);
+        }
+
+        return query.length * MATCH_LENGTH_WEIGHT + best;
+    }
+
+    /**
+     * Find the last space in a search key at or before an index
+     * @param key the search key
+     * @param from the index to start looking backwards from
+     * @return the index of the space, or -1 if there is none
+     */
+    private static int lastIndexOfSpace(byte[] key, int from) {
+        for (int i = Math.min(from, key.length - 1); i >= 0; i--) {
+            if (key[i] == ' ') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check if a character separates words, so the character after it starts a word
+     * (i.e. the space in "mary ann", or the dot and at sign in "mary.ann@school.org")
+     * @param b the byte of the search key
+     * @return boolean indicating if the byte is a separator
+     */
+    private static boolean isWordSeparator(byte b) {
+        return b == ' ' || b == '.' || b == '-' || b == '_' || b == '@' || b == '\'';
+    }
+}
@@ -0,0 +1,154 @@
+package DecaTeamOrganizer;
+
+import java.util.BitSet;
+
+/**
+ * SlotList Class that stores the slots of the members under one index key as an increasing array of ints, which takes
+ * far less memory than a set of members. Removed slots are marked in place (stored as ~slot, which keeps the array in order),
+ * and the array is compacted once half of it has been removed
+ * @author Hugh Jiang
+ */
+public class SlotList {
+
+    // Constants
+    final static int DEFAULT_CAPACITY = 4;
+
+    // Instance variables
+    private int[] slots;
+    private int size;
+    private int numRemoved;
+
+    /**
+     * Constructor for an empty list
+     */
+    public SlotList() {
+        slots = new int[DEFAULT_CAPACITY];
+        size = 0;
+        numRemoved = 0;
+    }
+
+
+    // Mutator Methods
+
+    /**
+     * Add a slot. Slots must be added in increasing order
+     * @param slot the slot of the Member
+     */
+    public void add(int slot) {
+        if (size == slots.length) {
+            int[] larger = new int[slots.length * 2];
+            System.arraycopy(slots, 0, larger, 0, size);
+            slots = larger;
+        }
+        slots[size] = slot;
+        size++;
+    }
+
+    /**
+     * Remove a slot, if it is in the list
+     * @param slot the slot of the Member
+     */
+    public void remove(int slot) {
+        int index = indexOf(slot);
+        if (index < 0) {
+            return;
+        }
+        slots[index] = ~slot;
+        numRemoved++;
+
+        // Drop the removed slots once they make up half of the list
+        if (numRemoved > size / 2) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (slots[i] >= 0) {
+                    slots[kept] = slots[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            numRemoved = 0;
+        }
+    }
+
+    /**
+     * Binary search for a slot that has not been removed
+     * @param slot the slot to find
+     * @return the index of the slot, or -1 if it is not in the list or was removed
+     */
+    private int indexOf(int slot) {
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = slots[middle];
+            if (value < 0) {
+                // Removed slots are compared by the slot they had
+                value = ~value;
+            }
+
+            if (value < slot) {
+                low = middle + 1;
+            }
+            else if (value > slot) {
+                high = middle - 1;
+            }
+            else if (slots[middle] < 0) {
+                return -1;
+            }
+            else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Accessor method to get the number of slots that have not been removed
+     * @return the number of members in the list
+     */
+    public int getNumSlots() {
+        return size - numRemoved;
+    }
+
+    /**
+     * Copy the slots that have not been removed
+     * @return the array of slots in increasing order
+     */
+    public int[] toArray() {
+        int[] live = new int[size - numRemoved];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (slots[i] >= 0) {
+                live[count] = slots[i];
+                count++;
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Set the bits of every slot that has not been removed
+     * @param bits the BitSet to add the slots to
+     */
+    public void addTo(BitSet bits) {
+        for (int i = 0; i < size; i++) {
+            if (slots[i] >= 0) {
+                bits.set(slots[i]);
+            }
+        }
+    }
+
+    /**
+     * Copy the slots that have not been removed into a BitSet
+     * @return the new BitSet
+     */
+    public BitSet toBitSet() {
+        BitSet bits = new BitSet();
+        addTo(bits);
+        return bits;
+    }
+}
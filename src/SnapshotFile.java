@@ -0,0 +1,295 @@
+package DecaTeamOrganizer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * SnapshotFile Class that saves the whole team to a snapshot file (the storage file) without ever leaving a damaged file in its place.
+ * A snapshot is written to a temporary file (as a BinaryRoster, or as csv with write()), forced to disk, and renamed over the old snapshot,
+ * which is kept as a backup.
+ * The length and CRC-32 checksum of the snapshot and the backup are kept in a small checksum file next to them, so a snapshot
+ * that was cut off or damaged is noticed when it is loaded, and the backup is loaded instead
+ * @author Hugh Jiang
+ */
+public class SnapshotFile {
+
+    // Constants
+    final static int BUFFER_SIZE = 1 << 20;
+    final static String TEMP_SUFFIX = ".tmp";
+    final static String BACKUP_SUFFIX = ".bak";
+    final static String CHECKSUM_SUFFIX = ".sum";
+
+    // Instance variables
+    private File file;
+    private File backup;
+    private File checksumFile;
+    private boolean verified; // false if the snapshot in place did not match its checksum when it was loaded
+
+    /**
+     * Constructor for the snapshot stored in a file
+     * @param fileName the String containing the path and name of the snapshot file (i.e. storage.dat)
+     */
+    public SnapshotFile(String fileName) {
+        file = new File(fileName);
+        backup = new File(fileName + BACKUP_SUFFIX);
+        checksumFile = new File(fileName + CHECKSUM_SUFFIX);
+        verified = true;
+    }
+
+
+    // Static Methods
+
+    /**
+     * Write a list of members to a csv file through a large buffer, force the file to disk, and calculate its checksum while it is written
+     * @param members the List of Members to be written
+     * @param target the File to write (it is replaced if it exists)
+     * @return the checksum record of the file, i.e. "1048576,8f3a2c1d" (the length and CRC-32)
+     * @throws IOException if the file cannot be written
+     * @throws InterruptedIOException if the thread writing the file was interrupted
+     */
+    static String write(List<Member> members, File target) throws IOException {
+        CRC32 crc = new CRC32();
+
+        try (FileChannel channel = FileChannel.open(target.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // The checksum is calculated on the bytes on their way to the buffer, so the file doesn't have to be read again
+            OutputStream output = new CheckedOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE), crc);
+            Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+
+            TeamList.writeHeader(writer);
+            TeamList.writeMembers(writer, members);
+            writer.flush();
+
+            // Make sure the whole file is on disk before it can be renamed over the old one
+            channel.force(true);
+            return getChecksumRecord(channel.size(), crc.getValue());
+        }
+    }
+
+    /**
+     * Calculate the checksum of a file by reading it
+     * @param source the File to check
+     * @return the checksum record of the file (see write())
+     * @throws IOException if the file cannot be read
+     */
+    static String checksum(File source) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+        try (FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                crc.update(buffer);
+                buffer.clear();
+            }
+            return getChecksumRecord(channel.size(), crc.getValue());
+        }
+    }
+
+    /**
+     * Get the checksum record for a file's length and CRC-32
+     * @param length the length of the file in bytes
+     * @param crc the CRC-32 of the file
+     * @return the checksum record
+     */
+    static String getChecksumRecord(long length, long crc) {
+        return length + "," + Long.toHexString(crc);
+    }
+
+    /**
+     * Rename a file over another file in one step, so the target is always either the old file or the new one
+     * @param source the File to be renamed
+     * @param target the File to be replaced
+     * @throws IOException if the file cannot be renamed
+     */
+    static void replace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException error) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target);
+    }
+
+    /**
+     * Force the directory containing a file to disk, so a rename in it is not lost if the computer loses power.
+     * Not every system can do this (i.e. Windows), in which case nothing is done
+     * @param target the File whose directory is forced to disk
+     */
+    private static void syncDirectory(File target) {
+        File directory = target.getAbsoluteFile().getParentFile();
+
+        try (FileChannel channel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+        catch (IOException error) {
+            // Directories can't be opened or forced on this system, the rename is still atomic
+        }
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Find the snapshot to load: the snapshot file if it matches its checksum, otherwise the backup if it matches.
+     * A snapshot file saved before checksums were kept (no checksum file) is trusted
+     * @return the File to load (the damaged snapshot file if neither file matches, or null if there is no snapshot yet)
+     */
+    public File recover() {
+        ArrayList<String> records = readChecksums();
+
+        if (records.isEmpty()) {
+            verified = true;
+            return file.exists() ? file : null;
+        }
+
+        verified = matches(file, records);
+        if (verified) {
+            return file;
+        }
+        if (matches(backup, records)) {
+            System.out.println("Storage file is damaged, loading the backup " + backup.getName());
+            return backup;
+        }
+
+        System.out.println("Storage file and backup are damaged");
+        return file.exists() ? file : null;
+    }
+
+    /**
+     * Check if a file matches one of the checksum records
+     * @param source the File to check
+     * @param records the ArrayList of checksum records
+     * @return true if the file exists and matches a record
+     */
+    private boolean matches(File source, ArrayList<String> records) {
+        if (!source.exists()) {
+            return false;
+        }
+
+        // Compare the lengths first, so a file that was cut off doesn't have to be read
+        boolean lengthMatches = false;
+        for (String record : records) {
+            if (record.startsWith(source.length() + ",")) {
+                lengthMatches = true;
+            }
+        }
+        if (!lengthMatches) {
+            return false;
+        }
+
+        try {
+            return records.contains(checksum(source));
+        }
+        catch (IOException error) {
+            return false;
+        }
+    }
+
+    /**
+     * Make a file that was written with write() or BinaryRoster.write() the new snapshot. The old snapshot becomes the backup, unless it was damaged,
+     * in which case the backup is kept. If the program stops part way through, either the old or the new snapshot
+     * is in place and matches the checksum file
+     * @param written the File containing the new snapshot (it is renamed)
+     * @param checksum the checksum record that was returned when the file was written
+     * @throws IOException if the snapshot cannot be replaced
+     */
+    public void install(File written, String checksum) throws IOException {
+        ArrayList<String> records = readChecksums();
+        boolean keepOld = file.exists() && verified;
+
+        // Record the checksums of the new snapshot and the backup before any file is renamed
+        StringBuilder newRecords = new StringBuilder();
+        newRecords.append(checksum).append('\n');
+        if (keepOld) {
+            // A snapshot saved before checksums were kept has to be read once to get its checksum
+            newRecords.append(records.isEmpty() ? checksum(file) : records.get(0)).append('\n');
+        }
+        else if (records.size() > 1) {
+            newRecords.append(records.get(1)).append('\n');
+        }
+
+        File checksumTemp = new File(checksumFile.getPath() + TEMP_SUFFIX);
+        try (FileOutputStream output = new FileOutputStream(checksumTemp)) {
+            output.write(newRecords.toString().getBytes(StandardCharsets.UTF_8));
+            output.getChannel().force(true);
+        }
+        replace(checksumTemp, checksumFile);
+
+        if (keepOld) {
+            // A hard link keeps the old snapshot in place until the new one is renamed over it
+            Files.deleteIfExists(backup.toPath());
+            try {
+                Files.createLink(backup.toPath(), file.toPath());
+            }
+            catch (IOException | UnsupportedOperationException error) {
+                Files.move(file.toPath(), backup.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        replace(written, file);
+        verified = true;
+    }
+
+    /**
+     * Read the checksum records of the snapshot and the backup
+     * @return the ArrayList of records, the snapshot's first (empty if there is no checksum file)
+     */
+    private ArrayList<String> readChecksums() {
+        ArrayList<String> records = new ArrayList<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(checksumFile), StandardCharsets.UTF_8))) {
+            String record;
+            while ((record = reader.readLine()) != null) {
+                if (!record.isEmpty()) {
+                    records.add(record);
+                }
+            }
+        }
+        catch (FileNotFoundException error) {
+            // No checksum file means the snapshot was saved before checksums were kept
+        }
+        catch (IOException error) {
+            System.out.println("Error in reading checksum file");
+        }
+        return records;
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Accessor method to get the snapshot file
+     * @return the File containing the snapshot
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Accessor method to get the temporary file that new snapshots are written to before they are installed
+     * @return the temporary File
+     */
+    public File getTempFile() {
+        return new File(file.getPath() + TEMP_SUFFIX);
+    }
+
+    /**
+     * Accessor method to check if the snapshot file matched its checksum when it was last loaded
+     * @return false if the snapshot file was damaged
+     */
+    public boolean isVerified() {
+        return verified;
+    }
+}
@@ -0,0 +1,362 @@
+package DecaTeamOrganizer;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * SnapshotRosterStorage Class that saves a team as a snapshot file (a BinaryRoster installed by SnapshotFile) and a MemberJournal
+ * of the changes made since the snapshot was written. This is the default storage of a TeamList.
+ * Each change costs one journal record, and the journal is folded into a new snapshot once it has COMPACTION_THRESHOLD records.
+ * When the program starts, the snapshot is loaded and the journal is replayed on top of it, and the journal then carries on from there
+ * @author Hugh Jiang
+ */
+public class SnapshotRosterStorage implements RosterStorage {
+
+    // Constants
+    final static int COMPACTION_THRESHOLD = 5000;
+    final static String IMPORT_SUFFIX = ".import";
+
+    // Instance variables
+    private SnapshotFile snapshotFile;
+    private String journalFileName;
+    private File legacyFile; // csv storage file saved by older versions, loaded if there is no snapshot
+    private MemberJournal journal; // null until open() is called, or if the journal can't be opened
+    private boolean repairNeeded; // true if the saved team has to be written again (i.e. the backup was loaded)
+
+    /**
+     * Constructor for a storage in a snapshot file and a journal file
+     * @param fileName the String containing the path and name of the snapshot file (i.e. storage.dat)
+     * @param journalFileName the String containing the path and name of the journal file
+     * @param legacyFileName the String containing the path and name of a csv storage file saved by an older version (null if there is none)
+     */
+    public SnapshotRosterStorage(String fileName, String journalFileName, String legacyFileName) {
+        this.snapshotFile = new SnapshotFile(fileName);
+        this.journalFileName = journalFileName;
+        this.legacyFile = legacyFileName == null ? null : new File(legacyFileName);
+        this.repairNeeded = false;
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Load the team from the snapshot file, then replay the journal of changes made since the snapshot was written.
+     * If the snapshot doesn't match its checksum (i.e. it was damaged), the backup of the previous snapshot is loaded instead.
+     * A csv storage file from an older version is loaded if there is no snapshot, and saved again as a snapshot
+     * @param team the empty TeamList
+     * @return boolean indicating if the snapshot was intact (false if the backup or a damaged file had to be loaded)
+     */
+    @Override
+    public boolean open(TeamList team) {
+        File snapshot = snapshotFile.recover();
+        boolean intact = snapshotFile.isVerified();
+        boolean legacy = false;
+
+        if (snapshot == null && legacyFile != null && legacyFile.exists()) {
+            snapshot = legacyFile;
+            legacy = true;
+        }
+        if (snapshot != null) {
+            loadSnapshot(team, snapshot);
+        }
+
+        // The journal still applies to the backup if the program stopped while a new snapshot was being saved
+        int[] replayed = replayJournal(team, snapshot);
+
+        // The team has to be saved again if it didn't come from a good snapshot, or if the journal ends in a damaged record
+        // (records added after it would never be replayed)
+        repairNeeded = !intact || legacy || snapshot == null || replayed[1] > 0;
+
+        try {
+            journal = new MemberJournal(journalFileName, replayed[0]);
+
+            // Carry on with the journal if its changes apply to the snapshot, otherwise start it over on top of the snapshot
+            if (replayed[0] == 0 && !repairNeeded) {
+                journal.reset(snapshotFile.getFile());
+            }
+        }
+        catch (IOException error) {
+            // Changes will only be saved by compacting if the journal can't be opened
+            System.out.println("Error in opening journal file");
+            journal = null;
+        }
+        return intact;
+    }
+
+    /**
+     * Load the team from a snapshot file: a BinaryRoster, or a csv file saved by an older version
+     * @param team the TeamList to load the members into
+     * @param snapshot the snapshot File
+     */
+    private void loadSnapshot(TeamList team, File snapshot) {
+        if (!BinaryRoster.isBinaryRoster(snapshot)) {
+            team.importMembers(snapshot.getPath());
+            return;
+        }
+
+        try {
+            BinaryRoster roster = BinaryRoster.read(snapshot);
+            team.addSortedMembers(roster.getMembers(), roster.isSortedByFirstName());
+        }
+        catch (IOException error) {
+            System.out.println("Error in loading storage file");
+        }
+    }
+
+    /**
+     * Apply the changes recorded in the journal file to the team. Stops at the first damaged record, which is where the program stopped writing.
+     * The journal is skipped if it was not written on top of the snapshot that was loaded (i.e. it was already folded into the snapshot)
+     * @param team the TeamList to apply the changes to
+     * @param snapshot the snapshot File that the team was loaded from (null if there was none)
+     * @return an array with the number of changes that were applied, and 1 if the journal ended in a damaged record (0 if it didn't)
+     */
+    private int[] replayJournal(TeamList team, File snapshot) {
+        BufferedReader buffer;
+        String row;
+        int replayed = 0;
+        int damaged = 0;
+
+        try {
+            buffer = new BufferedReader(new InputStreamReader(new FileInputStream(journalFileName), "UTF-8"));
+
+            // The first record must match the snapshot the journal was started on
+            row = buffer.readLine();
+            if (row != null && snapshot != null && row.equals(MemberJournal.getSnapshotRecord(snapshot))) {
+
+                while ((row = buffer.readLine()) != null) {
+                    String[] fields = MemberJournal.parseRecord(row);
+
+                    // A record that can't be applied (i.e. its ID is already in use) is treated like a damaged record
+                    try {
+                        if (fields != null) {
+                            replayRecord(team, fields);
+                        }
+                    }
+                    catch (RuntimeException error) {
+                        fields = null;
+                    }
+
+                    if (fields == null) {
+                        System.out.println("Stopped replaying journal at damaged record " + (replayed + 1));
+                        damaged = 1;
+                        break;
+                    }
+                    replayed++;
+                }
+            }
+            buffer.close();
+        }
+        catch (FileNotFoundException error) {
+            // No journal means there are no changes to replay
+        }
+        catch (IOException error) {
+            System.out.println("Error in replaying journal file");
+            damaged = 1;
+        }
+
+        return new int[] {replayed, damaged};
+    }
+
+    /**
+     * Apply one journal record to the team. Members are found by the ID in the record, or by their information if the record
+     * was written by an older version without IDs
+     * @param team the TeamList to apply the change to
+     * @param fields the array of fields in the record, from MemberJournal.parseRecord()
+     * @throws NumberFormatException if a number in the record is damaged
+     * @throws IllegalStateException if an added member's ID is already in use
+     */
+    private void replayRecord(TeamList team, String[] fields) {
+        char type = fields[0].charAt(0);
+
+        if (type == MemberJournal.CLEAR_RECORD) {
+            team.deleteAll();
+            return;
+        }
+        if (!MemberJournal.hasMemberId(fields)) {
+            switch (type) {
+                case MemberJournal.ADD_RECORD:
+                    team.addMember(MemberJournal.parseMember(fields, 1));
+                    break;
+                case MemberJournal.DELETE_RECORD:
+                    team.deleteMember(MemberJournal.parseMember(fields, 1));
+                    break;
+                case MemberJournal.EDIT_RECORD:
+                    team.editMember(MemberJournal.parseMember(fields, 1), MemberJournal.parseMember(fields, 1 + MemberJournal.MEMBER_FIELDS));
+                    break;
+                default:
+                    break;
+            }
+            return;
+        }
+
+        int id = Integer.parseInt(fields[1]);
+        switch (type) {
+            case MemberJournal.ADD_RECORD:
+                if (team.getMemberById(id) != null) {
+                    throw new IllegalStateException("Member ID " + id + " is already in use");
+                }
+                Member m = MemberJournal.parseMember(fields, 2);
+                m.setId(id);
+                team.addMember(m);
+                break;
+            case MemberJournal.DELETE_RECORD:
+                team.deleteMemberById(id);
+                break;
+            case MemberJournal.EDIT_RECORD:
+                team.editMember(id, MemberJournal.parseMember(fields, 2 + MemberJournal.MEMBER_FIELDS));
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Log that a member was added
+     * @param m the Member that was added
+     */
+    @Override
+    public void logAdd(Member m) {
+        if (journal != null) {
+            journal.logAdd(m);
+        }
+    }
+
+    /**
+     * Log that a member was deleted
+     * @param m the Member that was deleted
+     */
+    @Override
+    public void logDelete(Member m) {
+        if (journal != null) {
+            journal.logDelete(m);
+        }
+    }
+
+    /**
+     * Log that a member was edited
+     * @param original the Member before the edit
+     * @param edited the Member after the edit
+     */
+    @Override
+    public void logEdit(Member original, Member edited) {
+        if (journal != null) {
+            journal.logEdit(original, edited);
+        }
+    }
+
+    /**
+     * Log that every member was deleted
+     */
+    @Override
+    public void logClear() {
+        if (journal != null) {
+            journal.logClear();
+        }
+    }
+
+    /**
+     * Write the logged changes to the journal file
+     * @throws IOException if the journal cannot be written
+     */
+    @Override
+    public void commit() throws IOException {
+        if (journal != null) {
+            journal.commit();
+        }
+    }
+
+    /**
+     * Force the journal to disk
+     * @throws IOException if the journal cannot be forced to disk
+     */
+    @Override
+    public void force() throws IOException {
+        MemberJournal activeJournal = journal;
+        if (activeJournal != null) {
+            activeJournal.force();
+        }
+    }
+
+    /**
+     * Mutator method to set whether the journal is forced to disk when changes are committed
+     * @param syncOnCommit false if another thread calls force()
+     */
+    @Override
+    public void setSyncOnCommit(boolean syncOnCommit) {
+        if (journal != null) {
+            journal.setSyncOnCommit(syncOnCommit);
+        }
+    }
+
+    /**
+     * Check if the journal should be folded into a new snapshot: it is long, it can't be written, or the snapshot needs repairing
+     * @return true if the team should be compacted
+     */
+    @Override
+    public boolean needsCompaction() {
+        return repairNeeded || journal == null || journal.getNumRecords() >= COMPACTION_THRESHOLD;
+    }
+
+    /**
+     * Write a team to a BinaryRoster file
+     * @param members the List of Members to be written
+     * @param sortedByFirstName true if the members are sorted by first name, false if they are sorted by last name
+     * @param target the File to write
+     * @return the checksum record of the file
+     * @throws IOException if the file cannot be written
+     */
+    @Override
+    public String write(List<Member> members, boolean sortedByFirstName, File target) throws IOException {
+        return BinaryRoster.write(members, sortedByFirstName, target);
+    }
+
+    /**
+     * Make a BinaryRoster file the snapshot (keeping the old snapshot as the backup) and start the journal over on top of it
+     * @param written the File that was written with write()
+     * @param checksum the checksum record of the file
+     * @throws IOException if the snapshot cannot be replaced
+     */
+    @Override
+    public void install(File written, String checksum) throws IOException {
+        snapshotFile.install(written, checksum);
+        repairNeeded = false;
+
+        if (journal != null) {
+            journal.reset(snapshotFile.getFile());
+        }
+    }
+
+    /**
+     * Force the journal to disk and close it. The journal is replayed on top of the snapshot the next time the storage is opened
+     * @throws IOException if the journal cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        if (journal != null) {
+            MemberJournal activeJournal = journal;
+            journal = null;
+            activeJournal.close();
+        }
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Accessor method to get the file that new snapshots are written to before they are installed
+     * @return the temporary File
+     */
+    @Override
+    public File getTempFile() {
+        return snapshotFile.getTempFile();
+    }
+
+    /**
+     * Accessor method to get the file that imported teams are written to
+     * @return the import File (i.e. storage.dat.import)
+     */
+    @Override
+    public File getImportFile() {
+        return new File(snapshotFile.getFile().getPath() + IMPORT_SUFFIX);
+    }
+}
@@ -0,0 +1,468 @@
+package DecaTeamOrganizer;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * SortedTable Class for the immutable files of a KeyValueStore. A table holds entries (String keys with byte array values, or
+ * tombstones for deleted keys) in increasing order of their keys. The entries are split into blocks of INDEX_INTERVAL entries,
+ * and only the first key and position of each block (the sparse index) are kept in memory, so a table can be much larger than the heap:
+ * finding a key reads one block.
+ * <p>
+ * Layout (big-endian): the entries, each a key, a flag (VALUE_FLAG or TOMBSTONE_FLAG) and, for values, the value;
+ * then the index, which is the number of blocks followed by the first key and position of each block;
+ * then the footer, which is the position of the index, the number of entries, and the magic number "DTKT".
+ * Keys and values are written as a 4 byte length followed by the bytes (keys are UTF-8)
+ * @author Hugh Jiang
+ */
+public class SortedTable {
+
+    // Constants
+    final static int MAGIC = 0x44544b54; // "DTKT"
+    final static int INDEX_INTERVAL = 64;
+    final static int FOOTER_SIZE = 16;
+    final static byte VALUE_FLAG = 0;
+    final static byte TOMBSTONE_FLAG = 1;
+    final static int BUFFER_SIZE = 1 << 16;
+
+    // Value stored for a deleted key. Compared by reference, so it can't be confused with an empty value
+    final static byte[] TOMBSTONE = new byte[0];
+
+    /**
+     * A position in a sorted list of entries, moved forward with next()
+     */
+    static abstract class Cursor {
+
+        /**
+         * Move to the next entry (the first entry on the first call)
+         * @return false if there are no more entries
+         * @throws IOException if the entry cannot be read
+         */
+        abstract boolean next() throws IOException;
+
+        /**
+         * Accessor method to get the key of the current entry
+         * @return the key
+         */
+        abstract String getKey();
+
+        /**
+         * Accessor method to get the value of the current entry
+         * @return the value, or TOMBSTONE if the key was deleted
+         */
+        abstract byte[] getValue();
+    }
+
+    /**
+     * A Cursor over the entries of a sorted map (i.e. the memtable of a KeyValueStore)
+     */
+    static class MapCursor extends Cursor {
+        private Iterator<Map.Entry<String, byte[]>> entries;
+        private Map.Entry<String, byte[]> entry;
+
+        /**
+         * Constructor for a cursor before the first entry of a map
+         * @param entries the Iterator over the entries of the map, in increasing order of their keys
+         */
+        MapCursor(Iterator<Map.Entry<String, byte[]>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        boolean next() {
+            if (!entries.hasNext()) {
+                return false;
+            }
+            entry = entries.next();
+            return true;
+        }
+
+        @Override
+        String getKey() {
+            return entry.getKey();
+        }
+
+        @Override
+        byte[] getValue() {
+            return entry.getValue();
+        }
+    }
+
+    /**
+     * A Cursor over the entries of a table, reading one block at a time
+     */
+    class TableCursor extends Cursor {
+        private int block;
+        private ByteBuffer buffer;
+        private String from;
+        private String to;
+        private String key;
+        private byte[] value;
+
+        /**
+         * Constructor for a cursor before the first entry in a range of keys
+         * @param from the first key of the range (null to start at the first entry)
+         * @param to the key after the range (null to end at the last entry)
+         */
+        TableCursor(String from, String to) {
+            this.block = from == null ? 0 : Math.max(findBlock(from), 0);
+            this.buffer = null;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        boolean next() throws IOException {
+            while (true) {
+                if (buffer == null || !buffer.hasRemaining()) {
+                    if (block < 0 || block >= indexKeys.length) {
+                        return false;
+                    }
+                    buffer = readBlock(block);
+                    block++;
+                }
+
+                key = readString(buffer);
+                value = readValue(buffer);
+
+                // The first block may start before the range
+                if (from != null && key.compareTo(from) < 0) {
+                    continue;
+                }
+                if (to != null && key.compareTo(to) >= 0) {
+                    block = indexKeys.length;
+                    buffer = null;
+                    return false;
+                }
+                return true;
+            }
+        }
+
+        @Override
+        String getKey() {
+            return key;
+        }
+
+        @Override
+        byte[] getValue() {
+            return value;
+        }
+    }
+
+    /**
+     * Writes the entries of a new table in increasing order of their keys
+     */
+    static class Writer implements Closeable {
+        private FileOutputStream output;
+        private DataOutputStream data;
+        private ByteArrayOutputStream index;
+        private DataOutputStream indexData;
+        private long position;
+        private int numEntries;
+        private int numBlocks;
+        private String lastKey;
+
+        /**
+         * Constructor creates the table file
+         * @param target the File to write (it is replaced if it exists)
+         * @throws IOException if the file cannot be created
+         */
+        Writer(File target) throws IOException {
+            output = new FileOutputStream(target);
+            data = new DataOutputStream(new BufferedOutputStream(output, BUFFER_SIZE));
+            index = new ByteArrayOutputStream();
+            indexData = new DataOutputStream(index);
+            position = 0;
+            numEntries = 0;
+            numBlocks = 0;
+            lastKey = null;
+        }
+
+        /**
+         * Add an entry to the table. Keys must be added in increasing order
+         * @param key the String key
+         * @param value the value, or TOMBSTONE for a deleted key
+         * @throws IOException if the entry cannot be written
+         */
+        void add(String key, byte[] value) throws IOException {
+            if (lastKey != null && key.compareTo(lastKey) <= 0) {
+                throw new IllegalArgumentException("Keys must be added to a table in increasing order");
+            }
+            lastKey = key;
+
+            // The first entry of each block goes in the index
+            if (numEntries % INDEX_INTERVAL == 0) {
+                writeString(indexData, key);
+                indexData.writeLong(position);
+                numBlocks++;
+            }
+
+            position += writeString(data, key);
+            if (value == TOMBSTONE) {
+                data.writeByte(TOMBSTONE_FLAG);
+                position++;
+            }
+            else {
+                data.writeByte(VALUE_FLAG);
+                data.writeInt(value.length);
+                data.write(value);
+                position += 1 + 4 + value.length;
+            }
+            numEntries++;
+        }
+
+        /**
+         * Write the index and footer and force the table to disk
+         * @throws IOException if the table cannot be written
+         */
+        void finish() throws IOException {
+            long indexPosition = position;
+            data.writeInt(numBlocks);
+            index.writeTo(data);
+            data.writeLong(indexPosition);
+            data.writeInt(numEntries);
+            data.writeInt(MAGIC);
+            data.flush();
+            output.getChannel().force(true);
+        }
+
+        /**
+         * Accessor method to get the number of entries added so far
+         * @return the number of entries
+         */
+        int getNumEntries() {
+            return numEntries;
+        }
+
+        /**
+         * Close the file (call finish() first, or the table is incomplete)
+         * @throws IOException if the file cannot be closed
+         */
+        @Override
+        public void close() throws IOException {
+            data.close();
+        }
+    }
+
+    // Instance variables
+    private File file;
+    private FileChannel channel;
+    private String[] indexKeys; // first key of each block
+    private long[] blockPositions; // position of each block, followed by the position of the index (the end of the last block)
+    private int numEntries;
+
+    /**
+     * Constructor opens a table file and reads its index
+     * @param file the table File
+     * @throws IOException if the file cannot be read or is not a complete table
+     */
+    public SortedTable(File file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+
+        try {
+            long size = channel.size();
+            if (size < FOOTER_SIZE) {
+                throw new IOException("Table file " + file.getName() + " is too short");
+            }
+            ByteBuffer footer = read(size - FOOTER_SIZE, FOOTER_SIZE);
+            long indexPosition = footer.getLong();
+            numEntries = footer.getInt();
+            if (footer.getInt() != MAGIC || indexPosition < 0 || indexPosition > size - FOOTER_SIZE) {
+                throw new IOException("Table file " + file.getName() + " is damaged");
+            }
+
+            ByteBuffer index = read(indexPosition, (int) (size - FOOTER_SIZE - indexPosition));
+            int numBlocks = index.getInt();
+            indexKeys = new String[numBlocks];
+            blockPositions = new long[numBlocks + 1];
+            for (int i = 0; i < numBlocks; i++) {
+                indexKeys[i] = readString(index);
+                blockPositions[i] = index.getLong();
+            }
+            blockPositions[numBlocks] = indexPosition;
+        }
+        catch (IOException | RuntimeException error) {
+            channel.close();
+            throw error instanceof IOException ? (IOException) error : new IOException("Table file " + file.getName() + " is damaged");
+        }
+    }
+
+
+    // Static Methods
+
+    /**
+     * Write a String as its UTF-8 length and bytes
+     * @param output the DataOutput to write to
+     * @param s the String
+     * @return the number of bytes written
+     * @throws IOException if the String cannot be written
+     */
+    static int writeString(DataOutput output, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+        return 4 + bytes.length;
+    }
+
+    /**
+     * Read a String written with writeString()
+     * @param buffer the ByteBuffer to read from
+     * @return the String
+     */
+    static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return s;
+    }
+
+    /**
+     * Read the flag and value of an entry
+     * @param buffer the ByteBuffer to read from
+     * @return the value, or TOMBSTONE if the key was deleted
+     */
+    private static byte[] readValue(ByteBuffer buffer) {
+        if (buffer.get() == TOMBSTONE_FLAG) {
+            return TOMBSTONE;
+        }
+        byte[] value = new byte[buffer.getInt()];
+        buffer.get(value);
+        return value;
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Read part of the file. Reads give their position, so tables can be read by several threads at once
+     * @param position the position of the first byte
+     * @param length the number of bytes
+     * @return the ByteBuffer containing the bytes
+     * @throws IOException if the bytes cannot be read
+     */
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Table file " + file.getName() + " ended early");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Read a block of entries
+     * @param block the number of the block
+     * @return the ByteBuffer containing the entries of the block
+     * @throws IOException if the block cannot be read
+     */
+    private ByteBuffer readBlock(int block) throws IOException {
+        return read(blockPositions[block], (int) (blockPositions[block + 1] - blockPositions[block]));
+    }
+
+    /**
+     * Find the block that would contain a key (binary search of the index)
+     * @param key the String key
+     * @return the number of the last block whose first key is not after the key (-1 if the key is before the first block)
+     */
+    private int findBlock(String key) {
+        int low = 0;
+        int high = indexKeys.length - 1;
+        int found = -1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (indexKeys[mid].compareTo(key) <= 0) {
+                found = mid;
+                low = mid + 1;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find the value of a key by reading the one block that could contain it
+     * @param key the String key
+     * @return the value, TOMBSTONE if the key was deleted, or null if the table doesn't have the key
+     * @throws IOException if the block cannot be read
+     */
+    public byte[] get(String key) throws IOException {
+        int block = findBlock(key);
+        if (block == -1) {
+            return null;
+        }
+
+        ByteBuffer buffer = readBlock(block);
+        while (buffer.hasRemaining()) {
+            int comparison = readString(buffer).compareTo(key);
+            byte[] value = readValue(buffer);
+
+            if (comparison == 0) {
+                return value;
+            }
+            if (comparison > 0) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get a cursor over the entries in a range of keys
+     * @param from the first key of the range (null to start at the first entry)
+     * @param to the key after the range (null to end at the last entry)
+     * @return the Cursor, before the first entry of the range
+     */
+    public Cursor getCursor(String from, String to) {
+        return new TableCursor(from, to);
+    }
+
+    /**
+     * Close the file
+     */
+    public void close() {
+        try {
+            channel.close();
+        }
+        catch (IOException error) {
+            System.out.println("Error in closing table file");
+        }
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Accessor method to get the table file
+     * @return the File
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Accessor method to get the size of the table file
+     * @return the size in bytes
+     */
+    public long getSize() {
+        return blockPositions[blockPositions.length - 1];
+    }
+
+    /**
+     * Accessor method to get the number of entries in the table (including tombstones)
+     * @return the number of entries
+     */
+    public int getNumEntries() {
+        return numEntries;
+    }
+}
@@ -6,10 +6,24 @@
 package DecaTeamOrganizer;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.text.ParseException;
 
 /**
  * TeamList Class that stores lists of Member objects and provides backend functionality such as filtering members, searching, deleting, importing, exporting, etc. 
+ * Methods that change the team and getSearch() are synchronized, so searches can run on a background thread while the Gui changes the team
  * @author Hugh Jiang
  */
 public class TeamList {
@@ -18,23 +32,104 @@ public class TeamList {
     final static int ARRAYLIST_DEFAULT_CAPACITY = 125;
     final static int[] GRADE_LIST = {9, 10, 11, 12};
     final static String[] SUBTEAMS = {"Select a Subteam", "Finance", "Marketing", "Business Administration", "Principles", "Hospitality & Tourism", "Writtens", "None"};
-    final static String STORAGE_FILE = "storage.csv";
+    final static String STORAGE_FILE = "storage.dat";
+    final static String LEGACY_STORAGE_FILE = "storage.csv"; // csv storage file saved by older versions, loaded if there is no STORAGE_FILE
+    final static String JOURNAL_FILE = "storage.journal";
     final static int MIN_SEARCH_QUERY_LENGTH = 3;
+    final static int DEFAULT_FUZZY_DISTANCE = 2;
+    final static int QUERY_VERIFY_LIMIT = 4096;
+    final static int RESULT_CACHE_CAPACITY = 32;
+    final static int MAX_CACHED_RESULTS = 65536; // larger results are not cached, so the cache can't use too much memory
+    final static int RESTORE_INSERT_LIMIT = 1024; // larger restores re-sort the team instead of inserting each member
     
     // Instance variables
     private ArrayList<Member> allMembers;
-    private ArrayList<Integer> filteredIndex;
-    private ArrayList<Member> filteredMembers;
+    private HashMap<Integer, Member> membersById;
+    private List<Member> filteredMembers;
     private ArrayList<Member> searchedMembers;
     private ArrayList<String> partialSearchQueries;
+    private ArrayList<String> importErrors;
+    private TrigramIndex searchIndex;
+    // Indexes that are only used by some searches are built the first time they are needed (null until then), so large imports don't pay for them
+    private FuzzyIndex fuzzyIndex;
+    private PhoneticIndex phoneticIndex;
+    private PrefixIndex prefixIndex;
+    private HashMap<Integer, BitSet> gradeBitmaps;
+    private HashMap<String, BitSet> subteamBitmaps;
+    private HashMap<String, BitSet> eventBitmaps;
+    private BitSet filterMask; // slots of the members that pass the active filters (null if there are no filters)
+    private String filterKey; // the active filters, i.e. "grade=10;subteam=finance;" (empty if there are no filters)
+    private ResultCache<ArrayList<Member>> searchCache;
+    private ResultCache<BitSet> filterCache;
+    private long cachedVersion; // version of the team when the cached results were found
+    private int nextSlot;
+    private int nextId; // not reset by initialize() so IDs are never reused
     private int numMembers;
+    private long version; // number of changes made to the team, used to tell if a copy taken by a background task is out of date
     private boolean sortByFirstName;
+    private RosterStorage storage;
+    private boolean storageOpen; // false until openStorage() is called, changes are only logged to the storage while it is open
+    private final Object saveLock = new Object(); // held while a snapshot is saved, so only one is written at a time
+    private Thread backgroundSave;
+    private boolean closing; // true while closeStorage() runs, so no background save is started after the final one
+    private AutoSaver autoSaver; // null unless startAutoSave() was called
+    private long mutationCount; // number of members added, deleted, or edited, never reset
+    private long savedMutationCount; // mutationCount when the changes were last saved (the team is dirty if they are different)
+    private long firstUnsavedChangeTime; // time of the first change that hasn't been saved, in milliseconds
+    private long lastChangeTime; // time of the last change, in milliseconds
+    private RosterHistory history; // versions of the team since it was opened, not reset by initialize() so a deleted team can be restored
+    private ArrayList<TeamListListener> listeners;
     
     /**
-     * Constructor initializes default instance variables
+     * What a search needs to know about the team, taken while holding the lock so the search itself can run without it
+     * (edits and filter changes on the Gui thread don't have to wait for a search to finish)
+     */
+    private static class SearchSnapshot {
+        String cacheKey;
+        long version;
+        Comparator<Member> order;
+        BitSet filterMask; // copy of the active filter (null if there are no filters)
+        int filteredSize;
+        
+        /**
+         * Constructor for a snapshot of the team when a search starts
+         * @param cacheKey the String key from getCacheKey() that the results are cached under
+         * @param version the version of the team
+         * @param order the Comparator from getSortOrder()
+         * @param filterMask the active filter (copied)
+         * @param filteredSize the number of members in the filtered list
+         */
+        SearchSnapshot(String cacheKey, long version, Comparator<Member> order, BitSet filterMask, int filteredSize) {
+            this.cacheKey = cacheKey;
+            this.version = version;
+            this.order = order;
+            this.filterMask = filterMask == null ? null : (BitSet) filterMask.clone();
+            this.filteredSize = filteredSize;
+        }
+    }
+    
+    /**
+     * Constructor initializes default instance variables, with the team saved in the storage file and journal (see SnapshotRosterStorage)
      */
     public TeamList() {
+        this(new SnapshotRosterStorage(STORAGE_FILE, JOURNAL_FILE, LEGACY_STORAGE_FILE));
+    }
+    
+    /**
+     * Constructor initializes default instance variables, with the team saved in a RosterStorage (i.e. a KeyValueRosterStorage)
+     * @param storage the RosterStorage that the team is loaded from by openStorage() and saved to
+     */
+    public TeamList(RosterStorage storage) {
+        listeners = new ArrayList<>();
+        nextId = 0;
+        version = 0;
+        searchCache = new ResultCache<>(RESULT_CACHE_CAPACITY);
+        filterCache = new ResultCache<>(RESULT_CACHE_CAPACITY);
+        this.storage = storage;
+        storageOpen = false;
+        cachedVersion = 0;
         initialize();
+        history = new RosterHistory(0);
     }
     
     
@@ -45,548 +140,2150 @@ public class TeamList {
      */
     private void initialize() {
         allMembers = new ArrayList<>(ARRAYLIST_DEFAULT_CAPACITY);
-        filteredIndex = new ArrayList<>(ARRAYLIST_DEFAULT_CAPACITY);
-        filteredMembers = new ArrayList<>(ARRAYLIST_DEFAULT_CAPACITY);
+        membersById = new HashMap<>();
+        filteredMembers = allMembers;
         searchedMembers = new ArrayList<>(ARRAYLIST_DEFAULT_CAPACITY);
         partialSearchQueries = new ArrayList<>();
+        importErrors = new ArrayList<>();
+        searchIndex = new TrigramIndex();
+        fuzzyIndex = null;
+        phoneticIndex = null;
+        prefixIndex = null;
         numMembers = 0;
         
+        // Bitmap indexes for filtering, one bitmap per grade, subteam, and event ID
+        gradeBitmaps = new HashMap<>();
+        subteamBitmaps = new HashMap<>();
+        eventBitmaps = new HashMap<>();
+        for (int i = 0; i < GRADE_LIST.length; i++) {
+            gradeBitmaps.put(GRADE_LIST[i], new BitSet());
+        }
+        for (int i = 1; i < SUBTEAMS.length; i++) {
+            subteamBitmaps.put(getSubteamKey(SUBTEAMS[i]), new BitSet());
+        }
+        filterMask = null;
+        filterKey = "";
+        nextSlot = 0;
+        
         // Set default sorting to use first name
         sortByFirstName = true;
     }
     
     /**
-     * Recursive Insertion sort algorithm to sort allMembers ArrayList by alphabetical first name
-     * For use in the public sort() method
-     * @param allMembers the ArrayList of Members (must be an instance variable of the TeamList class) that needs to be sorted
-     * @param arraySize the size of the unsorted part of the array (when initially calling the method, set to the size of the array)
+     * Comparator that orders Members alphabetically by first name, then by last name, then by ID (so no two members are equal).
+     * Compares the name fields directly so that no temporary full name Strings are created while sorting
      */
-    private void sortFirstName(ArrayList<Member> allMembers, int arraySize) {
-        
-        // Base case: when the array is only one element
-        if (arraySize <= 1) {
-            return;
+    private final static Comparator<Member> FIRST_NAME_ORDER = (a, b) -> {
+        int result = a.getFirstName().compareTo(b.getFirstName());
+        if (result == 0) {
+            result = a.getLastname().compareTo(b.getLastname());
         }
-        
-        sortFirstName(allMembers, arraySize-1);
-        
-        // get the last member
-        Member lastElement = allMembers.get(arraySize-1);
-        // get the index of the element before lastElement
-        int previousIndex = arraySize-2;
-        
-        // while previousIndex>=0 and Member at previousIndex > lastElement (the next Element), swap larger element further back in array
-        // sort by alphabetical order based on first name, last name 
-        while (previousIndex >= 0 && (allMembers.get(previousIndex).getFullName()).compareTo(lastElement.getFullName()) > 0) {
-            allMembers.set(previousIndex + 1, allMembers.get(previousIndex));
-            previousIndex--;
+        if (result == 0) {
+            result = Integer.compare(a.getId(), b.getId());
         }
-        
-        allMembers.set(previousIndex+1, lastElement);
-    }
+        return result;
+    };
     
     /**
-     * Recursive Insertion sort algorithm to sort allMembers ArrayList by alphabetical last name, 
-     * For use in the public sort() method
-     * @param allMembers the ArrayList of Members (must be an instance variable of the TeamList class) that needs to be sorted
-     * @param arraySize the size of the unsorted part of the array (when initially calling the method, set to the size of the array)
+     * Comparator that orders Members alphabetically by last name, then by first name, then by ID
      */
-    private void sortLastName(ArrayList<Member> allMembers, int arraySize) {
-        // Base case: when the array is only one element
-        if (arraySize <= 1) {
-            return;
+    private final static Comparator<Member> LAST_NAME_ORDER = (a, b) -> {
+        int result = a.getLastname().compareTo(b.getLastname());
+        if (result == 0) {
+            result = a.getFirstName().compareTo(b.getFirstName());
         }
-        
-        sortLastName(allMembers, arraySize-1);
-        
-        // get the last member
-        Member lastElement = allMembers.get(arraySize-1);
-        // get the index of the element before lastElement
-        int previousIndex = arraySize-2;
-        
-        // while previousIndex>=0 and Member at previousIndex > lastElement (the next Element), swap larger element further back in array
-        // sort by alphabetical order based on first name, last name 
-        while (previousIndex >= 0 && (allMembers.get(previousIndex).getFullNameLastFirst()).compareTo(lastElement.getFullNameLastFirst()) > 0) {
-            allMembers.set(previousIndex + 1, allMembers.get(previousIndex));
-            previousIndex--;
+        if (result == 0) {
+            result = Integer.compare(a.getId(), b.getId());
         }
-        
-        allMembers.set(previousIndex+1, lastElement);
-    }
+        return result;
+    };
     
     /**
-     * Write csv file to export members to the storage file. 
-     * Code adapted from: https://stackabuse.com/reading-and-writing-csvs-in-java/
+     * Finds the index where a Member should be inserted into the sorted allMembers ArrayList using a binary search.
+     * The returned index is after any Members that compare equal to m, so members with the same name stay in the order they were added
+     * @param m the Member that is to be inserted
+     * @return the index in allMembers where m should be inserted to keep the list sorted
      */
-    public void exportMembers() {
+    private int findInsertionIndex(Member m) {
+        Comparator<Member> order = getSortOrder();
+        int low = 0;
+        int high = allMembers.size();
         
-        try {
-            FileWriter writer = new FileWriter(STORAGE_FILE);
+        // Iterative binary search so there is no recursion depth limit on large lists
+        while (low < high) {
+            int midIndex = (low + high) >>> 1;
             
-            // First delete existing file before writing new file
-            File file = new File(STORAGE_FILE);
-            file.delete();
-        
-            // Write file header
-            writer.append("First Name");
-            writer.append(",");
-            writer.append("Last Name");
-            writer.append(",");
-            writer.append("Email");
-            writer.append(",");
-            writer.append("Grade");
-            writer.append(",");
-            writer.append("Subteam");
-            writer.append(",");
-            writer.append("Event ID");
-
-            // Write rest of file
-            for (int i = 0; i < allMembers.size(); i++) {
-                writer.append("\n");
-                writer.append(allMembers.get(i).getFirstName() + ",");
-                writer.append(allMembers.get(i).getLastname() + ",");
-                writer.append(allMembers.get(i).getEmail() + ",");
-                writer.append(allMembers.get(i).getGrade() + ",");
-                writer.append(allMembers.get(i).getSubteam() + " ,");
-                writer.append(allMembers.get(i).getEventID() + " ");
+            // Move right past members that are less than or equal to m (keeps the insertion stable)
+            if (order.compare(allMembers.get(midIndex), m) <= 0) {
+                low = midIndex + 1;
+            }
+            else {
+                high = midIndex;
             }
-
-            writer.flush();
-            writer.close();
         }
         
-        catch (IOException error) {
-            // Catch error so program doesn't crash
-            System.out.println("Error in exporting file");
-        }
+        return low;
     }
     
+    /**
+     * Accessor method to get the comparator for the current sorting setting
+     * @return FIRST_NAME_ORDER if sorting by first name, else LAST_NAME_ORDER
+     */
+    private Comparator<Member> getSortOrder() {
+        return getSortOrder(sortByFirstName);
+    }
     
+    /**
+     * Accessor method to get the comparator for a sorting setting, i.e. to sort a copy of the team on a background thread
+     * @param byFirstName true to sort by first name, false to sort by last name
+     * @return FIRST_NAME_ORDER if byFirstName is true, else LAST_NAME_ORDER
+     */
+    static Comparator<Member> getSortOrder(boolean byFirstName) {
+        if (byFirstName) {
+            return FIRST_NAME_ORDER;
+        }
+        return LAST_NAME_ORDER;
+    }
     
     /**
-     * Private recursive binary search that searches for a member with a matching first name. 
-     * Method is to be called in binarySearchMember method. 
-     * @param arr the ArrayList of Members (must be an instance variable of the TeamList class) that needs to be searched 
-     * @param firstName the String containing the first name of the member being searched
-     * @param low the lower index bound of the binary search (set initially to 0)
-     * @param high the upper index bound of the binary search (set initially to array length - 1)
-     * @return the index of the first found member with a matching first name
+     * Get the key that a subteam is stored under in the subteam bitmap index.
+     * The "None" subteam (last element of SUBTEAMS) is stored as an empty String, which is the default subteam in the Member class
+     * @param subteam the String containing the subteam
+     * @return the lowercase, trimmed key for the subteam
      */
-    private int binarySearchFirstName(ArrayList<Member> arr, String firstName, int low, int high) {
-        int foundIndex;
-        int midIndex;
-        
-        // Clean firstName argument
-        String key = firstName.trim();
-        key = firstName.toUpperCase().charAt(0) + firstName.substring(1);
-        
-        // Base case, name not found
-        if (low > high) {
-            return -1;
+    private static String getSubteamKey(String subteam) {
+        if (subteam.equals(SUBTEAMS[SUBTEAMS.length-1])) {
+            return "";
         }
-        else {
-            midIndex = (low + high) / 2;
-            String currentFirstName = arr.get(midIndex).getFirstName().trim();
-            
-            if (currentFirstName.equalsIgnoreCase(key)) {
-                foundIndex = midIndex;
-            } 
-            else {
-                // If the key is less than the current index in binary search
-                if (currentFirstName.compareTo(key) < 0) {
-                    foundIndex = binarySearchFirstName(arr, key, midIndex+1, high);
-                } 
-                // If the key is less than the current index in binary search
-                else {
-                    foundIndex = binarySearchFirstName(arr, key, low, midIndex-1);
-                }
-            }
-            
-            return foundIndex;
+        return subteam.trim().toLowerCase();
+    }
+    
+    /**
+     * Get the key that an event ID is stored under in the event bitmap index
+     * @param eventID the String containing the event ID
+     * @return the uppercase, trimmed key for the event ID
+     */
+    private static String getEventKey(String eventID) {
+        return eventID.trim().toUpperCase();
+    }
+    
+    /**
+     * Set the bit for a slot in the bitmap stored under a key, creating the bitmap if needed
+     * @param bitmaps the HashMap of bitmaps
+     * @param key the key of the bitmap
+     * @param slot the slot to set
+     */
+    private static <K> void setBit(HashMap<K, BitSet> bitmaps, K key, int slot) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap == null) {
+            bitmap = new BitSet();
+            bitmaps.put(key, bitmap);
         }
+        bitmap.set(slot);
     }
     
     /**
-     * Private recursive binary search that searches for a member with a matching last name. 
-     * Method is to be called in binarySearchMember method. 
-     * @param arr the ArrayList of Members (must be an instance variable of the TeamList class) that needs to be searched 
-     * @param lastName the String containing the last name of the member being searched
-     * @param low the lower index bound of the binary search (set initially to 0)
-     * @param high the upper index bound of the binary search (set initially to array length - 1)
-     * @return the index of the first found member with a matching last name
+     * Clear the bit for a slot in the bitmap stored under a key
+     * @param bitmaps the HashMap of bitmaps
+     * @param key the key of the bitmap
+     * @param slot the slot to clear
      */
-    private int binarySearchLastName(ArrayList<Member> arr, String lastName, int low, int high) {
-        int foundIndex;
-        int midIndex;
-        
-        // Clean firstName argument
-        String key = lastName.trim();
-        key = lastName.toUpperCase().charAt(0) + lastName.substring(1);
-        
-        // Base case, name not found
-        if (low > high) {
-            return -1;
+    private static <K> void clearBit(HashMap<K, BitSet> bitmaps, K key, int slot) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.clear(slot);
         }
-        else {
-            midIndex = (low + high) / 2;
-            String currentLastName = arr.get(midIndex).getLastname().trim();
-            
-            if (currentLastName.equalsIgnoreCase(key)) {
-                foundIndex = midIndex;
-            } 
-            else {
-                // If the key is less than the current index in binary search
-                if (currentLastName.compareTo(key) < 0) {
-                    foundIndex = binarySearchLastName(arr, key, midIndex+1, high);
-                } 
-                // If the key is less than the current index in binary search
-                else {
-                    foundIndex = binarySearchLastName(arr, key, low, midIndex-1);
-                }
+    }
+    
+    /**
+     * Get the slots of the members in a range of grades, for MemberQuery. Must be called while the team is locked
+     * @param min the lowest grade
+     * @param max the highest grade
+     * @return a new BitSet containing the slots
+     */
+    BitSet getGradeSlots(int min, int max) {
+        BitSet slots = new BitSet();
+        for (Integer grade : gradeBitmaps.keySet()) {
+            if (grade >= min && grade <= max) {
+                slots.or(gradeBitmaps.get(grade));
             }
-            
-            return foundIndex;
         }
+        return slots;
     }
     
     /**
-     * Binary search for a member based on either their first name or their last name, depending on sorting settings that are set
-     * @param arr the ArrayList of Members to be searched (must be an instance variable of this class)
-     * @return the index of the found name
+     * Get the slots of the members in a subteam, for MemberQuery. Must be called while the team is locked
+     * @param subteam the String containing the subteam (case is ignored, "None" finds members without a subteam)
+     * @return a new BitSet containing the slots
      */
-    public int binarySearchMember(ArrayList<Member> arr, Member m) {
-        
-        if (sortByFirstName) {
-            String firstName = m.getFirstName();
-            return binarySearchFirstName(arr, firstName, 0, arr.size()-1);
-        }
-        else {
-            String lastName = m.getLastname();
-            return binarySearchLastName(arr, lastName, 0, arr.size()-1);
+    BitSet getSubteamSlots(String subteam) {
+        String key = getSubteamKey(subteam);
+        if (subteam.equalsIgnoreCase(SUBTEAMS[SUBTEAMS.length-1])) {
+            key = "";
         }
+        return copyBitmap(subteamBitmaps.get(key));
     }
     
-    
-    
-    // Mutator Methods
-    
     /**
-     * Mutator method to add a member
-     * @param m the Member to be added to the team
+     * Get the slots of the members in an event, for MemberQuery. Must be called while the team is locked
+     * @param eventID the String containing the event ID (case is ignored)
+     * @return a new BitSet containing the slots
      */
-    public void addMember(Member m) {
-        
-        // Add member to the allMembers ArrayList
-        allMembers.add(m);
-        
-        // Increment Counter
-        numMembers++;
-        
-        // Sort (by insertion)
-        sort();
-        
-        /* 
-        Note: add member to other subteams only when requested in their respective mutator methods: 
-        this way, we do not have to continually re-sort multiple arrays
-        */
-        
-        // Set list of filtered members to default (no filter)
-        filteredMembers = allMembers;
+    BitSet getEventSlots(String eventID) {
+        return copyBitmap(eventBitmaps.get(getEventKey(eventID)));
     }
     
     /**
-     * Delete all members in the team by re-initializing all instance variables
+     * Get the slots of every member, for MemberQuery. Must be called while the team is locked
+     * @return a new BitSet containing the slots (every member is in exactly one grade bitmap)
      */
-    public void deleteAll() {
-        initialize();
+    BitSet getAllSlots() {
+        BitSet slots = new BitSet(nextSlot);
+        for (BitSet bitmap : gradeBitmaps.values()) {
+            slots.or(bitmap);
+        }
+        return slots;
     }
     
     /**
-     * Method that searches for a member and then deletes them from the main allMembers ArrayList.
-     * Uses a binary search to search for a matching name. If the first matching name is not the right member, 
-     * linear search from that both directions of the binary search index until the correct member is found, then delete.
-     * @param m the Member to be deleted from the team 
-     * @return boolean indicating if member was successfully deleted (if deleted then return true, else return false)
+     * Get the slots of the members whose name, email, or event ID contain some text, for MemberQuery. Must be called while the team is locked.
+     * When only a few members are left to check, they are checked directly, otherwise the trigram index finds the candidates
+     * @param text the String to search for (case is ignored)
+     * @param within the slots to check (null for every member)
+     * @return a new BitSet containing the slots of the matching members in within
      */
-    public boolean deleteMember(Member m) {
-        boolean deleted = false;
-        int startSearchIndex;
+    BitSet getSlotsContaining(String text, BitSet within) {
+        byte[] key = Member.toSearchKey(text);
+        BitSet slots = new BitSet();
         
-        // First use binary search to find a member with the same name as the member we are trying to delete
-        startSearchIndex = binarySearchMember(allMembers, m);
-        
-        // Then check if the member is the same. if the same, then delete and return true
-        if (m.equals(allMembers.get(startSearchIndex))) {
-            allMembers.remove(startSearchIndex);
-            deleted = true;
-
-            // Decrement members counter
-            numMembers--;
+        if (within != null && (key.length < TrigramIndex.TRIGRAM_LENGTH || within.cardinality() <= QUERY_VERIFY_LIMIT)) {
+            for (int slot = within.nextSetBit(0); slot >= 0; slot = within.nextSetBit(slot + 1)) {
+                Member m = searchIndex.getMember(slot);
+                if (m != null && m.searchKeyContains(key)) {
+                    slots.set(slot);
+                }
+            }
         }
-        // If the member is not the same (i.e. has same name but different grade or event etc), start from 
-        // the index of the found member and linear search for the member that is the same
-        else {
-            
-            for (int i = 0; i < allMembers.size(); i++) {
-
-                // Linear search of positive direction from starting index
-                if (startSearchIndex + i < allMembers.size()) {
-                    if (m.equals(allMembers.get(startSearchIndex + i))) {
-                        allMembers.remove(startSearchIndex + i);
-                        deleted = true;
-
-                        // Decrement members counter
-                        numMembers--;
-
-                        break;
-                    }
+        else if (key.length < TrigramIndex.TRIGRAM_LENGTH) {
+            // Too short for the trigram index, so every member has to be checked
+            for (Member m : allMembers) {
+                if (m.searchKeyContains(key)) {
+                    slots.set(m.getSlot());
                 }
-
-                // Linear search of negative direction from starting index
-                if (startSearchIndex - 1 >= 0) {
-                    if (m.equals(allMembers.get(startSearchIndex - i))) {
-                        allMembers.remove(startSearchIndex - i);
-                        deleted = true;
-
-                        // Decrement members counter
-                        numMembers--;
-
-                        break;
-                    }
+            }
+        }
+        else {
+            for (Member m : searchIndex.getCandidates(key)) {
+                if ((within == null || within.get(m.getSlot())) && m.searchKeyContains(key)) {
+                    slots.set(m.getSlot());
                 }
             }
         }
-        
-        return deleted;
+        return slots;
     }
     
     /**
-     * Method that deletes a member by index from the main allMembers ArrayList
-     * @param indexToDelete the index of the Member that is to be deleted (from the main allMembers ArrayList)
-     * @return boolean value indicating whether the member was successfully deleted (if deleted then return true, else return false)
+     * Copy an index bitmap so it can be changed without changing the index
+     * @param bitmap the BitSet (null if no member has the key)
+     * @return the new BitSet
      */
-    public boolean deleteMember(int indexToDelete) {
-        if (indexToDelete < allMembers.size()) {
-            allMembers.remove(indexToDelete);
-            numMembers--;
-            return true;
+    private static BitSet copyBitmap(BitSet bitmap) {
+        if (bitmap == null) {
+            return new BitSet();
         }
-        return false;
+        return (BitSet) bitmap.clone();
     }
     
     /**
-     * Filter team based on grade input
-     * @param grade the grade that is to be filtered
+     * Get the fuzzy search index, building it from every member the first time it is needed
+     * @return the FuzzyIndex
      */
-    public void filterByGrade(int grade) {
-        ArrayList<Member> temp = new ArrayList<>(numMembers);
-        ArrayList<Integer> tempIndex = new ArrayList<>(numMembers);
-        
-        for (int i = 0; i < filteredMembers.size(); i++) {
-            if (filteredMembers.get(i).getGrade() == grade) {
-                temp.add(filteredMembers.get(i));
-                tempIndex.add(filteredIndex.get(i));
+    private FuzzyIndex getFuzzyIndex() {
+        if (fuzzyIndex == null) {
+            fuzzyIndex = new FuzzyIndex();
+            
+            // Members are added in order of their slots, like indexMember() does
+            for (int slot = 0; slot < nextSlot; slot++) {
+                Member m = searchIndex.getMember(slot);
+                if (m != null) {
+                    fuzzyIndex.add(m);
+                }
             }
         }
-        
-        filteredIndex = tempIndex;
-        filteredMembers = temp;
+        return fuzzyIndex;
     }
     
     /**
-     * Filter team based on subteam input
-     * @param subteam the String containing the subteam that is to be filtered
+     * Get the phonetic index, building it from every member the first time it is needed
+     * @return the PhoneticIndex
      */
-    public void filterBySubteam(String subteam) {
-        ArrayList<Member> temp = new ArrayList<>(numMembers);
-        ArrayList<Integer> tempIndex = new ArrayList<>(numMembers);
-        
-        /* 
-        If the selected subteam is "None" (last element in the SUBTEAMS array) then set 
-        subteam to an empty String to search for members with no subteam
-        Note: an empty String is the default value for no subteam in the Member class  
-        */
-        if (subteam.equals(SUBTEAMS[SUBTEAMS.length-1])) {
-            subteam = "";
-        }
-        
-        for (int i = 0; i < filteredMembers.size(); i++) {
-            if (filteredMembers.get(i).getSubteam().equalsIgnoreCase(subteam.trim())) {
-                temp.add(filteredMembers.get(i));
-                tempIndex.add(filteredIndex.get(i));
+    private PhoneticIndex getPhoneticIndex() {
+        if (phoneticIndex == null) {
+            phoneticIndex = new PhoneticIndex();
+            for (int slot = 0; slot < nextSlot; slot++) {
+                Member m = searchIndex.getMember(slot);
+                if (m != null) {
+                    phoneticIndex.add(m);
+                }
             }
         }
-        
-        filteredIndex = tempIndex;
-        filteredMembers = temp;
+        return phoneticIndex;
     }
     
     /**
-     * Read csv or txt file to import Members into the main team list (allMembers).
-     * Code adapted from: https://stackabuse.com/reading-and-writing-csvs-in-java/
-     * @param fileName the String containing the path and name of the imported file
+     * Get the autocomplete index, building it from every member the first time it is needed
+     * @return the PrefixIndex
      */
-    public void importMembers(String fileName) {
-        BufferedReader buffer;
-        String row;
-        int rowCounter = 0;
-        
-        try {
-            buffer = new BufferedReader(new FileReader(fileName));
-            
-            while((row = buffer.readLine()) != null) {
-                // After a comma in a file row, add element to rowData array
-                String rowData[] = row.split(",");
-                rowCounter++;
-                
-                // Add member data as long as row is not the first row (which is the header row)
-                if (rowCounter != 1) {
-                    if (rowData.length >= 5) {
-                        addMember(new Member(rowData[0].trim(), rowData[1].trim(), rowData[2].trim(), 
-                                Integer.valueOf(rowData[3].trim()), rowData[4].trim(), rowData[5].trim()));
-                    }
-                    else {
-                        addMember(new Member(rowData[0].trim(), rowData[1].trim(), rowData[2].trim(), Integer.valueOf(rowData[3].trim())));
-                    }
-                }
+    private PrefixIndex getPrefixIndex() {
+        if (prefixIndex == null) {
+            prefixIndex = new PrefixIndex();
+            for (Member m : allMembers) {
+                prefixIndex.add(m);
             }
-            buffer.close();
         }
-        catch (IOException error) {
-            // Error handling
-            System.out.println("Troubleshoot file reading error");
+        return prefixIndex;
+    }
+    
+    /**
+     * Give a member an ID if they don't have one yet. Called before a member is added to allMembers,
+     * since the ID is used to order members with the same name. Members that already have an ID (i.e. loaded from a
+     * KeyValueRosterStorage) keep it, and later members get higher IDs
+     * @param m the Member that is being added
+     */
+    private void assignId(Member m) {
+        if (m.getId() == -1) {
+            m.setId(nextId);
+            nextId++;
+        }
+        else if (m.getId() >= nextId) {
+            nextId = m.getId() + 1;
         }
     }
     
     /**
-     * Mutator method to reset filters
+     * Give a member a slot and add them to the ID map, search indexes and bitmap indexes. Called whenever a member is added to allMembers
+     * @param m the Member that was added
      */
-    public void resetFilters() {
-        // Set filtered list to be the same as the main list
-        filteredMembers = allMembers;
+    private void indexMember(Member m) {
+        m.setSlot(nextSlot);
+        nextSlot++;
         
-        // Set filtered indexes to a new array containing a list of integers from 1, 2, 3, ... numMembers
-        filteredIndex = new ArrayList<>(numMembers);
-        for (int i = 0; i < numMembers; i++) {
-            filteredIndex.add(i);
+        membersById.put(m.getId(), m);
+        
+        searchIndex.add(m);
+        if (fuzzyIndex != null) {
+            fuzzyIndex.add(m);
+        }
+        if (phoneticIndex != null) {
+            phoneticIndex.add(m);
         }
+        if (prefixIndex != null) {
+            prefixIndex.add(m);
+        }
+        setBit(gradeBitmaps, m.getGrade(), m.getSlot());
+        setBit(subteamBitmaps, getSubteamKey(m.getSubteam()), m.getSlot());
+        setBit(eventBitmaps, getEventKey(m.getEventID()), m.getSlot());
     }
     
     /**
-     * Mutator method to reset searches. This is a private method because searches are 
-     * automatically reset after each search so layering search upon search is not possible,
-     * thus it will only be privately called within TeamList and not in Gui
+     * Remove a member from the search indexes, bitmap indexes, and active filter. Called whenever a member is removed from allMembers
+     * @param m the Member that was removed
      */
-    private void resetSearch() {
-        searchedMembers = new ArrayList<>();
-        partialSearchQueries = new ArrayList<>();
+    private void unindexMember(Member m) {
+        membersById.remove(m.getId());
+        searchIndex.remove(m);
+        if (fuzzyIndex != null) {
+            fuzzyIndex.remove(m);
+        }
+        if (phoneticIndex != null) {
+            phoneticIndex.remove(m);
+        }
+        if (prefixIndex != null) {
+            prefixIndex.remove(m);
+        }
+        clearBit(gradeBitmaps, m.getGrade(), m.getSlot());
+        clearBit(subteamBitmaps, getSubteamKey(m.getSubteam()), m.getSlot());
+        clearBit(eventBitmaps, getEventKey(m.getEventID()), m.getSlot());
+        
+        // Keep the filtered view in sync with the deletion
+        if (filterMask != null) {
+            filterMask.clear(m.getSlot());
+            ((FilteredMemberList) filteredMembers).refresh();
+        }
+        
+        m.setSlot(-1);
     }
     
     /**
-     * Mutator method to set whether TeamList sorts by first name or by last name
-     * @param x the boolean variable: if true, sort by first name. If false, sort by last name
+     * Save the whole team to its storage with compact() (by default a binary snapshot in storage.dat, not a csv file).
+     * Kept from older versions, which saved the team to a csv storage file with this method. To write a csv file, use exportMembers(List, String)
+     * @return boolean indicating if the team was saved successfully
      */
-    public void setSortByFirstName(boolean x) {
-        sortByFirstName = x;
+    public boolean exportMembers() {
+        return compact();
     }
     
     /**
-     * Method to sort allMembers alphabetically, either by first name or 
-     * last name depending on the boolean flag sortByFirstName
+     * Write a list of members to a csv file. Static so a copy of the team can be exported on a background thread.
+     * The file is written to a temporary file first and renamed over the old file once it is complete, so the old file
+     * is never left empty or cut off if the program stops while writing.
+     * Code adapted from: https://stackabuse.com/reading-and-writing-csvs-in-java/
+     * @param members the List of Members to be written
+     * @param fileName the String containing the path and name of the exported file
+     * @return boolean indicating if the file was written successfully
      */
-    public void sort() {
-        if (sortByFirstName) {
-            sortFirstName(allMembers, numMembers);
+    static boolean exportMembers(List<Member> members, String fileName) {
+        File exportFile = new File(fileName);
+        File temp = new File(fileName + SnapshotFile.TEMP_SUFFIX);
+        
+        try {
+            SnapshotFile.write(members, temp);
+            SnapshotFile.replace(temp, exportFile);
+            return true;
         }
-        else {
-            sortLastName(allMembers, numMembers);
+        
+        catch (IOException error) {
+            // Catch error so program doesn't crash
+            System.out.println("Error in exporting file");
+            temp.delete();
+            return false;
         }
     }
     
-    
-    
-    // Accessor Methods
-    
     /**
-     * Accessor method to get a Member at a specified index in the main list
-     * @param index the index where the member is located
-     * @return the Member at the specified index in the main list
+     * Write the header row of an exported csv file
+     * @param writer the Writer for the exported file
+     * @throws IOException if the file cannot be written
      */
-    public Member get(int index) {
-        return allMembers.get(index);
+    static void writeHeader(Writer writer) throws IOException {
+        writer.append("First Name");
+        writer.append(",");
+        writer.append("Last Name");
+        writer.append(",");
+        writer.append("Email");
+        writer.append(",");
+        writer.append("Grade");
+        writer.append(",");
+        writer.append("Subteam");
+        writer.append(",");
+        writer.append("Event ID");
     }
     
     /**
-     * Accessor method to get indexes of filtered members
-     * @return ArrayList containing the index of the filtered members in the main list
+     * Write a row for each member to an exported csv file, quoting fields that contain commas or quotes
+     * @param writer the Writer for the exported file
+     * @param members the List of Members to be written
+     * @throws IOException if the file cannot be written
+     * @throws InterruptedIOException if the thread writing the file was interrupted (i.e. the export was cancelled)
      */
-    public ArrayList<Integer> getFilteredIndex() {
-        return filteredIndex;
+    static void writeMembers(Writer writer, List<Member> members) throws IOException {
+        for (int i = 0; i < members.size(); i++) {
+            Member m = members.get(i);
+            writer.append("\n");
+            writer.append(CsvReader.escapeField(m.getFirstName())).append(",");
+            writer.append(CsvReader.escapeField(m.getLastname())).append(",");
+            writer.append(CsvReader.escapeField(m.getEmail())).append(",");
+            writer.append(String.valueOf(m.getGrade())).append(",");
+            writer.append(CsvReader.escapeField(m.getSubteam())).append(",");
+            writer.append(CsvReader.escapeField(m.getEventID()));
+            
+            if (i % 1024 == 0 && Thread.currentThread().isInterrupted()) {
+                throw new InterruptedIOException("Export cancelled");
+            }
+        }
     }
     
     /**
-     * Accessor method to get filtered team list
-     * @return filtered ArrayList of Members
+     * Load the team from its storage (by default the storage file, with the journal of changes made since it was written replayed on top).
+     * After loading, every change to the team is logged to the storage. If the storage needs it (i.e. the backup of a damaged storage file was loaded),
+     * the team is compacted straight away
+     * @return boolean indicating if the storage was intact (false if the backup or a damaged file had to be loaded)
      */
-    public ArrayList<Member> getFilteredList() {
-        return filteredMembers;
+    public boolean openStorage() {
+        // Changes made while the team is loaded (i.e. replaying the journal) are not logged again
+        boolean intact = storage.open(this);
+        
+        boolean compactNeeded;
+        synchronized (this) {
+            storageOpen = true;
+            compactNeeded = storage.needsCompaction();
+        }
+        if (compactNeeded) {
+            compact();
+        }
+        
+        // Everything that was loaded is already saved in the storage, and the history starts at the loaded team
+        synchronized (this) {
+            savedMutationCount = mutationCount;
+            history.clear(numMembers);
+        }
+        return intact;
     }
     
     /**
-     * Accessor method to get members on the team list
-     * @return ArrayList containing the Members of the team
+     * Write the whole team to the storage and start its log of changes over (for the default storage, write the storage file and empty the journal).
+     * Safe to call on a background thread: the team is copied while holding the lock, but the file is written without it,
+     * so the team can still be changed and searched while it is saved. The storage writes the team to a temporary file in the order it is sorted,
+     * and then installs it, so a crash while saving
+     * leaves the previous storage file in place. If the team changes while the file is written, the new file is thrown away,
+     * since the storage has still logged every change
+     * @return boolean indicating if the team was saved successfully
      */
-    public ArrayList<Member> getMembers() {
-       return allMembers;
+    public boolean compact() {
+        synchronized (saveLock) {
+            ArrayList<Member> members;
+            long copiedVersion;
+            boolean byFirstName;
+            long copiedMutationCount;
+            synchronized (this) {
+                members = new ArrayList<>(allMembers);
+                copiedVersion = version;
+                copiedMutationCount = mutationCount;
+                byFirstName = sortByFirstName;
+            }
+            
+            File temp = storage.getTempFile();
+            String checksum;
+            try {
+                checksum = storage.write(members, byFirstName, temp);
+            }
+            catch (IOException error) {
+                System.out.println("Error in exporting file");
+                temp.delete();
+                return false;
+            }
+            
+            synchronized (this) {
+                if (copiedVersion != version) {
+                    temp.delete();
+                    return false;
+                }
+                
+                try {
+                    storage.install(temp, checksum);
+                }
+                catch (IOException error) {
+                    System.out.println("Error in saving storage file");
+                    temp.delete();
+                    return false;
+                }
+                
+                savedMutationCount = copiedMutationCount;
+                return true;
+            }
+        }
     }
     
     /**
-     * Accessor method to get number of total members in list
-     * @return 
+     * Start saving the team to the storage file on a background thread with compact(), unless a background save is already running
      */
-    public int getNumMembers() {
-        return numMembers;
+    public synchronized void saveInBackground() {
+        if (closing || (backgroundSave != null && backgroundSave.isAlive())) {
+            return;
+        }
+        
+        backgroundSave = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                compact();
+            }
+        }, "Storage save");
+        backgroundSave.setDaemon(true);
+        backgroundSave.start();
     }
     
     /**
-     * Searches the filteredList for a String query and returns an ArrayList of members containing that query in their name, email, or eventID
-     * The search will match partial queries as well as full queries (i.e. John will match a search for "Johnny" and vice versa)
-     * @param query the String search query. Must be at least 3 characters long
-     * @return the ArrayList of Members that match the search (or partial search) in order of relevance
+     * Save the team and close the storage, for use when the program is closed. Stops the AutoSaver and waits for a background save to finish first.
+     * The team is only compacted if the storage needs it, otherwise the logged changes are forced to disk as they are
      */
-    public ArrayList<Member> getSearch(String query) {
-        // First, reset any previous searches
-        resetSearch();
-        
-        // Do not proceed if we don't meet the minumum search query length
-        if (query.length() < MIN_SEARCH_QUERY_LENGTH) {
-            return (new ArrayList<>());
+    public void closeStorage() {
+        AutoSaver activeSaver;
+        Thread activeSave;
+        synchronized (this) {
+            closing = true;
+            activeSaver = autoSaver;
+            autoSaver = null;
+            activeSave = backgroundSave;
+            backgroundSave = null;
+        }
+        // Stopped and joined without holding the lock, since a save that is running needs it to finish
+        if (activeSaver != null) {
+            activeSaver.stop();
+        }
+        if (activeSave != null) {
+            try {
+                activeSave.join();
+            }
+            catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+            }
         }
         
-        Member tempMember;
-        String currentQuery;
+        boolean compactNeeded;
+        synchronized (this) {
+            compactNeeded = !storageOpen || storage.needsCompaction();
+        }
+        if (compactNeeded) {
+            compact();
+        }
+        
+        synchronized (this) {
+            if (storageOpen) {
+                try {
+                    storage.close();
+                }
+                catch (IOException error) {
+                    System.out.println("Error in closing storage");
+                }
+                storageOpen = false;
+            }
+            closing = false;
+        }
+    }
+    
+    /**
+     * Record that members were changed (marking the team as dirty) and commit the changes logged to the storage (the journal records, by default).
+     * While the AutoSaver is running, it forces the changes to disk and compacts the team, so a change made on the Gui thread
+     * never waits for the disk. Otherwise, the team is compacted on a background thread once the storage needs it (i.e. the journal is long enough)
+     * @param numChanges the number of members that were added, deleted, or edited
+     */
+    private void commitChanges(int numChanges) {
+        long now = System.currentTimeMillis();
+        if (mutationCount == savedMutationCount) {
+            firstUnsavedChangeTime = now;
+        }
+        mutationCount += numChanges;
+        lastChangeTime = now;
+        
+        if (!storageOpen) {
+            return;
+        }
+        try {
+            storage.commit();
+        }
+        catch (IOException error) {
+            // Catch error so program doesn't crash, the changes will still be saved when the program closes
+            System.out.println("Error in writing to journal file");
+        }
+        
+        if (autoSaver == null && storage.needsCompaction()) {
+            saveInBackground();
+        }
+    }
+    
+    /**
+     * Save the changes made since the last save. Forcing the logged changes to disk takes time in proportion to the number of changes
+     * since the last save, and the team is only compacted once the storage needs it (i.e. the journal is long enough, or there is no journal).
+     * Called by the AutoSaver on its own thread, without holding the lock while the disk is written
+     * @return boolean indicating if the changes were saved
+     */
+    public boolean saveChanges() {
+        long savingCount;
+        boolean compactNeeded;
+        synchronized (this) {
+            compactNeeded = !storageOpen || storage.needsCompaction();
+            
+            // Every change counted so far has already been committed to the storage by commitChanges()
+            savingCount = mutationCount;
+        }
+        
+        if (compactNeeded) {
+            return compact();
+        }
+        
+        try {
+            storage.force();
+        }
+        catch (IOException error) {
+            System.out.println("Error in saving journal file");
+            return false;
+        }
+        
+        synchronized (this) {
+            savedMutationCount = Math.max(savedMutationCount, savingCount);
+        }
+        return true;
+    }
+    
+    /**
+     * Start saving changes on a background thread with an AutoSaver, which saves once a burst of changes is over.
+     * Until closeStorage() is called, changes are no longer forced to disk on the thread that changes the team
+     */
+    public synchronized void startAutoSave() {
+        if (autoSaver != null) {
+            return;
+        }
+        if (storageOpen) {
+            storage.setSyncOnCommit(false);
+        }
+        autoSaver = new AutoSaver(this);
+        autoSaver.start();
+    }
+    
+    
+    
+    // Mutator Methods
+    
+    /**
+     * Insert a member at their sorted position (binary search insertion) and index them
+     * @param m the Member to be inserted
+     * @return the index the Member was inserted at
+     */
+    private int insertMember(Member m) {
+        assignId(m);
+        int index = findInsertionIndex(m);
+        allMembers.add(index, m);
+        indexMember(m);
+        
+        // Increment Counter
+        numMembers++;
+        version++;
+        
+        return index;
+    }
+    
+    /**
+     * Remove the member at an index of allMembers and remove them from the indexes
+     * @param index the index of the Member in allMembers
+     * @return the Member that was removed
+     */
+    private Member removeMemberAt(int index) {
+        Member removed = allMembers.remove(index);
+        unindexMember(removed);
+        
+        // Decrement members counter
+        numMembers--;
+        version++;
+        
+        return removed;
+    }
+    
+    /**
+     * Method that searches for the index of a member in the main allMembers ArrayList.
+     * If m is in the team list, their ID and name give their exact position with a binary search.
+     * Otherwise (i.e. m was re-created from a file), a binary search finds the first member with the same name, and the members
+     * with that name are checked until one has the same information as m
+     * @param m the Member to search for
+     * @return the index of a Member equal to m in allMembers, or -1 if there is none
+     */
+    private int findMember(Member m) {
+        Comparator<Member> order = getSortOrder();
+        
+        // Members are sorted by name and then ID, so a member in the list can be found directly
+        if (m.getId() != -1 && membersById.get(m.getId()) == m) {
+            return Collections.binarySearch(allMembers, m, order);
+        }
+        
+        // Find the first member with the same name (the sort order compares names exactly, so lowercase and empty names are found too)
+        int low = 0;
+        int high = allMembers.size();
+        while (low < high) {
+            int midIndex = (low + high) >>> 1;
+            
+            if (compareNames(order, allMembers.get(midIndex), m) < 0) {
+                low = midIndex + 1;
+            }
+            else {
+                high = midIndex;
+            }
+        }
+        
+        for (int i = low; i < allMembers.size() && compareNames(order, allMembers.get(i), m) == 0; i++) {
+            if (m.equals(allMembers.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Compare the names of two members in a sort order, ignoring their IDs
+     * @param order the Comparator from getSortOrder()
+     * @param a the first Member
+     * @param b the second Member
+     * @return a negative number, zero, or a positive number if a's name comes before, is the same as, or comes after b's name
+     */
+    private static int compareNames(Comparator<Member> order, Member a, Member b) {
+        int result;
+        if (order == FIRST_NAME_ORDER) {
+            result = a.getFirstName().compareTo(b.getFirstName());
+            if (result == 0) {
+                result = a.getLastname().compareTo(b.getLastname());
+            }
+        }
+        else {
+            result = a.getLastname().compareTo(b.getLastname());
+            if (result == 0) {
+                result = a.getFirstName().compareTo(b.getFirstName());
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Mutator method to add a member
+     * @param m the Member to be added to the team
+     */
+    public synchronized void addMember(Member m) {
+        
+        // Add member to the allMembers ArrayList at its sorted position
+        int index = insertMember(m);
+        
+        /* 
+        Note: add member to other subteams only when requested in their respective mutator methods: 
+        this way, we do not have to continually re-sort multiple arrays
+        */
+        
+        // Set list of filtered members to default (no filter)
+        resetFilters();
+        
+        for (TeamListListener listener : listeners) {
+            listener.memberInserted(index);
+        }
+        
+        history.record("Added " + m.getFullName(), numMembers, Collections.singletonList(m), Collections.emptyList());
+        if (storageOpen) {
+            storage.logAdd(m);
+        }
+        commitChanges(1);
+    }
+    
+    /**
+     * Mutator method to add many members at once, i.e. when importing a file.
+     * The members are appended and then the whole list is sorted once, instead of inserting each member individually
+     * @param members the Members to be added to the team
+     */
+    public synchronized void addMembers(Collection<Member> members) {
+        for (Member m : members) {
+            assignId(m);
+        }
+        allMembers.addAll(members);
+        numMembers = allMembers.size();
+        version++;
+        
+        for (Member m : members) {
+            indexMember(m);
+            
+            if (storageOpen) {
+                storage.logAdd(m);
+            }
+        }
+        
+        // One O(n log n) sort for the whole batch
+        allMembers.sort(getSortOrder());
+        
+        // Set list of filtered members to default (no filter)
+        resetFilters();
+        fireMembersChanged();
+        
+        history.record("Added " + members.size() + " members", numMembers, members, Collections.emptyList());
+        commitChanges(members.size());
+    }
+    
+    /**
+     * Add members that are already sorted (i.e. loaded from a BinaryRoster) without sorting them again, unless they were sorted
+     * in the other order. The members are not journaled, since they are already saved
+     * @param members the ArrayList of Members in sorted order
+     * @param sortedByFirstName true if the members are sorted by first name, false if they are sorted by last name
+     */
+    synchronized void addSortedMembers(ArrayList<Member> members, boolean sortedByFirstName) {
+        // Members keep the IDs they were saved with. Members from files without IDs get IDs in order, so members with the same name keep the order they were saved in
+        for (Member m : members) {
+            assignId(m);
+        }
+        allMembers.addAll(members);
+        numMembers = allMembers.size();
+        version++;
+        
+        for (Member m : members) {
+            indexMember(m);
+        }
+        
+        // The members can only be used as they are if they are in this team's order and the team was empty
+        if (sortedByFirstName != sortByFirstName || allMembers.size() != members.size()) {
+            allMembers.sort(getSortOrder());
+        }
+        
+        resetFilters();
+        fireMembersChanged();
+    }
+    
+    /**
+     * Delete all members in the team by re-initializing all instance variables
+     */
+    public synchronized void deleteAll() {
+        ArrayList<Member> deleted = allMembers;
+        initialize();
+        version++;
+        fireMembersChanged();
+        
+        history.record("Deleted all " + deleted.size() + " members", 0, Collections.emptyList(), deleted);
+        if (storageOpen) {
+            storage.logClear();
+        }
+        commitChanges(1);
+    }
+    
+    /**
+     * Method that searches for a member and then deletes them from the main allMembers ArrayList.
+     * @param m the Member to be deleted from the team 
+     * @return boolean indicating if member was successfully deleted (if deleted then return true, else return false)
+     */
+    public synchronized boolean deleteMember(Member m) {
+        int index = findMember(m);
+        
+        if (index == -1) {
+            return false;
+        }
+        
+        Member removed = removeMemberAt(index);
+        
+        for (TeamListListener listener : listeners) {
+            listener.memberRemoved(index);
+        }
+        
+        history.record("Deleted " + removed.getFullName(), numMembers, Collections.emptyList(), Collections.singletonList(removed));
+        if (storageOpen) {
+            storage.logDelete(removed);
+        }
+        commitChanges(1);
+        return true;
+    }
+    
+    /**
+     * Method that deletes a member by index from the main allMembers ArrayList
+     * @param indexToDelete the index of the Member that is to be deleted (from the main allMembers ArrayList)
+     * @return boolean value indicating whether the member was successfully deleted (if deleted then return true, else return false)
+     */
+    public synchronized boolean deleteMember(int indexToDelete) {
+        if (indexToDelete < allMembers.size()) {
+            Member removed = removeMemberAt(indexToDelete);
+            
+            for (TeamListListener listener : listeners) {
+                listener.memberRemoved(indexToDelete);
+            }
+            
+            history.record("Deleted " + removed.getFullName(), numMembers, Collections.emptyList(), Collections.singletonList(removed));
+            if (storageOpen) {
+                storage.logDelete(removed);
+            }
+            commitChanges(1);
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Method that deletes a member by their ID, using the ID map instead of searching for the member
+     * @param id the ID of the Member that is to be deleted
+     * @return boolean indicating if member was successfully deleted (false if no member has the ID)
+     */
+    public synchronized boolean deleteMemberById(int id) {
+        Member m = membersById.get(id);
+        
+        if (m == null) {
+            return false;
+        }
+        return deleteMember(m);
+    }
+    
+    /**
+     * Method that deletes many members by their IDs at once, i.e. when deleting the members selected in the table.
+     * Each member is found with the ID map, and then all of them are removed from allMembers in a single pass
+     * @param ids the Collection of IDs of the Members that are to be deleted
+     * @return the number of members that were deleted
+     */
+    public synchronized int deleteMembers(Collection<Integer> ids) {
+        HashSet<Integer> idsToDelete = new HashSet<>();
+        ArrayList<Member> membersToDelete = new ArrayList<>(ids.size());
+        
+        for (Integer id : ids) {
+            Member m = membersById.get(id);
+            
+            if (m != null && idsToDelete.add(id)) {
+                membersToDelete.add(m);
+            }
+        }
+        
+        if (membersToDelete.isEmpty()) {
+            return 0;
+        }
+        
+        // Remove all the members with one pass over allMembers instead of one search per member
+        allMembers.removeIf(m -> idsToDelete.contains(m.getId()));
+        numMembers = allMembers.size();
+        version++;
+        
+        for (Member m : membersToDelete) {
+            unindexMember(m);
+            
+            if (storageOpen) {
+                storage.logDelete(m);
+            }
+        }
+        
+        fireMembersChanged();
+        
+        history.record("Deleted " + membersToDelete.size() + " members", numMembers, Collections.emptyList(), membersToDelete);
+        commitChanges(membersToDelete.size());
+        return membersToDelete.size();
+    }
+    
+    /**
+     * Method that edits the member with an ID by replacing them with an edited copy
+     * @param id the ID of the Member that is being edited
+     * @param edited the Member containing the edited information
+     * @return boolean indicating if a member with the ID was found and edited
+     */
+    public synchronized boolean editMember(int id, Member edited) {
+        Member original = membersById.get(id);
+        
+        if (original == null) {
+            return false;
+        }
+        return editMember(original, edited);
+    }
+    
+    /**
+     * Method that edits a member by replacing them with an edited copy. 
+     * Edits must go through this method (instead of the Member's mutator methods) so the search index stays up to date
+     * @param original the Member that is being edited
+     * @param edited the Member containing the edited information
+     * @return boolean indicating if the original member was found and edited
+     */
+    public synchronized boolean editMember(Member original, Member edited) {
+        int index = findMember(original);
+        
+        if (index == -1) {
+            return false;
+        }
+        
+        Member removed = removeMemberAt(index);
+        
+        // The edited member keeps the original member's ID
+        edited.setId(removed.getId());
+        int newIndex = insertMember(edited);
+        resetFilters();
+        
+        // Only the rows between the old and new position of the member changed
+        for (TeamListListener listener : listeners) {
+            listener.membersUpdated(Math.min(index, newIndex), Math.max(index, newIndex));
+        }
+        
+        history.record("Edited " + removed.getFullName(), numMembers, Collections.singletonList(edited), Collections.singletonList(removed));
+        if (storageOpen) {
+            storage.logEdit(removed, edited);
+        }
+        commitChanges(1);
+        return true;
+    }
+    
+    /**
+     * Narrow the active filter to the members set in a bitmap (bitmap AND), then update the filtered view.
+     * If the same filters were applied since the team last changed, the filter is copied from the result cache instead
+     * @param filter the String describing the filter, i.e. "grade=10"
+     * @param bitmap the BitSet of member slots to keep (null if no member matches)
+     */
+    private void applyFilter(String filter, BitSet bitmap) {
+        filterKey = filterKey + filter + ";";
+        String cacheKey = getCacheKey("filter", "");
+        BitSet cached = filterCache.get(cacheKey);
+        
+        if (cached != null) {
+            filterMask = (BitSet) cached.clone();
+        }
+        else {
+            if (bitmap == null) {
+                filterMask = new BitSet();
+            }
+            else if (filterMask == null) {
+                // Copy the index bitmap so later changes to the index don't change the filter
+                filterMask = (BitSet) bitmap.clone();
+            }
+            else {
+                filterMask.and(bitmap);
+            }
+            filterCache.put(cacheKey, (BitSet) filterMask.clone());
+        }
+        
+        filteredMembers = new FilteredMemberList(allMembers, filterMask);
+    }
+    
+    /**
+     * Filter team based on grade input
+     * @param grade the grade that is to be filtered
+     */
+    public synchronized void filterByGrade(int grade) {
+        applyFilter("grade=" + grade, gradeBitmaps.get(grade));
+    }
+    
+    /**
+     * Filter team based on subteam input
+     * @param subteam the String containing the subteam that is to be filtered
+     */
+    public synchronized void filterBySubteam(String subteam) {
+        /* 
+        If the selected subteam is "None" (last element in the SUBTEAMS array) then 
+        getSubteamKey returns an empty String to search for members with no subteam
+        Note: an empty String is the default value for no subteam in the Member class  
+        */
+        applyFilter("subteam=" + getSubteamKey(subteam), subteamBitmaps.get(getSubteamKey(subteam)));
+    }
+    
+    /**
+     * Filter team based on event ID input
+     * @param eventID the String containing the event ID that is to be filtered (i.e. BFS)
+     */
+    public synchronized void filterByEvent(String eventID) {
+        applyFilter("event=" + getEventKey(eventID), eventBitmaps.get(getEventKey(eventID)));
+    }
+    
+    /**
+     * Read csv or txt file to import Members into the main team list (allMembers).
+     * The file is read as UTF-8 (the charset exports and storage files are written in) with a streaming CsvReader, so quoted fields (i.e. containing commas) are supported.
+     * Rows that can't be read are skipped and recorded in the list returned by getImportErrors()
+     * @param fileName the String containing the path and name of the imported file
+     */
+    public void importMembers(String fileName) {
+        try {
+            importMembers(new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8));
+        }
+        catch (FileNotFoundException error) {
+            // Error handling
+            System.out.println("Troubleshoot file reading error");
+            importErrors = new ArrayList<>();
+        }
+    }
+    
+    /**
+     * Read csv members from a Reader into the main team list (allMembers), i.e. a storage file that has to be read in a known charset.
+     * Rows that can't be read are skipped and recorded in the list returned by getImportErrors()
+     * @param input the Reader for the csv file (it is closed when the file has been read)
+     */
+    public void importMembers(Reader input) {
+        ArrayList<Member> importedMembers = new ArrayList<>(ARRAYLIST_DEFAULT_CAPACITY);
+        importErrors = new ArrayList<>();
+        
+        try {
+            importedMembers = readMembers(input, importErrors);
+        }
+        catch (IOException error) {
+            // Error handling
+            System.out.println("Troubleshoot file reading error");
+        }
+        
+        // Add all imported members with a single sort
+        addMembers(importedMembers);
+    }
+    
+    /**
+     * Read the members in a csv file without adding them to a team. Static so that files can be read on a background thread.
+     * The reader is closed when the file has been read
+     * @param input the Reader for the csv file (i.e. an InputStreamReader for UTF-8)
+     * @param errors the ArrayList that a description of each skipped row is added to
+     * @return the ArrayList of Members read from the file, in the order of the file
+     * @throws IOException if the file cannot be read
+     * @throws InterruptedIOException if the thread reading the file was interrupted (i.e. the import was cancelled)
+     */
+    static ArrayList<Member> readMembers(Reader input, ArrayList<String> errors) throws IOException {
+        ArrayList<Member> importedMembers = new ArrayList<>(ARRAYLIST_DEFAULT_CAPACITY);
+        
+        try (CsvReader reader = new CsvReader(input)) {
+            
+            while (reader.nextRow()) {
+                
+                if (reader.getRowNumber() % 1024 == 0 && Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException("Import cancelled");
+                }
+                
+                // Add member data as long as row is not the first row (which is the header row)
+                if (reader.getRowNumber() == 1) {
+                    continue;
+                }
+                
+                // First name, last name, email, and grade are required
+                if (reader.getFieldCount() < 4) {
+                    reportImportError(errors, reader.getRowNumber(), "expected at least 4 fields but found " + reader.getFieldCount());
+                    continue;
+                }
+                
+                int grade;
+                try {
+                    grade = reader.getInt(3);
+                }
+                catch (NumberFormatException error) {
+                    reportImportError(errors, reader.getRowNumber(), "grade \"" + reader.getField(3) + "\" is not a number");
+                    continue;
+                }
+                
+                // Subteam and event ID are optional
+                if (reader.getFieldCount() >= 6) {
+                    importedMembers.add(new Member(reader.getField(0), reader.getField(1), reader.getField(2), 
+                            grade, reader.getField(4), reader.getField(5)));
+                }
+                else if (reader.getFieldCount() == 5) {
+                    importedMembers.add(new Member(reader.getField(0), reader.getField(1), reader.getField(2), 
+                            grade, reader.getField(4), ""));
+                }
+                else {
+                    importedMembers.add(new Member(reader.getField(0), reader.getField(1), reader.getField(2), grade));
+                }
+            }
+        }
+        
+        return importedMembers;
+    }
+    
+    /**
+     * Record a row that could not be imported
+     * @param errors the ArrayList of skipped rows
+     * @param rowNumber the row number in the imported file
+     * @param problem the String describing why the row was skipped
+     */
+    private static void reportImportError(ArrayList<String> errors, long rowNumber, String problem) {
+        String message = "Row " + rowNumber + ": " + problem;
+        errors.add(message);
+        System.out.println("Skipped " + message);
+    }
+    
+    /**
+     * Mutator method to reset filters
+     */
+    public synchronized void resetFilters() {
+        // Set filtered list to be the same as the main list
+        filterMask = null;
+        filterKey = "";
+        filteredMembers = allMembers;
+    }
+    
+    /**
+     * Mutator method to reset searches. This is a private method because searches are 
+     * automatically reset after each search so layering search upon search is not possible,
+     * thus it will only be privately called within TeamList and not in Gui
+     */
+    private void resetSearch() {
+        searchedMembers = new ArrayList<>();
+        partialSearchQueries = new ArrayList<>();
+    }
+    
+    /**
+     * Mutator method to set whether TeamList sorts by first name or by last name
+     * @param x the boolean variable: if true, sort by first name. If false, sort by last name
+     */
+    public synchronized void setSortByFirstName(boolean x) {
+        sortByFirstName = x;
+    }
+    
+    /**
+     * Accessor method to check whether TeamList sorts by first name or by last name
+     * @return true if the team is sorted by first name, false if it is sorted by last name
+     */
+    public synchronized boolean isSortByFirstName() {
+        return sortByFirstName;
+    }
+    
+    /**
+     * Method to sort allMembers alphabetically, either by first name or 
+     * last name depending on the boolean flag sortByFirstName.
+     * Uses the stable O(n log n) merge sort in ArrayList.sort, so members with the same name keep their relative order
+     */
+    public synchronized void sort() {
+        allMembers.sort(getSortOrder());
+        version++;
+        fireMembersChanged();
+    }
+    
+    /**
+     * Method to change the sorting setting using a copy of the team that was sorted on a background thread.
+     * If the team changed after the copy was taken, the team is sorted again here instead
+     * @param byFirstName the boolean variable: if true, sort by first name. If false, sort by last name
+     * @param sorted the ArrayList containing every Member of the team in the new sorted order
+     * @param copiedVersion the version of the team when the copy was taken (from getVersion())
+     */
+    public synchronized void applySort(boolean byFirstName, ArrayList<Member> sorted, long copiedVersion) {
+        sortByFirstName = byFirstName;
+        
+        if (copiedVersion != version || sorted.size() != allMembers.size()) {
+            sort();
+            return;
+        }
+        
+        // Copy the sorted order into allMembers so views of allMembers (i.e. the table) stay valid
+        for (int i = 0; i < sorted.size(); i++) {
+            allMembers.set(i, sorted.get(i));
+        }
+        version++;
+        
+        if (filterMask != null) {
+            ((FilteredMemberList) filteredMembers).refresh();
+        }
+        fireMembersChanged();
+    }
+    
+    /**
+     * Create an empty TeamList to import members into on a background thread. It uses the same sorting setting as this team
+     * and gives out IDs after this team's IDs, so its members can replace this team's members with replaceWith()
+     * @return the new TeamList
+     */
+    synchronized TeamList createStagingList() {
+        TeamList staged = new TeamList();
+        staged.sortByFirstName = sortByFirstName;
+        staged.nextId = nextId;
+        return staged;
+    }
+    
+    /**
+     * Replace every member of the team with the members of a staging list that was built on a background thread.
+     * Swapping the lists and indexes takes constant time, so a large import does not block the Gui.
+     * The staging list must have been written to a file by the storage, which is installed in the storage so the journal does not have to record every member.
+     * If the staging list kept the existing members, only the imported members are recorded in the history (its copies of the existing members count as the same members)
+     * @param staged the TeamList from createStagingList() containing the new team (it should not be used afterwards)
+     * @param imported the Collection of imported Members in the staging list
+     * @param keptExisting true if the staging list also contains (copies of) every member of this team, false if it replaces them
+     * @param snapshot the File that the staging list was written to with the storage's write() (i.e. getStorage().getImportFile())
+     * @param checksum the String that write() returned for the file
+     * @return boolean indicating if the new team was saved (if false, it will still be saved when the program closes)
+     */
+    synchronized boolean replaceWith(TeamList staged, Collection<Member> imported, boolean keptExisting, File snapshot, String checksum) {
+        if (keptExisting) {
+            history.record("Imported " + imported.size() + " members", staged.numMembers, imported, Collections.emptyList());
+        }
+        else {
+            history.record("Imported " + imported.size() + " members", staged.numMembers, staged.allMembers, allMembers);
+        }
+        allMembers = staged.allMembers;
+        membersById = staged.membersById;
+        searchIndex = staged.searchIndex;
+        fuzzyIndex = staged.fuzzyIndex;
+        phoneticIndex = staged.phoneticIndex;
+        prefixIndex = staged.prefixIndex;
+        gradeBitmaps = staged.gradeBitmaps;
+        subteamBitmaps = staged.subteamBitmaps;
+        eventBitmaps = staged.eventBitmaps;
+        importErrors = staged.importErrors;
+        nextSlot = staged.nextSlot;
+        nextId = Math.max(nextId, staged.nextId);
+        numMembers = staged.numMembers;
+        version++;
+        
+        resetFilters();
+        resetSearch();
+        fireMembersChanged();
+        
+        // The file already contains the whole team, so it replaces the storage file and the journal starts over on top of it
+        try {
+            storage.install(snapshot, checksum);
+            savedMutationCount = mutationCount;
+            return true;
+        }
+        catch (IOException error) {
+            System.out.println("Error in saving imported members");
+            return false;
+        }
+    }
+    
+    /**
+     * Restore the team to an earlier (or later) version from the history. The restore is a change like any other: it becomes a new version,
+     * so it can be undone too, and it is journaled as the members it deletes and adds. Only the members that differ between the two versions
+     * are changed, so the time taken depends on the size of the difference, not the size of the team
+     * @param number the number of the version to restore
+     * @return boolean indicating if the version was found and restored
+     */
+    public synchronized boolean restoreVersion(long number) {
+        RosterHistory.Diff diff = history.diff(history.getCurrentNumber(), number);
+        
+        if (diff == null) {
+            return false;
+        }
+        ArrayList<Member> added = diff.getAdded();
+        ArrayList<Member> removed = diff.getRemoved();
+        
+        if (added.size() + removed.size() <= RESTORE_INSERT_LIMIT) {
+            // A small difference (i.e. undoing an edit) is applied one member at a time at their sorted positions
+            for (Member m : removed) {
+                int index = findMember(m);
+                if (index != -1) {
+                    removeMemberAt(index);
+                }
+            }
+            for (Member m : added) {
+                insertMember(m);
+            }
+        }
+        else {
+            // A large difference (i.e. undoing Delete All) is applied with one pass to remove members and one sort, like deleteMembers() and addMembers().
+            // Members are matched by ID and information, since the team may hold an imported copy of a member instead of the one in the history
+            HashMap<Integer, Member> membersToRemove = new HashMap<>();
+            for (Member m : removed) {
+                membersToRemove.put(m.getId(), m);
+            }
+            ArrayList<Member> removedMembers = new ArrayList<>();
+            allMembers.removeIf(m -> {
+                Member match = membersToRemove.get(m.getId());
+                if (match != null && match.equals(m)) {
+                    removedMembers.add(m);
+                    return true;
+                }
+                return false;
+            });
+            for (Member m : removedMembers) {
+                unindexMember(m);
+            }
+            
+            allMembers.addAll(added);
+            for (Member m : added) {
+                indexMember(m);
+            }
+            allMembers.sort(getSortOrder());
+            numMembers = allMembers.size();
+            version++;
+        }
+        
+        resetFilters();
+        fireMembersChanged();
+        
+        history.record("Restored version " + number, numMembers, added, removed);
+        if (storageOpen) {
+            for (Member m : removed) {
+                storage.logDelete(m);
+            }
+            for (Member m : added) {
+                storage.logAdd(m);
+            }
+        }
+        commitChanges(added.size() + removed.size());
+        return true;
+    }
+    
+    /**
+     * Mutator method to add a listener that is told about changes to the team list
+     * @param listener the TeamListListener to be added
+     */
+    public void addTeamListListener(TeamListListener listener) {
+        listeners.add(listener);
+    }
+    
+    /**
+     * Tell every listener that many members changed at once
+     */
+    private void fireMembersChanged() {
+        for (TeamListListener listener : listeners) {
+            listener.membersChanged();
+        }
+    }
+    
+    
+    
+    // Accessor Methods
+    
+    /**
+     * Accessor method to get a Member at a specified index in the main list
+     * @param index the index where the member is located
+     * @return the Member at the specified index in the main list
+     */
+    public Member get(int index) {
+        return allMembers.get(index);
+    }
+    
+    /**
+     * Accessor method to get indexes of filtered members
+     * @return ArrayList containing the index of the filtered members in the main list
+     */
+    public ArrayList<Integer> getFilteredIndex() {
+        ArrayList<Integer> filteredIndex = new ArrayList<>(filteredMembers.size());
+        
+        for (int i = 0; i < allMembers.size(); i++) {
+            if (filterMask == null || filterMask.get(allMembers.get(i).getSlot())) {
+                filteredIndex.add(i);
+            }
+        }
+        return filteredIndex;
+    }
+    
+    /**
+     * Accessor method to get the Member with an ID
+     * @param id the ID of the Member
+     * @return the Member with the ID, or null if no member in the team has the ID
+     */
+    public Member getMemberById(int id) {
+        return membersById.get(id);
+    }
+    
+    /**
+     * Accessor method to get filtered team list. The list is a view of the main list, so it is not copied for every filter.
+     * The view remembers the last member that was read, so it must only be read on one thread (the Gui's table).
+     * Searches that run on background threads read the team instead of the view
+     * @return filtered List of Members
+     */
+    public List<Member> getFilteredList() {
+        return filteredMembers;
+    }
+    
+    /**
+     * Accessor method to get the rows that were skipped by the last import
+     * @return ArrayList containing a description of each skipped row
+     */
+    public ArrayList<String> getImportErrors() {
+        return importErrors;
+    }
+    
+    /**
+     * Accessor method to get members on the team list
+     * @return ArrayList containing the Members of the team
+     */
+    public ArrayList<Member> getMembers() {
+       return allMembers;
+    }
+    
+    /**
+     * Accessor method to get the version of the team, which changes every time a member is added, deleted, or moved.
+     * Background tasks compare versions to check that the team did not change while they were working on a copy of it
+     * @return the version of the team
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Accessor method to check if the team has changes that haven't been saved (forced to disk in the journal or the storage file)
+     * @return true if the team is dirty
+     */
+    public synchronized boolean isDirty() {
+        return mutationCount != savedMutationCount;
+    }
+    
+    /**
+     * Accessor method to get the number of members that were added, deleted, or edited since the team was created
+     * @return the mutation count
+     */
+    public synchronized long getMutationCount() {
+        return mutationCount;
+    }
+    
+    /**
+     * Accessor method to get the number of changes that haven't been saved
+     * @return the number of unsaved changes (0 if the team is not dirty)
+     */
+    public synchronized long getNumUnsavedChanges() {
+        return mutationCount - savedMutationCount;
+    }
+    
+    /**
+     * Accessor method to get the time of the first change that hasn't been saved
+     * @return the time in milliseconds (only meaningful if the team is dirty)
+     */
+    public synchronized long getFirstUnsavedChangeTime() {
+        return firstUnsavedChangeTime;
+    }
+    
+    /**
+     * Accessor method to get the time of the last change to the members
+     * @return the time in milliseconds (0 if the members were never changed)
+     */
+    public synchronized long getLastChangeTime() {
+        return lastChangeTime;
+    }
+    
+    /**
+     * Accessor method to get the storage the team is saved to
+     * @return the RosterStorage
+     */
+    public RosterStorage getStorage() {
+        return storage;
+    }
+    
+    /**
+     * Accessor method to get the versions of the team since it was opened (see restoreVersion())
+     * @return the ArrayList of Versions, oldest first
+     */
+    public synchronized ArrayList<RosterHistory.Version> getVersions() {
+        return history.getVersions();
+    }
+    
+    /**
+     * Accessor method to get the number of the current version of the team
+     * @return the version number
+     */
+    public synchronized long getCurrentVersionNumber() {
+        return history.getCurrentNumber();
+    }
+    
+    /**
+     * Find the members that differ between two versions of the team
+     * @param from the number of the first version
+     * @param to the number of the second version
+     * @return the Diff containing the members added and removed going from the first version to the second, or null if either version is not in the history
+     */
+    public synchronized RosterHistory.Diff diffVersions(long from, long to) {
+        return history.diff(from, to);
+    }
+    
+    /**
+     * Build the result cache key for a search or filter. The key contains everything the result depends on: the kind of result,
+     * the query, the active filters, the sort order, and the version of the team. Cached results are cleared when the version
+     * changes, since they can never be used again
+     * @param kind the String naming the kind of result (i.e. "search")
+     * @param query the normalized query
+     * @return the String key
+     */
+    private String getCacheKey(String kind, String query) {
+        if (version != cachedVersion) {
+            searchCache.clear();
+            filterCache.clear();
+            cachedVersion = version;
+        }
+        return kind + '\u0000' + query + '\u0000' + filterKey + '\u0000' + sortByFirstName + '\u0000' + version;
+    }
+    
+    /**
+     * Get a copy of cached search results, so the caller can change it without changing the cache
+     * @param cacheKey the String key from getCacheKey()
+     * @return the copy of the cached ArrayList of Members, or null if the results are not cached
+     */
+    private ArrayList<Member> getCachedResults(String cacheKey) {
+        ArrayList<Member> cached = searchCache.get(cacheKey);
+        if (cached == null) {
+            return null;
+        }
+        return new ArrayList<>(cached);
+    }
+    
+    /**
+     * Cache a copy of search results. Results of interrupted searches are incomplete, so they are not cached,
+     * and very large results are not cached so the cache can't use too much memory
+     * @param cacheKey the String key from getCacheKey()
+     * @param results the ArrayList of Members that was found
+     * @return the results
+     */
+    private ArrayList<Member> cacheResults(String cacheKey, ArrayList<Member> results) {
+        if (!Thread.currentThread().isInterrupted() && results.size() <= MAX_CACHED_RESULTS) {
+            searchCache.put(cacheKey, new ArrayList<>(results));
+        }
+        return results;
+    }
+    
+    /**
+     * Take a snapshot of the team for a search that runs without holding the lock. Must be called while the team is locked
+     * @param cacheKey the String key from getCacheKey() that the results will be cached under
+     * @return the SearchSnapshot
+     */
+    private SearchSnapshot takeSearchSnapshot(String cacheKey) {
+        return new SearchSnapshot(cacheKey, version, getSortOrder(), filterMask, filteredMembers.size());
+    }
+    
+    /**
+     * Find the candidates for a query in the trigram index. The lock is only held while the index is read, not while the candidates are checked
+     * @param key the lowercase UTF-8 bytes of the query (at least 3 bytes)
+     * @return the ArrayList of candidate Members in slot order
+     */
+    private synchronized ArrayList<Member> getCandidates(byte[] key) {
+        return searchIndex.getCandidates(key);
+    }
+    
+    /**
+     * Cache the results of a search that ran without the lock, unless the team changed while it ran (they may be out of date)
+     * @param snapshot the SearchSnapshot taken when the search started
+     * @param results the ArrayList of Members that was found
+     * @return the results
+     */
+    private synchronized ArrayList<Member> cacheIfUnchanged(SearchSnapshot snapshot, ArrayList<Member> results) {
+        if (version == snapshot.version && getSortOrder() == snapshot.order) {
+            return cacheResults(snapshot.cacheKey, results);
+        }
+        return results;
+    }
+    
+    /**
+     * Put the matches of a search that ran without the lock in the order of the filtered list, and cache them.
+     * A few matches are sorted without the lock. When most of the filtered list matched, it is faster to read the team in order,
+     * which is done while holding the lock if the team didn't change while the search ran
+     * @param snapshot the SearchSnapshot taken when the search started
+     * @param matches the ArrayList of matching Members, in any order
+     * @return the ArrayList of matching Members in the order of the filtered list
+     */
+    private ArrayList<Member> finishSearch(SearchSnapshot snapshot, ArrayList<Member> matches) {
+        if (matches.size() <= snapshot.filteredSize / 16) {
+            matches.sort(snapshot.order);
+            return cacheIfUnchanged(snapshot, matches);
+        }
+        
+        synchronized (this) {
+            if (version == snapshot.version && getSortOrder() == snapshot.order) {
+                BitSet matchingSlots = new BitSet(nextSlot);
+                for (Member m : matches) {
+                    matchingSlots.set(m.getSlot());
+                }
+                return cacheResults(snapshot.cacheKey, getMembersInOrder(matchingSlots));
+            }
+        }
+        matches.sort(snapshot.order);
+        return matches;
+    }
+    
+    /**
+     * Read the members whose slots are set in a bitmap in the order of the team list. Reads allMembers instead of the filtered view,
+     * since the view belongs to the Gui's table. Must be called while the team is locked
+     * @param slots the BitSet of slots
+     * @return the ArrayList of Members in sorted order
+     */
+    private ArrayList<Member> getMembersInOrder(BitSet slots) {
+        ArrayList<Member> ordered = new ArrayList<>(slots.cardinality());
+        for (Member m : allMembers) {
+            if (slots.get(m.getSlot())) {
+                ordered.add(m);
+            }
+        }
+        return ordered;
+    }
+    
+    /**
+     * Accessor method to get the number of searches and filters that were found in the result cache
+     * @return the number of cache hits
+     */
+    public synchronized long getCacheHits() {
+        return searchCache.getHits() + filterCache.getHits();
+    }
+    
+    /**
+     * Accessor method to get the number of searches and filters that had to be computed because they were not in the result cache
+     * @return the number of cache misses
+     */
+    public synchronized long getCacheMisses() {
+        return searchCache.getMisses() + filterCache.getMisses();
+    }
+    
+    /**
+     * Accessor method to get number of total members in list
+     * @return 
+     */
+    public int getNumMembers() {
+        return numMembers;
+    }
+    
+    /**
+     * Searches the filteredList for a String query and returns an ArrayList of members containing that query in their name, email, or eventID
+     * The search will match partial queries as well as full queries (i.e. John will match a search for "Johnny" and vice versa)
+     * The search stops early and returns an empty list if the thread running it is interrupted (i.e. a newer search replaced it)
+     * @param query the String search query. Must be at least 3 characters long
+     * @return the ArrayList of Members that match the search (or partial search) in order of relevance
+     */
+    public synchronized ArrayList<Member> getSearch(String query) {
+        String cacheKey = getCacheKey("search", query.toLowerCase());
+        ArrayList<Member> cached = getCachedResults(cacheKey);
+        if (cached != null) {
+            searchedMembers = cached;
+            return searchedMembers;
+        }
+        return cacheResults(cacheKey, findSearchResults(query));
+    }
+    
+    /**
+     * Search for getSearch() without using the result cache
+     * @param query the String search query
+     * @return the ArrayList of Members that match the search (or partial search) in order of relevance
+     */
+    private ArrayList<Member> findSearchResults(String query) {
+        // First, reset any previous searches
+        resetSearch();
+        
+        // Do not proceed if we don't meet the minumum search query length
+        if (query.length() < MIN_SEARCH_QUERY_LENGTH) {
+            return (new ArrayList<>());
+        }
+        
+        // Slots of the members that already matched a partial query, so each member is only added once (replaces a linear contains() check)
+        BitSet matchedSlots = new BitSet(nextSlot);
+        int numMatched = 0;
+        byte[] currentQuery;
         
         // Populate the partialSearchQueries ArrayList with the partial queries to be searched for
         findAllSubstrings(query, 0);
         
+        // Matching members grouped by the first (longest) partial query they contain, in slot order
+        ArrayList<ArrayList<Member>> resultsByQuery = new ArrayList<>(partialSearchQueries.size());
+        
         for (int queryIndex = 0; queryIndex < partialSearchQueries.size(); queryIndex++) {
+            ArrayList<Member> queryResults = new ArrayList<>();
+            resultsByQuery.add(queryResults);
             
-            for (int i = 0; i < filteredMembers.size(); i++) {
+            // Stop if the search was cancelled
+            if (Thread.currentThread().isInterrupted()) {
+                return new ArrayList<>();
+            }
+            
+            // Once every filtered member has matched, shorter partial queries can't add anything
+            if (numMatched == filteredMembers.size()) {
+                continue;
+            }
+            
+            // Lowercase UTF-8 bytes, compared with the search key cached on each member
+            currentQuery = Member.toSearchKey(partialSearchQueries.get(queryIndex));
+            
+            // Only members containing every trigram of the partial query can match it
+            ArrayList<Member> candidates = searchIndex.getCandidates(currentQuery);
+            
+            // Check if the search query is found in the member's name, email, event (retrieved from Member.getSearchKey()),
+            // skipping members outside the filter and members that already matched a longer (more relevant) partial query.
+            // Large candidate lists are checked in parallel, then the matches are read back in slot order
+            boolean[] matches = CandidateMatcher.match(candidates, currentQuery, filterMask, matchedSlots);
+            
+            for (int i = 0; i < matches.length; i++) {
+                if (matches[i]) {
+                    Member tempMember = candidates.get(i);
+                    matchedSlots.set(tempMember.getSlot());
+                    queryResults.add(tempMember);
+                    numMatched++;
+                }
+            }
+        }
+        
+        // The matches of the last partial query are incomplete if the search was cancelled while checking them
+        if (Thread.currentThread().isInterrupted()) {
+            return new ArrayList<>();
+        }
+        if (numMatched == 0) {
+            return searchedMembers;
+        }
+        
+        // Put the members matching each partial query in the order of the filtered list.
+        // Sorting each group is faster for a few matches, reading the filtered list in order is faster when most of it matched
+        if (numMatched <= filteredMembers.size() / 16) {
+            for (ArrayList<Member> queryResults : resultsByQuery) {
+                queryResults.sort(getSortOrder());
+            }
+        }
+        else {
+            int[] rankBySlot = new int[nextSlot];
+            for (int i = 0; i < resultsByQuery.size(); i++) {
+                for (Member m : resultsByQuery.get(i)) {
+                    rankBySlot[m.getSlot()] = i;
+                }
+                resultsByQuery.get(i).clear();
+            }
+            
+            for (Member m : getMembersInOrder(matchedSlots)) {
+                resultsByQuery.get(rankBySlot[m.getSlot()]).add(m);
+            }
+        }
+        
+        // Longer partial queries are first in partialSearchQueries, so their matches are ranked first
+        searchedMembers.ensureCapacity(numMatched);
+        for (int i = 0; i < resultsByQuery.size(); i++) {
+            searchedMembers.addAll(resultsByQuery.get(i));
+        }
+        
+        return searchedMembers;
+    }
+    
+    /**
+     * Ranked search that only keeps the k most relevant members, so broad searches of a large team don't create a huge result list.
+     * Like getSearch(), members matching a longer part of the query rank higher. Members matching parts of the same length are ranked by
+     * SearchScorer (names before event IDs before emails, and the start of a field or word before the middle), then in the order of the filtered list.
+     * The best k are kept in a priority queue that holds the worst of them at its head, and the search stops once the shorter parts of the
+     * query can't score high enough to replace any of them
+     * @param query the String search query. Must be at least 3 characters long
+     * @param k the largest number of results
+     * @return the ArrayList of at most k Members, most relevant first (empty if the thread was interrupted)
+     */
+    public ArrayList<Member> getTopSearch(String query, int k) {
+        SearchSnapshot snapshot;
+        ArrayList<String> partialQueries;
+        synchronized (this) {
+            String cacheKey = getCacheKey("top" + k, query.toLowerCase());
+            ArrayList<Member> cached = getCachedResults(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+            snapshot = takeSearchSnapshot(cacheKey);
+            
+            resetSearch();
+            if (query.length() >= MIN_SEARCH_QUERY_LENGTH) {
+                findAllSubstrings(query, 0);
+            }
+            partialQueries = new ArrayList<>(partialSearchQueries);
+        }
+        return cacheIfUnchanged(snapshot, findTopResults(partialQueries, k, snapshot));
+    }
+    
+    /**
+     * Search for getTopSearch() without using the result cache. Runs without holding the lock, except while reading the trigram index
+     * @param partialQueries the ArrayList of partial queries from findAllSubstrings(), longest first (empty if the query is too short)
+     * @param k the largest number of results
+     * @param snapshot the SearchSnapshot taken when the search started
+     * @return the ArrayList of at most k Members, most relevant first
+     */
+    private ArrayList<Member> findTopResults(ArrayList<String> partialQueries, int k, SearchSnapshot snapshot) {
+        if (partialQueries.isEmpty() || k <= 0) {
+            return new ArrayList<>();
+        }
+        
+        // Members compare lowest score first, and members later in the filtered list come first among equal scores, so the head is always the worst result
+        final Comparator<Member> sortOrder = snapshot.order;
+        final HashMap<Member, Integer> scores = new HashMap<>();
+        PriorityQueue<Member> best = new PriorityQueue<>(Math.min(k, ARRAYLIST_DEFAULT_CAPACITY), (a, b) -> {
+            int byScore = Integer.compare(scores.get(a), scores.get(b));
+            if (byScore != 0) {
+                return byScore;
+            }
+            return sortOrder.compare(b, a);
+        });
+        
+        BitSet filter = snapshot.filterMask;
+        BitSet scoredSlots = new BitSet();
+        
+        for (String partialQuery : partialQueries) {
+            byte[] partialKey = Member.toSearchKey(partialQuery);
+            
+            // Every remaining member matches a shorter part of the query at best, so stop if none of them can get into the results
+            if (best.size() == k && scores.get(best.peek()) > SearchScorer.getMaxScore(partialKey.length)) {
+                break;
+            }
+            
+            ArrayList<Member> candidates = getCandidates(partialKey);
+            for (int i = 0; i < candidates.size(); i++) {
+                Member m = candidates.get(i);
+                int slot = m.getSlot();
                 
-                tempMember = filteredMembers.get(i);
-                currentQuery = partialSearchQueries.get(queryIndex);
+                if (i % 1024 == 0 && Thread.currentThread().isInterrupted()) {
+                    return new ArrayList<>();
+                }
+                // Members deleted since the candidates were found have no slot
+                if (slot < 0 || scoredSlots.get(slot) || (filter != null && !filter.get(slot))) {
+                    continue;
+                }
                 
-                // Check if the search query is found in the member's name, email, event (retrieved from Member.getSearchString())
-                if ((tempMember.getSearchString().toLowerCase()).indexOf(currentQuery.toLowerCase()) != -1) {
-
-                    // Add tempMember to the searchedMembers list if they are not already in the list from a previous iteration of the method
-                    if (!searchedMembers.contains(tempMember)) {
-                        searchedMembers.add(tempMember);
+                int score = SearchScorer.score(m, partialKey);
+                if (score < 0) {
+                    continue;
+                }
+                scoredSlots.set(slot);
+                
+                // Only keep the member if the results aren't full yet or they beat the worst result
+                if (best.size() < k) {
+                    scores.put(m, score);
+                    best.add(m);
+                }
+                else {
+                    Member worst = best.peek();
+                    int worstScore = scores.get(worst);
+                    
+                    if (score > worstScore || (score == worstScore && sortOrder.compare(m, worst) < 0)) {
+                        scores.remove(best.poll());
+                        scores.put(m, score);
+                        best.add(m);
                     }
                 }
             }
         }
-        return searchedMembers;
+        
+        // The queue gives the worst result first, so fill the list from the end
+        Member[] ranked = new Member[best.size()];
+        for (int i = ranked.length - 1; i >= 0; i--) {
+            ranked[i] = best.poll();
+        }
+        return new ArrayList<>(Arrays.asList(ranked));
+    }
+    
+    /**
+     * Searches the filtered list for the members whose name, email, or eventID contain the whole query (ignoring case).
+     * Unlike getSearch(), partial queries are not matched, so the results for a longer query are always a subset of the results
+     * for a shorter query it contains. The Gui uses this for search-as-you-type so each keystroke can narrow the previous results
+     * @param query the String search query. Must be at least 3 characters long
+     * @return the ArrayList of Members containing the query, in the order of the filtered list (empty if the thread was interrupted)
+     */
+    public ArrayList<Member> getMembersContaining(String query) {
+        if (query.length() < MIN_SEARCH_QUERY_LENGTH) {
+            return new ArrayList<>();
+        }
+        byte[] queryKey = Member.toSearchKey(query);
+        SearchSnapshot snapshot;
+        ArrayList<Member> candidates;
+        
+        // Only the cache and the trigram index are read while holding the lock
+        synchronized (this) {
+            String cacheKey = getCacheKey("containing", query.toLowerCase());
+            ArrayList<Member> cached = getCachedResults(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+            snapshot = takeSearchSnapshot(cacheKey);
+            candidates = searchIndex.getCandidates(queryKey);
+        }
+        
+        // Only members containing every trigram of the query can contain the query (checked in parallel for large candidate lists)
+        boolean[] isMatch = CandidateMatcher.match(candidates, queryKey, snapshot.filterMask, null);
+        if (Thread.currentThread().isInterrupted()) {
+            return new ArrayList<>();
+        }
+        
+        ArrayList<Member> matches = new ArrayList<>();
+        for (int i = 0; i < isMatch.length; i++) {
+            if (isMatch[i]) {
+                matches.add(candidates.get(i));
+            }
+        }
+        return finishSearch(snapshot, matches);
+    }
+    
+    /**
+     * Autocomplete for the search box: find the first names, last names, and emails on the team that start with what was typed.
+     * Uses the sorted PrefixIndex, so it takes logarithmic time in the number of names plus the number of completions, however large the team is
+     * (the index is built by the first call). Completions come from the whole team, not just the filtered list
+     * @param prefix the String that was typed (case is ignored)
+     * @param limit the largest number of completions
+     * @return the ArrayList of completions in alphabetical order
+     */
+    public synchronized ArrayList<String> getCompletions(String prefix, int limit) {
+        return getPrefixIndex().getCompletions(prefix, limit);
+    }
+    
+    /**
+     * Typo-tolerant search of the filtered list. Each word of the query is matched against the members' first names, last names,
+     * and event IDs by edit distance (i.e. "Jonh Smiht" finds John Smith), using the BK-tree in FuzzyIndex (built by the first call)
+     * so only a small part of the distinct names has to be compared. A member matches if every word is within maxDistance of one of their fields
+     * @param query the String search query, one or more words separated by spaces
+     * @param maxDistance the largest number of character insertions, deletions, or replacements allowed for each word
+     * @return the ArrayList of matching Members, ranked by their total edit distance (closest first), then in the order of the filtered list
+     */
+    public ArrayList<Member> getFuzzySearch(String query, int maxDistance) {
+        String[] words = query.trim().split("\\s+");
+        if (words[0].isEmpty() || maxDistance < 0) {
+            return new ArrayList<>();
+        }
+        
+        // Total edit distance of each member (by slot) that matched every word so far.
+        // The lock is held while each word is looked up in the BK-tree, but not while the matches are combined and sorted
+        HashMap<Integer, Integer> distances = null;
+        for (String word : words) {
+            HashMap<Integer, Integer> wordMatches = searchFuzzyIndex(word, maxDistance);
+            
+            if (distances == null) {
+                distances = wordMatches;
+            }
+            else {
+                // Look up the members of the smaller map in the larger one
+                HashMap<Integer, Integer> smaller = distances;
+                HashMap<Integer, Integer> larger = wordMatches;
+                if (wordMatches.size() < distances.size()) {
+                    smaller = wordMatches;
+                    larger = distances;
+                }
+                
+                HashMap<Integer, Integer> combined = new HashMap<>();
+                for (Integer slot : smaller.keySet()) {
+                    Integer otherDistance = larger.get(slot);
+                    if (otherDistance != null) {
+                        combined.put(slot, smaller.get(slot) + otherDistance);
+                    }
+                }
+                distances = combined;
+            }
+        }
+        
+        // Distances are kept by member, since a member's slot is cleared if they are deleted while the matches are sorted
+        final HashMap<Member, Integer> totalDistances = new HashMap<>();
+        Comparator<Member> order;
+        synchronized (this) {
+            order = getSortOrder();
+            for (Integer slot : distances.keySet()) {
+                Member m = searchIndex.getMember(slot);
+                if (m != null && (filterMask == null || filterMask.get(slot))) {
+                    totalDistances.put(m, distances.get(slot));
+                }
+            }
+        }
+        
+        // Closest matches first, ties in the same order as the filtered list
+        ArrayList<Member> matches = new ArrayList<>(totalDistances.keySet());
+        matches.sort(Comparator.comparing((Member m) -> totalDistances.get(m)).thenComparing(order));
+        return matches;
+    }
+    
+    /**
+     * Look up a word in the FuzzyIndex (built by the first call)
+     * @param word the String word
+     * @param maxDistance the largest edit distance
+     * @return the HashMap from the slot of each matching member to their edit distance
+     */
+    private synchronized HashMap<Integer, Integer> searchFuzzyIndex(String word, int maxDistance) {
+        return getFuzzyIndex().search(word, maxDistance);
+    }
+    
+    /**
+     * "Sounds like" search of the filtered list for a spoken name (i.e. "Katherine" finds Catherine and Kathryn).
+     * Each word of the query is looked up by its phonetic code in PhoneticIndex (built by the first call), and a member matches
+     * if every word sounds like one of the words in their first or last name
+     * @param query the String containing one or more names separated by spaces (i.e. "Catherine Smyth")
+     * @return the ArrayList of matching Members in the order of the filtered list
+     */
+    public ArrayList<Member> getSoundsLike(String query) {
+        String[] words = query.trim().split("[\\s-]+");
+        if (words[0].isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        ArrayList<Member> matches;
+        Comparator<Member> order;
+        synchronized (this) {
+            // Keep the members that match every word and pass the filter
+            BitSet slots = getPhoneticIndex().getSlots(words[0]);
+            for (int i = 1; i < words.length; i++) {
+                slots.and(getPhoneticIndex().getSlots(words[i]));
+            }
+            if (filterMask != null) {
+                slots.and(filterMask);
+            }
+            
+            matches = new ArrayList<>(slots.cardinality());
+            for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+                matches.add(searchIndex.getMember(slot));
+            }
+            order = getSortOrder();
+        }
+        
+        // Sorted without holding the lock
+        matches.sort(order);
+        return matches;
+    }
+    
+    /**
+     * Searches the filtered list with a query written in the query language of MemberQuery,
+     * i.e. {@code grade:10..11 subteam:Finance NOT "wang"}. The query is compiled to a plan that reads the bitmap and trigram indexes
+     * @param query the String query
+     * @return the ArrayList of matching Members in the order of the filtered list
+     * @throws ParseException if the query is not valid
+     */
+    public ArrayList<Member> getQuery(String query) throws ParseException {
+        MemberQuery compiled = new MemberQuery(query);
+        SearchSnapshot snapshot;
+        ArrayList<Member> matches;
+        
+        // The plan reads the bitmap and trigram indexes, so it is evaluated while holding the lock
+        synchronized (this) {
+            // Operators are case sensitive, so the query is not changed to lowercase for the cache
+            String cacheKey = getCacheKey("query", query.trim());
+            ArrayList<Member> cached = getCachedResults(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+            snapshot = takeSearchSnapshot(cacheKey);
+            
+            BitSet slots = compiled.evaluate(this, filterMask);
+            int numMatched = slots.cardinality();
+            
+            // Like getMembersContaining, read the team in order when most of the filtered list matched
+            if (numMatched > filteredMembers.size() / 16) {
+                return cacheResults(cacheKey, getMembersInOrder(slots));
+            }
+            matches = new ArrayList<>(numMatched);
+            for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+                matches.add(searchIndex.getMember(slot));
+            }
+        }
+        
+        // A few matches are sorted without holding the lock
+        matches.sort(snapshot.order);
+        return cacheIfUnchanged(snapshot, matches);
     }
     
     /**
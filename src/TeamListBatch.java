@@ -0,0 +1,565 @@
+package DecaTeamOrganizer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * TeamListBatch Class that runs TeamList operations from command line arguments or a script file without opening the Gui,
+ * i.e. to merge, filter and export rosters in a scheduled job on a server. Only TeamList and java.io are used, so AWT is never loaded.
+ * <p>
+ * Each command works on the current selection of the team (every member, the filtered members, or the last search results):
+ * <pre>
+ * storage TYPE PATH    load the team from a storage (snapshot, csv or kv, see RosterStorage) and save every later change to it
+ * import FILE          add the members in a csv file ("-" reads standard input)
+ * dedupe email|exact   delete members with the same email (ignoring case) or the same information, keeping the first one added
+ * filter KEY=VALUE     narrow the selection by grade, subteam or event (filters can be combined)
+ * search QUERY         select the members matching a search query (within the filtered members)
+ * query QUERY          select the members matching a query such as grade:10..11 subteam:Finance NOT "wang" (see MemberQuery)
+ * sort first|last      sort the team by first name or last name
+ * reset                select every member again
+ * count                print the number of selected members
+ * stats                print how many searches and filters were found in the result cache
+ * export FILE          write the selected members to a csv file ("-" writes standard output)
+ * script FILE          run the commands in a file, one per line (lines starting with # are ignored)
+ * </pre>
+ * On the command line each command starts with "--", i.e. {@code --import a.csv --import b.csv --dedupe email --export -}.
+ * The storage is closed (saving the changes) when the commands finish, i.e. {@code --storage kv roster.kv --import new.csv --dedupe email}
+ * @author Hugh Jiang
+ */
+public class TeamListBatch {
+
+    // Exit status codes
+    final static int EXIT_SUCCESS = 0;
+    final static int EXIT_USAGE_ERROR = 1;
+    final static int EXIT_IO_ERROR = 2;
+    final static int EXIT_SKIPPED_ROWS = 3;
+
+    // Name of the file argument that means standard input or output
+    final static String STANDARD_STREAM = "-";
+
+    /**
+     * Exception for a command that can't be run (unknown command or wrong arguments)
+     */
+    static class UsageException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        UsageException(String message) {
+            super(message);
+        }
+    }
+
+    // Instance variables
+    private TeamList team;
+    private ArrayList<Member> searchResults; // selected members after a search (null if no search is active)
+    private PrintStream output; // standard output, used only for exported data and counts
+    private PrintStream messages; // progress and error messages
+    private boolean skippedRows;
+    private boolean storageOpen; // true if the team was loaded with the storage command
+
+    /**
+     * Constructor for a batch run on an empty team
+     * @param output the PrintStream that exported members and counts are written to
+     * @param messages the PrintStream that progress and error messages are written to
+     */
+    public TeamListBatch(PrintStream output, PrintStream messages) {
+        this.team = new TeamList();
+        this.searchResults = null;
+        this.output = output;
+        this.messages = messages;
+        this.skippedRows = false;
+        this.storageOpen = false;
+    }
+
+
+    // Static Methods
+
+    /**
+     * Turn command line arguments into commands. Every argument starting with "--" starts a new command,
+     * and the arguments after it (until the next command) are its arguments
+     * @param args the command line arguments
+     * @return the ArrayList of commands, each a list of the command name followed by its arguments
+     * @throws UsageException if the first argument is not a command
+     */
+    static ArrayList<ArrayList<String>> parseArguments(String[] args) throws UsageException {
+        ArrayList<ArrayList<String>> commands = new ArrayList<>();
+
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.length() > 2) {
+                ArrayList<String> command = new ArrayList<>();
+                command.add(arg.substring(2));
+                commands.add(command);
+            }
+            else if (commands.isEmpty()) {
+                throw new UsageException("Expected a command starting with -- but found \"" + arg + "\"");
+            }
+            else {
+                commands.get(commands.size() - 1).add(arg);
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Split a line of a script into words. Words are separated by spaces, and words in double quotes may contain spaces
+     * @param line the String containing the line
+     * @return the ArrayList of words (empty if the line is blank or a comment)
+     */
+    static ArrayList<String> splitLine(String line) {
+        ArrayList<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        boolean quoted = false;
+        boolean inWord = false;
+
+        if (line.trim().startsWith("#")) {
+            return words;
+        }
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (c == '"') {
+                quoted = !quoted;
+                inWord = true;
+            }
+            else if (!quoted && Character.isWhitespace(c)) {
+                if (inWord) {
+                    words.add(word.toString());
+                    word.setLength(0);
+                    inWord = false;
+                }
+            }
+            else {
+                word.append(c);
+                inWord = true;
+            }
+        }
+        if (inWord) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    /**
+     * Print how to use batch mode
+     * @param stream the PrintStream to print to
+     */
+    static void printUsage(PrintStream stream) {
+        stream.println("Usage: java DecaTeamOrganizer.Main --COMMAND [ARGUMENTS] [--COMMAND [ARGUMENTS]]...");
+        stream.println("Commands:");
+        stream.println("  --storage TYPE PATH    load the team from a storage (snapshot, csv or kv) and save later changes to it");
+        stream.println("  --import FILE          add the members in a csv file (- reads standard input)");
+        stream.println("  --dedupe email|exact   delete duplicate members, keeping the first one added");
+        stream.println("  --filter KEY=VALUE     filter by grade, subteam or event (i.e. grade=11)");
+        stream.println("  --search QUERY         select the members matching a search query");
+        stream.println("  --query QUERY          select the members matching a query, i.e. 'grade:10..11 subteam:Finance NOT \"wang\"'");
+        stream.println("  --sort first|last      sort by first name or last name");
+        stream.println("  --reset                select every member again");
+        stream.println("  --count                print the number of selected members");
+        stream.println("  --stats                print the result cache hit and miss counts");
+        stream.println("  --export FILE          write the selected members to a csv file (- writes standard output)");
+        stream.println("  --script FILE          run the commands in a file, one per line");
+        stream.println("Exit status: 0 success, 1 usage error, 2 file error, 3 some imported rows were skipped");
+    }
+
+    /**
+     * Run batch mode from command line arguments. Standard output is only used for exported members and counts,
+     * so messages printed by TeamList are sent to standard error instead
+     * @param args the command line arguments
+     * @return the exit status code
+     */
+    public static int run(String[] args) {
+        PrintStream standardOutput = System.out;
+        System.setOut(System.err);
+
+        try {
+            if (args.length == 1 && (args[0].equals("--help") || args[0].equals("-h"))) {
+                printUsage(standardOutput);
+                return EXIT_SUCCESS;
+            }
+
+            TeamListBatch batch = new TeamListBatch(standardOutput, System.err);
+            return batch.runCommands(parseArguments(args));
+        }
+        catch (UsageException error) {
+            System.err.println("Error: " + error.getMessage());
+            printUsage(System.err);
+            return EXIT_USAGE_ERROR;
+        }
+        finally {
+            standardOutput.flush();
+            System.setOut(standardOutput);
+        }
+    }
+
+
+    // Instance Methods
+
+    /**
+     * Run a list of commands in order, stopping at the first command that fails. The storage (if one was opened) is closed afterwards
+     * @param commands the ArrayList of commands, each a list of the command name followed by its arguments
+     * @return the exit status code
+     * @throws UsageException if a command is unknown or has the wrong arguments
+     */
+    public int runCommands(ArrayList<ArrayList<String>> commands) throws UsageException {
+        try {
+            for (ArrayList<String> command : commands) {
+                try {
+                    runCommand(command);
+                }
+                catch (IOException error) {
+                    messages.println("Error: " + command.get(0) + " failed: " + error.getMessage());
+                    return EXIT_IO_ERROR;
+                }
+            }
+        }
+        finally {
+            if (storageOpen) {
+                team.closeStorage();
+                storageOpen = false;
+            }
+        }
+
+        if (skippedRows) {
+            return EXIT_SKIPPED_ROWS;
+        }
+        return EXIT_SUCCESS;
+    }
+
+    /**
+     * Run one command
+     * @param command the command name followed by its arguments
+     * @throws UsageException if the command is unknown or has the wrong arguments
+     * @throws IOException if a file cannot be read or written
+     */
+    private void runCommand(List<String> command) throws UsageException, IOException {
+        String name = command.get(0);
+        List<String> args = command.subList(1, command.size());
+
+        switch (name) {
+            case "storage":
+                if (args.size() != 2) {
+                    throw new UsageException("storage needs a type (snapshot, csv or kv) and a path");
+                }
+                openStorage(args.get(0), args.get(1));
+                break;
+            case "import":
+                importFile(getArgument(command, args));
+                break;
+            case "dedupe":
+                dedupe(getArgument(command, args));
+                break;
+            case "filter":
+                if (args.isEmpty()) {
+                    throw new UsageException("filter needs KEY=VALUE arguments");
+                }
+                for (String arg : args) {
+                    filter(arg);
+                }
+                break;
+            case "search":
+                if (args.isEmpty()) {
+                    throw new UsageException("search needs a query");
+                }
+                search(String.join(" ", args));
+                break;
+            case "query":
+                if (args.isEmpty()) {
+                    throw new UsageException("query needs a query");
+                }
+                query(String.join(" ", args));
+                break;
+            case "sort":
+                sort(getArgument(command, args));
+                break;
+            case "reset":
+                team.resetFilters();
+                searchResults = null;
+                break;
+            case "count":
+                output.println(getSelection().size());
+                break;
+            case "stats":
+                messages.println("Result cache: " + team.getCacheHits() + " hits, " + team.getCacheMisses() + " misses");
+                break;
+            case "export":
+                export(getArgument(command, args));
+                break;
+            case "script":
+                runScript(getArgument(command, args));
+                break;
+            default:
+                throw new UsageException("Unknown command \"" + name + "\"");
+        }
+    }
+
+    /**
+     * Get the only argument of a command
+     * @param command the command name followed by its arguments
+     * @param args the arguments of the command
+     * @return the String argument
+     * @throws UsageException if the command doesn't have exactly one argument
+     */
+    private String getArgument(List<String> command, List<String> args) throws UsageException {
+        if (args.size() != 1) {
+            throw new UsageException(command.get(0) + " needs exactly one argument but found " + args.size());
+        }
+        return args.get(0);
+    }
+
+    /**
+     * Replace the team with the team saved in a storage, and save every later change to it
+     * @param type "snapshot" for a storage file and journal (PATH.journal), "csv" for a csv file, or "kv" for a key-value store directory
+     * @param path the String containing the path of the storage
+     * @throws UsageException if the type is not recognized or a storage is already open
+     */
+    private void openStorage(String type, String path) throws UsageException {
+        RosterStorage storage;
+        switch (type) {
+            case "snapshot":
+                storage = new SnapshotRosterStorage(path, path + ".journal", null);
+                break;
+            case "csv":
+                storage = new CsvRosterStorage(path);
+                break;
+            case "kv":
+                storage = new KeyValueRosterStorage(path);
+                break;
+            default:
+                throw new UsageException("storage needs snapshot, csv or kv but found \"" + type + "\"");
+        }
+        if (storageOpen) {
+            throw new UsageException("Only one storage can be opened");
+        }
+
+        team = new TeamList(storage);
+        searchResults = null;
+        if (!team.openStorage()) {
+            messages.println("The storage at " + path + " was damaged, so the last good copy of the team was loaded");
+        }
+        storageOpen = true;
+        messages.println("Loaded " + team.getNumMembers() + " members from " + path);
+    }
+
+    /**
+     * Add the members in a csv file to the team. The file is read as a stream, so only the members are kept in memory.
+     * It is read as UTF-8 whatever the locale of the machine, like the files that export writes
+     * @param fileName the String containing the path and name of the file, or "-" for standard input
+     * @throws IOException if the file cannot be read
+     */
+    private void importFile(String fileName) throws IOException {
+        Reader reader;
+        if (fileName.equals(STANDARD_STREAM)) {
+            reader = new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        }
+        else {
+            reader = new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8);
+        }
+
+        ArrayList<String> errors = new ArrayList<>();
+        ArrayList<Member> members = TeamList.readMembers(reader, errors);
+        team.addMembers(members);
+        searchResults = null;
+
+        messages.println("Imported " + members.size() + " members from " + fileName);
+        if (!errors.isEmpty()) {
+            messages.println("Skipped " + errors.size() + " row(s) in " + fileName);
+            skippedRows = true;
+        }
+    }
+
+    /**
+     * Delete duplicate members, keeping the member that was added first (lowest ID)
+     * @param mode "email" to treat members with the same email (ignoring case) as duplicates, or "exact" for members with the same information
+     * @throws UsageException if the mode is not recognized
+     */
+    private void dedupe(String mode) throws UsageException {
+        if (!mode.equals("email") && !mode.equals("exact")) {
+            throw new UsageException("dedupe needs email or exact but found \"" + mode + "\"");
+        }
+
+        HashMap<String, Member> firstAdded = new HashMap<>();
+        ArrayList<Integer> duplicateIds = new ArrayList<>();
+
+        for (Member m : team.getMembers()) {
+            String key;
+            if (mode.equals("email")) {
+                key = m.getEmail().toLowerCase();
+            }
+            else {
+                key = m.getFirstName() + "\n" + m.getLastname() + "\n" + m.getEmail() + "\n" + m.getGrade() + "\n" + m.getSubteam() + "\n" + m.getEventID();
+            }
+
+            Member kept = firstAdded.get(key);
+            if (kept == null) {
+                firstAdded.put(key, m);
+            }
+            else if (m.getId() < kept.getId()) {
+                duplicateIds.add(kept.getId());
+                firstAdded.put(key, m);
+            }
+            else {
+                duplicateIds.add(m.getId());
+            }
+        }
+
+        int deleted = team.deleteMembers(duplicateIds);
+        searchResults = null;
+        messages.println("Deleted " + deleted + " duplicate members");
+    }
+
+    /**
+     * Narrow the selection with a filter
+     * @param filter the String filter in the form KEY=VALUE, where KEY is grade, subteam or event
+     * @throws UsageException if the filter is not recognized
+     */
+    private void filter(String filter) throws UsageException {
+        int equals = filter.indexOf('=');
+        if (equals == -1) {
+            throw new UsageException("filter needs KEY=VALUE but found \"" + filter + "\"");
+        }
+        String key = filter.substring(0, equals).trim().toLowerCase();
+        String value = filter.substring(equals + 1).trim();
+
+        switch (key) {
+            case "grade":
+                try {
+                    team.filterByGrade(Integer.parseInt(value));
+                }
+                catch (NumberFormatException error) {
+                    throw new UsageException("grade \"" + value + "\" is not a number");
+                }
+                break;
+            case "subteam":
+                team.filterBySubteam(value);
+                break;
+            case "event":
+                team.filterByEvent(value);
+                break;
+            default:
+                throw new UsageException("Unknown filter \"" + key + "\", expected grade, subteam or event");
+        }
+        searchResults = null;
+    }
+
+    /**
+     * Select the members matching a search query
+     * @param query the String search query
+     * @throws UsageException if the query is too short
+     */
+    private void search(String query) throws UsageException {
+        if (query.length() < TeamList.MIN_SEARCH_QUERY_LENGTH) {
+            throw new UsageException("The search query must be at least " + TeamList.MIN_SEARCH_QUERY_LENGTH + " characters long");
+        }
+        searchResults = team.getSearch(query);
+        messages.println("Found " + searchResults.size() + " members matching \"" + query + "\"");
+    }
+
+    /**
+     * Select the members matching a query in the query language of MemberQuery (within the filtered members)
+     * @param query the String query
+     * @throws UsageException if the query is not valid
+     */
+    private void query(String query) throws UsageException {
+        try {
+            searchResults = team.getQuery(query);
+        }
+        catch (ParseException error) {
+            throw new UsageException("Invalid query \"" + query + "\": " + error.getMessage() + " at character " + (error.getErrorOffset() + 1));
+        }
+        messages.println("Found " + searchResults.size() + " members matching " + query);
+    }
+
+    /**
+     * Sort the team. Search results are cleared, since they are ordered by relevance and not by name
+     * @param order "first" to sort by first name, or "last" to sort by last name
+     * @throws UsageException if the order is not recognized
+     */
+    private void sort(String order) throws UsageException {
+        if (!order.equals("first") && !order.equals("last")) {
+            throw new UsageException("sort needs first or last but found \"" + order + "\"");
+        }
+        team.setSortByFirstName(order.equals("first"));
+        team.sort();
+        searchResults = null;
+    }
+
+    /**
+     * Write the selected members to a csv file in UTF-8, so accented names are not lost on a machine with a C or POSIX locale
+     * @param fileName the String containing the path and name of the file, or "-" for standard output
+     * @throws IOException if the file cannot be written
+     */
+    private void export(String fileName) throws IOException {
+        List<Member> selection = getSelection();
+
+        if (fileName.equals(STANDARD_STREAM)) {
+            // Standard output is left open for later commands
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            TeamList.writeHeader(writer);
+            TeamList.writeMembers(writer, selection);
+            writer.write("\n");
+            writer.flush();
+        }
+        else {
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName), StandardCharsets.UTF_8))) {
+                TeamList.writeHeader(writer);
+                TeamList.writeMembers(writer, selection);
+            }
+        }
+        messages.println("Exported " + selection.size() + " members to " + fileName);
+    }
+
+    /**
+     * Run the commands in a script file (read as UTF-8), one command per line
+     * @param fileName the String containing the path and name of the script
+     * @throws UsageException if a command in the script is unknown or has the wrong arguments
+     * @throws IOException if the script or a file used by it cannot be read or written
+     */
+    private void runScript(String fileName) throws UsageException, IOException {
+        int lineNumber = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                ArrayList<String> command = splitLine(line);
+
+                if (command.isEmpty()) {
+                    continue;
+                }
+
+                try {
+                    runCommand(command);
+                }
+                catch (UsageException error) {
+                    throw new UsageException(fileName + " line " + lineNumber + ": " + error.getMessage());
+                }
+            }
+        }
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Accessor method to get the selected members: the last search results, or the filtered members if no search is active
+     * @return the List of selected Members
+     */
+    public List<Member> getSelection() {
+        if (searchResults != null) {
+            return searchResults;
+        }
+        return team.getFilteredList();
+    }
+
+    /**
+     * Accessor method to get the team the commands are run on
+     * @return the TeamList
+     */
+    public TeamList getTeam() {
+        return team;
+    }
+}
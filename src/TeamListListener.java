@@ -0,0 +1,32 @@
+package DecaTeamOrganizer;
+
+/**
+ * TeamListListener Interface for objects (i.e. the Gui's table model) that need to be told when the members in a TeamList change
+ * @author Hugh Jiang
+ */
+public interface TeamListListener {
+
+    /**
+     * Called after a member is inserted into the main list
+     * @param index the index of the new Member in the main list
+     */
+    void memberInserted(int index);
+
+    /**
+     * Called after a member is removed from the main list
+     * @param index the index the removed Member had in the main list
+     */
+    void memberRemoved(int index);
+
+    /**
+     * Called after members in a range of the main list changed (i.e. a member was edited and moved to a new sorted position)
+     * @param firstIndex the first index in the main list that changed
+     * @param lastIndex the last index in the main list that changed
+     */
+    void membersUpdated(int firstIndex, int lastIndex);
+
+    /**
+     * Called after changes that affect many members at once (bulk imports, sorting, deleting all members)
+     */
+    void membersChanged();
+}
@@ -0,0 +1,291 @@
+package DecaTeamOrganizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TrigramIndex Class that keeps an inverted index from every 3 byte substring (trigram) of a Member's
+ * search key (lowercase UTF-8 search string) to the Members containing it. Used by TeamList to find search candidates without scanning every member.
+ * Each posting list is an array of member slots in increasing order (members are indexed in the order their slots are given out),
+ * so adding a member only appends to arrays and posting lists can be intersected without hashing.
+ * Deleted members are skipped when reading posting lists and removed from the arrays once enough of them build up.
+ * The posting lists are only built by the first search, so loading a large team doesn't wait for them
+ * @author Hugh Jiang
+ */
+public class TrigramIndex {
+
+    // Length of the substrings that are indexed, in bytes
+    final static int TRIGRAM_LENGTH = 3;
+    // Initial capacity of a posting list
+    final static int DEFAULT_POSTING_CAPACITY = 4;
+
+    /**
+     * Posting list of the slots of the members containing a trigram, in increasing order
+     */
+    private static class Posting {
+        int[] slots = new int[DEFAULT_POSTING_CAPACITY];
+        int size = 0;
+
+        /**
+         * Add a slot to the end of the posting list, unless it was just added (the trigram appears twice in a member)
+         * @param slot the slot of the member
+         */
+        void add(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {
+                return;
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size] = slot;
+            size++;
+        }
+    }
+
+    // Instance variables
+    private HashMap<Integer, Posting> postings; // null until the first search
+    private ArrayList<Member> members; // members by slot, null if the member was removed
+    private int numRemoved;
+
+    /**
+     * Constructor initializes an empty index
+     */
+    public TrigramIndex() {
+        postings = null;
+        members = new ArrayList<>();
+        numRemoved = 0;
+    }
+
+
+    // Static Methods
+
+    /**
+     * Packs three bytes into a single int so trigrams can be used as map keys without creating Strings
+     * @param key the byte array containing the trigram
+     * @param start the index of the first byte of the trigram
+     * @return the packed trigram
+     */
+    private static int packTrigram(byte[] key, int start) {
+        return ((key[start] & 0xff) << 16) | ((key[start + 1] & 0xff) << 8) | (key[start + 2] & 0xff);
+    }
+
+
+    // Mutator Methods
+
+    /**
+     * Store a member under their slot, and add them to the posting list of every trigram in their search string if the
+     * posting lists have been built. Members must be added in increasing order of their slots
+     * @param m the Member to be indexed
+     */
+    public void add(Member m) {
+        int slot = m.getSlot();
+
+        // Store the member under their slot
+        while (members.size() <= slot) {
+            members.add(null);
+        }
+        members.set(slot, m);
+
+        if (postings != null) {
+            addPostings(m);
+        }
+    }
+
+    /**
+     * Add a member's slot to the posting list of every trigram in their search string
+     * @param m the Member to be indexed
+     */
+    private void addPostings(Member m) {
+        byte[] key = m.getSearchKey();
+        int slot = m.getSlot();
+
+        for (int i = 0; i + TRIGRAM_LENGTH <= key.length; i++) {
+            int trigram = packTrigram(key, i);
+            Posting posting = postings.get(trigram);
+
+            if (posting == null) {
+                posting = new Posting();
+                postings.put(trigram, posting);
+            }
+            posting.add(slot);
+        }
+    }
+
+    /**
+     * Remove a member from the index. Their slot is only marked as removed here,
+     * the posting lists are cleaned up once removed slots make up half of the index
+     * @param m the Member to be removed from the index
+     */
+    public void remove(Member m) {
+        int slot = m.getSlot();
+
+        if (slot >= 0 && slot < members.size() && members.get(slot) == m) {
+            members.set(slot, null);
+            numRemoved++;
+
+            if (numRemoved > members.size() / 2) {
+                removeDeletedSlots();
+            }
+        }
+    }
+
+    /**
+     * Remove the slots of deleted members from every posting list
+     */
+    private void removeDeletedSlots() {
+        numRemoved = 0;
+        if (postings == null) {
+            return;
+        }
+        ArrayList<Integer> emptyTrigrams = new ArrayList<>();
+
+        for (Map.Entry<Integer, Posting> entry : postings.entrySet()) {
+            Posting posting = entry.getValue();
+            int kept = 0;
+
+            for (int i = 0; i < posting.size; i++) {
+                if (members.get(posting.slots[i]) != null) {
+                    posting.slots[kept] = posting.slots[i];
+                    kept++;
+                }
+            }
+            posting.size = kept;
+
+            if (kept == 0) {
+                emptyTrigrams.add(entry.getKey());
+            }
+        }
+
+        for (Integer trigram : emptyTrigrams) {
+            postings.remove(trigram);
+        }
+    }
+
+    /**
+     * Build the posting lists of every member that has not been removed, in order of their slots
+     */
+    private void buildPostings() {
+        postings = new HashMap<>();
+        for (Member m : members) {
+            if (m != null) {
+                addPostings(m);
+            }
+        }
+        numRemoved = 0;
+    }
+
+    /**
+     * Remove every member from the index
+     */
+    public void clear() {
+        postings = null;
+        members.clear();
+        numRemoved = 0;
+    }
+
+
+    // Accessor Methods
+
+    /**
+     * Find the members that contain every trigram of the query by intersecting the posting lists, starting with the shortest list.
+     * Containing every trigram does not guarantee that the member contains the whole query, so candidates still have to be checked.
+     * The first call builds the posting lists
+     * @param query the query from Member.toSearchKey(), at least TRIGRAM_LENGTH bytes long
+     * @return the ArrayList of candidate Members in order of their slots (empty if there are none)
+     */
+    public ArrayList<Member> getCandidates(byte[] query) {
+        if (query.length < TRIGRAM_LENGTH) {
+            throw new IllegalArgumentException("Query must be at least " + TRIGRAM_LENGTH + " bytes long");
+        }
+        if (postings == null) {
+            buildPostings();
+        }
+
+        // Collect the posting lists for every trigram in the query
+        ArrayList<Posting> lists = new ArrayList<>();
+        Posting smallest = null;
+        for (int i = 0; i + TRIGRAM_LENGTH <= query.length; i++) {
+            Posting posting = postings.get(packTrigram(query, i));
+
+            // If any trigram is missing, no member can contain the query
+            if (posting == null) {
+                return new ArrayList<>();
+            }
+            lists.add(posting);
+
+            if (smallest == null || posting.size < smallest.size) {
+                smallest = posting;
+            }
+        }
+
+        // Start from the shortest posting list so the intersection is as cheap as possible.
+        // Slots are increasing, so each other list keeps a cursor that only moves forward
+        ArrayList<Member> candidates = new ArrayList<>(smallest.size);
+        int[] cursors = new int[lists.size()];
+        for (int i = 0; i < smallest.size; i++) {
+            int slot = smallest.slots[i];
+            boolean inAll = members.get(slot) != null;
+
+            for (int j = 0; j < lists.size() && inAll; j++) {
+                Posting posting = lists.get(j);
+                if (posting != smallest) {
+                    cursors[j] = advance(posting, cursors[j], slot);
+                    inAll = cursors[j] < posting.size && posting.slots[cursors[j]] == slot;
+                }
+            }
+
+            if (inAll) {
+                candidates.add(members.get(slot));
+            }
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Accessor method to get the member stored under a slot
+     * @param slot the slot of the Member
+     * @return the Member, or null if the slot is empty or the member was removed
+     */
+    public Member getMember(int slot) {
+        if (slot < 0 || slot >= members.size()) {
+            return null;
+        }
+        return members.get(slot);
+    }
+
+    /**
+     * Find the first position at or after a cursor where a posting list has a slot greater than or equal to a target slot.
+     * Steps forward in doubling jumps and then binary searches the last jump (galloping search), so skipping over
+     * many slots takes logarithmic time and moving to a nearby slot takes constant time
+     * @param posting the Posting list
+     * @param cursor the position to start from
+     * @param slot the target slot
+     * @return the position of the first slot that is at least the target slot (posting.size if there is none)
+     */
+    private static int advance(Posting posting, int cursor, int slot) {
+        int step = 1;
+        int low = cursor;
+        int high = cursor;
+
+        while (high < posting.size && posting.slots[high] < slot) {
+            low = high + 1;
+            high = high + step;
+            step *= 2;
+        }
+        if (high >= posting.size) {
+            high = posting.size;
+        }
+        else {
+            high++;
+        }
+
+        int index = Arrays.binarySearch(posting.slots, low, high, slot);
+        if (index < 0) {
+            return -index - 1;
+        }
+        return index;
+    }
+}
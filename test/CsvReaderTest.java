@@ -0,0 +1,140 @@
+package DecaTeamOrganizer;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * CsvReaderTest Class that checks that CsvReader splits rows and fields the way RFC 4180 describes, and that an import reports
+ * the rows it can't read without stopping. Prints each result and exits with status 1 if a test failed.
+ * <pre>
+ * javac -d out src/*.java test/*.java
+ * java -cp out DecaTeamOrganizer.CsvReaderTest
+ * </pre>
+ * @author Hugh Jiang
+ */
+public class CsvReaderTest {
+
+    // Instance variables
+    private int numFailed;
+
+    /**
+     * Constructor for the tests
+     */
+    public CsvReaderTest() {
+        this.numFailed = 0;
+    }
+
+    /**
+     * Run the tests
+     * @param args ignored
+     * @throws IOException if a csv string cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        CsvReaderTest test = new CsvReaderTest();
+
+        test.checkRows("quoted comma", "a,\"b,c\",d\n", new String[][] {{"a", "b,c", "d"}});
+        test.checkRows("doubled quotes", "\"say \"\"hi\"\"\",x\n", new String[][] {{"say \"hi\"", "x"}});
+        test.checkRows("empty quoted field", "a,\"\"\n", new String[][] {{"a", ""}});
+        test.checkRows("newline inside quotes", "\"line 1\nline 2\",x\nnext,row\n", new String[][] {{"line 1\nline 2", "x"}, {"next", "row"}});
+        test.checkRows("CRLF inside quotes", "\"line 1\r\nline 2\",x\r\n", new String[][] {{"line 1\r\nline 2", "x"}});
+        test.checkRows("LF line endings", "a,b\nc,d\n", new String[][] {{"a", "b"}, {"c", "d"}});
+        test.checkRows("CRLF line endings", "a,b\r\nc,d\r\n", new String[][] {{"a", "b"}, {"c", "d"}});
+        test.checkRows("missing final newline", "a,b\nc,d", new String[][] {{"a", "b"}, {"c", "d"}});
+        test.checkRows("missing final newline after quotes", "a,\"b,c\"", new String[][] {{"a", "b,c"}});
+        test.checkRows("empty rows skipped", "a,b\n\n\r\nc\n", new String[][] {{"a", "b"}, {"c"}});
+        test.checkRows("unquoted fields trimmed", " a , \"b\" ,c\n", new String[][] {{"a", "b", "c"}});
+        test.testLongQuotedField();
+        test.testBadRows();
+
+        if (test.numFailed > 0) {
+            System.out.println(test.numFailed + " tests failed");
+            System.exit(1);
+        }
+        System.out.println("All tests passed");
+    }
+
+    /**
+     * Check that a csv string is split into the expected rows and fields
+     * @param name the String describing the test
+     * @param csv the csv data
+     * @param expected the expected fields of each row
+     * @throws IOException if the csv string cannot be read
+     */
+    private void checkRows(String name, String csv, String[][] expected) throws IOException {
+        ArrayList<String[]> rows = readRows(csv);
+        check(name, Arrays.deepEquals(rows.toArray(new String[0][]), expected));
+    }
+
+    /**
+     * Check that a quoted field longer than the buffer (containing commas, quotes and line breaks) is read whole
+     * @throws IOException if the csv string cannot be read
+     */
+    private void testLongQuotedField() throws IOException {
+        StringBuilder field = new StringBuilder();
+        while (field.length() < CsvReader.BUFFER_SIZE * 2) {
+            field.append("text, \"quoted\"\r\n");
+        }
+        String csv = "before\n" + CsvReader.escapeField(field.toString()) + ",after\nlast\n";
+
+        ArrayList<String[]> rows = readRows(csv);
+        check("quoted field longer than the buffer", rows.size() == 3 && rows.get(1).length == 2 && rows.get(1)[0].equals(field.toString())
+                && rows.get(1)[1].equals("after") && rows.get(2)[0].equals("last"));
+    }
+
+    /**
+     * Check that an import skips rows it can't read, reports each of them with its row number, and still imports the rows after them
+     * @throws IOException if the csv string cannot be read
+     */
+    private void testBadRows() throws IOException {
+        String csv = "First Name,Last Name,Email,Grade,Subteam,Event ID\r\n"
+                + "Anna,Lee,anna@school.org,10,Finance,PFN\r\n"
+                + "Bob,Smith,bob@school.org\r\n"
+                + "Carl,Jones,carl@school.org,ten,Finance,ACT\r\n"
+                + "\"Diaz, Jr.\",Dana,\"dana@school.org\",12,Marketing\r\n"
+                + "Eve,Stone,eve@school.org,9";
+
+        ArrayList<String> errors = new ArrayList<>();
+        ArrayList<Member> members = TeamList.readMembers(new StringReader(csv), errors);
+
+        check("bad rows are skipped", members.size() == 3 && members.get(0).getFirstName().equals("Anna")
+                && members.get(1).getFirstName().equals("Diaz, Jr.") && members.get(2).getFirstName().equals("Eve"));
+        check("bad rows are reported", errors.size() == 2 && errors.get(0).startsWith("Row 3:") && errors.get(1).startsWith("Row 4:"));
+    }
+
+    /**
+     * Read every row of a csv string
+     * @param csv the csv data
+     * @return the ArrayList of the fields of each row
+     * @throws IOException if the csv string cannot be read
+     */
+    private static ArrayList<String[]> readRows(String csv) throws IOException {
+        ArrayList<String[]> rows = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new StringReader(csv))) {
+            while (reader.nextRow()) {
+                String[] fields = new String[reader.getFieldCount()];
+                for (int i = 0; i < fields.length; i++) {
+                    fields[i] = reader.getField(i);
+                }
+                rows.add(fields);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Print the result of a test
+     * @param name the String describing the test
+     * @param passed true if the test passed
+     */
+    private void check(String name, boolean passed) {
+        if (passed) {
+            System.out.println("PASS " + name);
+        }
+        else {
+            System.out.println("FAIL " + name);
+            numFailed++;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package DecaTeamOrganizer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * JournalReplayTest Class that checks that changes saved in the journal of a SnapshotRosterStorage are replayed when the storage is opened again.
+ * Each test saves a team, opens it again and changes one member (so the change is only in the journal), then opens it a third time and checks
+ * the change. Prints each result and exits with status 1 if a test failed.
+ * <pre>
+ * javac -d out src/*.java test/*.java
+ * java -cp out DecaTeamOrganizer.JournalReplayTest
+ * </pre>
+ * @author Hugh Jiang
+ */
+public class JournalReplayTest {
+
+    // Instance variables
+    private File directory;
+    private int numTeams;
+    private int numFailed;
+
+    /**
+     * Constructor for tests that save their storage files in a directory
+     * @param directory the directory for the storage files
+     */
+    public JournalReplayTest(File directory) {
+        this.directory = directory;
+        this.numTeams = 0;
+        this.numFailed = 0;
+    }
+
+    /**
+     * Run the tests
+     * @param args ignored
+     * @throws IOException if the temporary directory cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        JournalReplayTest test = new JournalReplayTest(Files.createTempDirectory("journal-test").toFile());
+
+        test.testEdit("lowercase name", new Member("anna", "lee", "anna@school.org", 10, "Finance", "PFN"));
+        test.testDelete("lowercase name", new Member("anna", "lee", "anna@school.org", 10, "Finance", "PFN"));
+        test.testEdit("empty name", new Member("", "", "nobody@school.org", 11, "Marketing", "BTDM"));
+        test.testDelete("empty name", new Member("", "", "nobody@school.org", 11, "Marketing", "BTDM"));
+
+        if (test.numFailed > 0) {
+            System.out.println(test.numFailed + " tests failed");
+            System.exit(1);
+        }
+        System.out.println("All tests passed");
+    }
+
+    /**
+     * Check that an edit made after the team was saved is replayed from the journal
+     * @param name the String describing the test
+     * @param member the Member that is edited
+     */
+    private void testEdit(String name, Member member) {
+        String[] files = saveTeam(member);
+        Member edited = new Member(member.getFirstName(), member.getLastname(), "edited@school.org", 12, member.getSubteam(), member.getEventID());
+
+        TeamList team = openTeam(files);
+        team.editMember(findEqual(team, member).getId(), edited);
+        team.closeStorage();
+
+        team = openTeam(files);
+        check("replay edit of " + name, team.getNumMembers() == 3 && findEqual(team, member) == null && findEqual(team, edited) != null);
+        team.closeStorage();
+    }
+
+    /**
+     * Check that a delete made after the team was saved is replayed from the journal
+     * @param name the String describing the test
+     * @param member the Member that is deleted
+     */
+    private void testDelete(String name, Member member) {
+        String[] files = saveTeam(member);
+
+        TeamList team = openTeam(files);
+        team.deleteMemberById(findEqual(team, member).getId());
+        team.closeStorage();
+
+        team = openTeam(files);
+        check("replay delete of " + name, team.getNumMembers() == 2 && findEqual(team, member) == null);
+        team.closeStorage();
+    }
+
+    /**
+     * Save a new team of a member and two other members to new storage files
+     * @param member the Member to be saved with the other members
+     * @return the names of the snapshot file and journal file
+     */
+    private String[] saveTeam(Member member) {
+        numTeams++;
+        String fileName = new File(directory, "storage" + numTeams + ".dat").getPath();
+        String[] files = {fileName, fileName + ".journal"};
+
+        TeamList team = openTeam(files);
+        team.addMember(new Member("Bob", "Smith", "bob@school.org", 9, "Finance", "PFN"));
+        team.addMember(new Member(member.getFirstName(), member.getLastname(), member.getEmail(), member.getGrade(), member.getSubteam(), member.getEventID()));
+        team.addMember(new Member("carl", "jones", "carl@school.org", 12, "Finance", "ACT"));
+        team.closeStorage();
+        return files;
+    }
+
+    /**
+     * Open a team from storage files
+     * @param files the names of the snapshot file and journal file
+     * @return the TeamList loaded from the files
+     */
+    private TeamList openTeam(String[] files) {
+        TeamList team = new TeamList(new SnapshotRosterStorage(files[0], files[1], null));
+        team.openStorage();
+        return team;
+    }
+
+    /**
+     * Find the member in a team with the same information as a member
+     * @param team the TeamList to search
+     * @param m the Member to search for
+     * @return the Member in the team, or null if there is none
+     */
+    private Member findEqual(TeamList team, Member m) {
+        for (Member teamMember : team.getMembers()) {
+            if (teamMember.equals(m)) {
+                return teamMember;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Print the result of a test
+     * @param name the String describing the test
+     * @param passed true if the test passed
+     */
+    private void check(String name, boolean passed) {
+        if (passed) {
+            System.out.println("PASS " + name);
+        }
+        else {
+            System.out.println("FAIL " + name);
+            numFailed++;
+        }
+    }
+}
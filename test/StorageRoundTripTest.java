@@ -0,0 +1,317 @@
+package DecaTeamOrganizer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * StorageRoundTripTest Class that checks that a team saved by a storage backend is loaded back unchanged when the storage is opened again.
+ * Prints each result and exits with status 1 if a test failed.
+ * <pre>
+ * javac -d out src/*.java test/*.java
+ * java -cp out DecaTeamOrganizer.StorageRoundTripTest
+ * </pre>
+ * @author Hugh Jiang
+ */
+public class StorageRoundTripTest {
+
+    // Constants
+    final static Member[] NON_ASCII_MEMBERS = {
+        new Member("J\u00fcrgen", "M\u00fcller", "juergen@school.org", 10, "Finance", "PFN"),
+        new Member("Zo\u00eb", "Fran\u00e7ois", "zoe@school.org", 11, "Marketing", "BTDM"),
+        new Member("Jos\u00e9", "\u00d1\u00fa\u00f1ez", "jose@school.org", 12, "Hospitality", "HLM"),
+        new Member("\u96f7", "\u674e", "li@school.org", 9, "Finance", "ACT")
+    };
+
+    // Instance variables
+    private File directory;
+    private int numFailed;
+
+    /**
+     * Constructor for tests that save their storage files in a directory
+     * @param directory the directory for the storage files
+     */
+    public StorageRoundTripTest(File directory) {
+        this.directory = directory;
+        this.numFailed = 0;
+    }
+
+    /**
+     * Run the tests
+     * @param args ignored
+     * @throws IOException if the temporary directory cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        StorageRoundTripTest test = new StorageRoundTripTest(Files.createTempDirectory("storage-test").toFile());
+
+        test.testCsvRoundTrip();
+        test.testKeyValueChanges();
+        test.testKeyValueMerge();
+        test.testKeyValueReplaceWhileFrozen();
+
+        if (test.numFailed > 0) {
+            System.out.println(test.numFailed + " tests failed");
+            System.exit(1);
+        }
+        System.out.println("All tests passed");
+    }
+
+    /**
+     * Check that non-ASCII names survive saving a csv storage file, opening it, changing the team and saving it again
+     */
+    private void testCsvRoundTrip() {
+        String fileName = new File(directory, "storage.csv").getPath();
+
+        TeamList team = new TeamList(new CsvRosterStorage(fileName));
+        team.openStorage();
+        for (Member m : NON_ASCII_MEMBERS) {
+            team.addMember(copy(m));
+        }
+        team.closeStorage();
+
+        // Each save writes the whole file again, so a charset mismatch would get worse every time the team is opened and saved
+        team = new TeamList(new CsvRosterStorage(fileName));
+        team.openStorage();
+        check("csv reopen keeps non-ASCII names", hasAll(team, NON_ASCII_MEMBERS));
+        team.addMember(new Member("Bob", "Smith", "bob@school.org", 9, "Finance", "PFN"));
+        team.closeStorage();
+
+        team = new TeamList(new CsvRosterStorage(fileName));
+        team.openStorage();
+        check("csv save after reopen keeps non-ASCII names", team.getNumMembers() == NON_ASCII_MEMBERS.length + 1 && hasAll(team, NON_ASCII_MEMBERS));
+        team.closeStorage();
+    }
+
+    /**
+     * Check that members added, deleted and edited in a KeyValueRosterStorage are loaded back after the storage is closed and opened again
+     */
+    private void testKeyValueChanges() {
+        String directoryName = new File(directory, "changes.kv").getPath();
+
+        TeamList team = new TeamList(new KeyValueRosterStorage(directoryName));
+        team.openStorage();
+        for (Member m : NON_ASCII_MEMBERS) {
+            team.addMember(copy(m));
+        }
+        Member bob = new Member("Bob", "Smith", "bob@school.org", 9, "Finance", "PFN");
+        team.addMember(bob);
+        Member deleted = findEqual(team, NON_ASCII_MEMBERS[1]);
+        team.deleteMemberById(deleted.getId());
+        Member original = findEqual(team, NON_ASCII_MEMBERS[0]);
+        Member edited = new Member(original.getFirstName(), original.getLastname(), "edited@school.org", 12, "Marketing", "BTDM");
+        team.editMember(original.getId(), edited);
+        team.closeStorage();
+
+        KeyValueRosterStorage storage = new KeyValueRosterStorage(directoryName);
+        team = new TeamList(storage);
+        team.openStorage();
+        check("kv reopen keeps adds", team.getNumMembers() == NON_ASCII_MEMBERS.length && findEqual(team, bob) != null && findEqual(team, NON_ASCII_MEMBERS[3]) != null);
+        check("kv reopen keeps delete", findEqual(team, NON_ASCII_MEMBERS[1]) == null);
+        Member reloaded = findEqual(team, edited);
+        check("kv reopen keeps edit and ID", findEqual(team, NON_ASCII_MEMBERS[0]) == null && reloaded != null && reloaded.getId() == original.getId());
+        try {
+            check("kv name index follows edit", storage.findByLastName("m\u00fcl").size() == 1 && storage.getMember(deleted.getId()) == null);
+        }
+        catch (IOException error) {
+            check("kv name index follows edit", false);
+        }
+        team.closeStorage();
+    }
+
+    /**
+     * Check that a store whose tables were merged opens to the same keys and values
+     */
+    private void testKeyValueMerge() {
+        File storeDirectory = new File(directory, "merge.kv");
+        int numKeys = KeyValueStore.MEMTABLE_LIMIT * 4;
+
+        try {
+            KeyValueStore store = new KeyValueStore(storeDirectory);
+            store.open();
+            store.setSyncOnCommit(false);
+
+            // Every full memtable becomes a table when the store is forced, and tables of the same size are merged
+            int numFlushes = 0;
+            for (int i = 0; i < numKeys; i++) {
+                store.put(getKey(i), getValue(i, 0));
+                store.commit();
+                if ((i + 1) % KeyValueStore.MEMTABLE_LIMIT == 0) {
+                    store.force();
+                    numFlushes++;
+                }
+            }
+            check("kv tables are merged", store.getNumTables() < numFlushes);
+
+            // Deletes and overwrites go in a newer table than the values they replace
+            for (int i = 0; i < numKeys; i += 3) {
+                store.delete(getKey(i));
+            }
+            for (int i = 1; i < numKeys; i += 3) {
+                store.put(getKey(i), getValue(i, 1));
+            }
+            store.commit();
+            store.close();
+
+            store = new KeyValueStore(storeDirectory);
+            store.open();
+            boolean matches = true;
+            for (int i = 0; i < numKeys; i++) {
+                byte[] expected = i % 3 == 0 ? null : getValue(i, i % 3 == 1 ? 1 : 0);
+                byte[] value = store.get(getKey(i));
+                if (expected == null ? value != null : value == null || !new String(value, StandardCharsets.UTF_8).equals(new String(expected, StandardCharsets.UTF_8))) {
+                    matches = false;
+                }
+            }
+            check("kv reopen after merge", matches && store.scan(getKey(0), getKey(numKeys)).size() == numKeys - (numKeys + 2) / 3);
+            store.close();
+        }
+        catch (IOException error) {
+            check("kv reopen after merge", false);
+        }
+    }
+
+    /**
+     * Check that replaceAll() while a full memtable is being written to a table leaves only the replacement in the store,
+     * both straight away and after the store is opened again
+     */
+    private void testKeyValueReplaceWhileFrozen() {
+        File storeDirectory = new File(directory, "replace.kv");
+        int numKeys = KeyValueStore.MEMTABLE_LIMIT * 8;
+
+        try {
+            KeyValueStore store = new KeyValueStore(storeDirectory);
+            store.open();
+            store.setSyncOnCommit(false);
+
+            // Whether the frozen memtable is caught depends on timing, so the write is started again until it is
+            boolean caught = false;
+            for (int attempt = 0; attempt < 10 && !caught; attempt++) {
+                for (int i = 0; i < numKeys; i++) {
+                    store.put(getKey(i), getValue(i, attempt));
+                }
+                store.commit();
+
+                Thread writer = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            store.force();
+                        }
+                        catch (IOException error) {
+                            System.out.println("Error in writing storage table");
+                        }
+                    }
+                });
+                writer.start();
+                while (writer.isAlive() && !caught) {
+                    caught = store.hasFrozenMemtable();
+                }
+
+                if (caught) {
+                    File written = new File(storeDirectory, "replacement.tmp");
+                    try (SortedTable.Writer tableWriter = new SortedTable.Writer(written)) {
+                        tableWriter.add("replaced", "yes".getBytes(StandardCharsets.UTF_8));
+                        tableWriter.finish();
+                    }
+                    store.replaceAll(written);
+                }
+                writer.join();
+            }
+            check("kv replaceAll caught a frozen memtable", caught);
+            check("kv replaceAll drops the frozen memtable", store.get(getKey(0)) == null && store.get("replaced") != null && store.scan("", "\uffff").size() == 1);
+            store.close();
+
+            KeyValueStore reopened = new KeyValueStore(storeDirectory);
+            reopened.open();
+            check("kv reopen after replaceAll", reopened.get(getKey(0)) == null && reopened.get("replaced") != null && reopened.scan("", "\uffff").size() == 1);
+            reopened.close();
+        }
+        catch (IOException error) {
+            check("kv replaceAll drops the frozen memtable", false);
+        }
+        catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            check("kv replaceAll drops the frozen memtable", false);
+        }
+    }
+
+    /**
+     * Get the key of an entry in the key-value tests, so keys sort in the order of their numbers
+     * @param i the entry number
+     * @return the String key
+     */
+    private static String getKey(int i) {
+        return String.format("key%08d", i);
+    }
+
+    /**
+     * Get the value of an entry in the key-value tests
+     * @param i the entry number
+     * @param generation the number of times the entry was written before
+     * @return the value
+     */
+    private static byte[] getValue(int i, int generation) {
+        return ("value" + i + "-" + generation).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Find the member in a team with the same information as a member
+     * @param team the TeamList to search
+     * @param m the Member to search for
+     * @return the Member in the team, or null if there is none
+     */
+    private static Member findEqual(TeamList team, Member m) {
+        for (Member teamMember : team.getMembers()) {
+            if (teamMember.equals(m)) {
+                return teamMember;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Copy a member, so the same test members can be added to several teams
+     * @param m the Member to copy
+     * @return the new Member with the same information
+     */
+    private static Member copy(Member m) {
+        return new Member(m.getFirstName(), m.getLastname(), m.getEmail(), m.getGrade(), m.getSubteam(), m.getEventID());
+    }
+
+    /**
+     * Check that a team has a member with the same information as each of the given members
+     * @param team the TeamList to search
+     * @param members the array of Members to search for
+     * @return true if every member was found
+     */
+    private static boolean hasAll(TeamList team, Member[] members) {
+        for (Member m : members) {
+            boolean found = false;
+            for (Member teamMember : team.getMembers()) {
+                if (teamMember.equals(m)) {
+                    found = true;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Print the result of a test
+     * @param name the String describing the test
+     * @param passed true if the test passed
+     */
+    private void check(String name, boolean passed) {
+        if (passed) {
+            System.out.println("PASS " + name);
+        }
+        else {
+            System.out.println("FAIL " + name);
+            numFailed++;
+        }
+    }
+}